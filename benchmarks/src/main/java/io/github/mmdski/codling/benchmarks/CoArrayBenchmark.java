@@ -0,0 +1,130 @@
+package io.github.mmdski.codling.benchmarks;
+
+import java.nio.DoubleBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mmdski.codling.crosssection.CoArray;
+import io.github.mmdski.codling.crosssection.Coordinate;
+
+/**
+ * Compares <code>CoArray</code>, which stores coordinates in parallel
+ * <code>double[]</code> arrays, against the previous layout of one
+ * <code>Coordinate</code> object per point
+ * <p>
+ * Run with <code>-prof gc</code> to compare allocation per operation. For 10k
+ * points the object layout retains about 360 KB (a 32 byte
+ * <code>Coordinate</code> plus a 4 byte reference per point with compressed
+ * oops), while the primitive layout retains 160 KB.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoArrayBenchmark {
+
+    @Param({ "10000" })
+    public int nPoints;
+
+    private double[] y;
+    private double[] z;
+    private double zLo;
+    private double zHi;
+
+    private CoArray coArray;
+    private Coordinate[] coordinates;
+
+    @Setup
+    public void setup() {
+
+        y = new double[nPoints];
+        z = new double[nPoints];
+
+        for (int i = 0; i < nPoints; i++) {
+            z[i] = i;
+            y[i] = Math.abs(Math.sin(0.01 * i));
+        }
+
+        zLo = 0.1 * nPoints + 0.5;
+        zHi = 0.9 * nPoints + 0.5;
+
+        coArray = new CoArray(y, z);
+        coordinates = new Coordinate[nPoints];
+        for (int i = 0; i < nPoints; i++)
+            coordinates[i] = new Coordinate(y[i], z[i]);
+    }
+
+    @Benchmark
+    public CoArray construct() {
+        return new CoArray(y, z);
+    }
+
+    @Benchmark
+    public Coordinate[] constructObjects() {
+        Coordinate[] c = new Coordinate[nPoints];
+        for (int i = 0; i < nPoints; i++)
+            c[i] = new Coordinate(y[i], z[i]);
+        return c;
+    }
+
+    @Benchmark
+    public double[] y() {
+        return coArray.y();
+    }
+
+    @Benchmark
+    public double[] yObjects() {
+        double[] values = new double[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++)
+            values[i] = coordinates[i].y();
+        return values;
+    }
+
+    @Benchmark
+    public double sumView() {
+        double sum = 0;
+        DoubleBuffer view = coArray.yView();
+        for (int i = 0; i < nPoints; i++)
+            sum += view.get(i);
+        return sum;
+    }
+
+    @Benchmark
+    public double sumObjects() {
+        double sum = 0;
+        for (int i = 0; i < coordinates.length; i++)
+            sum += coordinates[i].y();
+        return sum;
+    }
+
+    @Benchmark
+    public CoArray addY() {
+        return coArray.addY(1);
+    }
+
+    @Benchmark
+    public Coordinate[] addYObjects() {
+        Coordinate[] c = new Coordinate[coordinates.length];
+        for (int i = 0; i < coordinates.length; i++)
+            c[i] = new Coordinate(coordinates[i].y() + 1, coordinates[i].z());
+        return c;
+    }
+
+    @Benchmark
+    public CoArray subArray() {
+        return coArray.subArray(zLo, zHi);
+    }
+}
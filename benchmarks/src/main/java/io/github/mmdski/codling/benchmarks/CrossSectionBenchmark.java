@@ -0,0 +1,90 @@
+package io.github.mmdski.codling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+
+/**
+ * Micro-benchmarks for the cross section hot path
+ * <p>
+ * Inputs are read from non-final state fields so the JIT cannot constant-fold
+ * the computations away.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrossSectionBenchmark {
+
+    private CrossSection crossSection;
+    private double elevation;
+    private double discharge;
+    private double slope;
+    private CrossSectionProperties holder;
+    private double[] elevations;
+    private double[][] columns;
+
+    @Setup
+    public void setup() {
+        crossSection = SyntheticReach.crossSection();
+        elevation = SyntheticReach.NORMAL_DEPTH;
+        discharge = SyntheticReach.normalDischarge();
+        slope = SyntheticReach.SLOPE;
+        holder = new CrossSectionProperties();
+
+        /* one rating table worth of elevations */
+        elevations = new double[1024];
+        for (int i = 0; i < elevations.length; i++)
+            elevations[i] = 0.01 * (i + 1);
+        columns = CrossSectionProperties.columns(elevations.length);
+    }
+
+    @Benchmark
+    public CrossSectionProperties properties() {
+        return crossSection.properties(elevation);
+    }
+
+    @Benchmark
+    public CrossSectionProperties propertiesHolder() {
+        return crossSection.properties(elevation, holder);
+    }
+
+    @Benchmark
+    public double[][] propertiesScalarLoop() {
+        for (int i = 0; i < elevations.length; i++) {
+            crossSection.properties(elevations[i], holder);
+            for (CrossSectionProperties.Property p : CrossSectionProperties.Property.values())
+                columns[p.value()][i] = holder.value(p);
+        }
+        return columns;
+    }
+
+    @Benchmark
+    public double[][] propertiesBulk() {
+        return crossSection.properties(elevations, columns);
+    }
+
+    @Benchmark
+    public double normalY() {
+        return crossSection.normalY(discharge, slope);
+    }
+
+    @Benchmark
+    public double criticalY() {
+        return crossSection.criticalY(discharge);
+    }
+}
@@ -0,0 +1,63 @@
+package io.github.mmdski.codling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mmdski.codling.crosssection.CoArray;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.IrregularCrossSection;
+
+/**
+ * Benchmarks for irregular cross section property evaluation on synthetic
+ * parabolic sections with an increasing number of survey points
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IrregularCrossSectionBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int nPoints;
+
+    private IrregularCrossSection crossSection;
+    private CrossSectionProperties holder;
+    private double elevation;
+
+    @Setup
+    public void setup() {
+
+        double width = 100;
+        double depth = 10;
+        double[] y = new double[nPoints];
+        double[] z = new double[nPoints];
+
+        for (int i = 0; i < nPoints; i++) {
+            z[i] = width * i / (nPoints - 1);
+            double s = 2 * z[i] / width - 1;
+            y[i] = depth * s * s;
+        }
+
+        crossSection = new IrregularCrossSection(new CoArray(y, z), SyntheticReach.ROUGHNESS);
+        holder = new CrossSectionProperties();
+        elevation = 0.5 * depth;
+    }
+
+    @Benchmark
+    public CrossSectionProperties properties() {
+        return crossSection.properties(elevation, holder);
+    }
+}
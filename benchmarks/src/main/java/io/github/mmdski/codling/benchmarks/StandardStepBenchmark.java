@@ -0,0 +1,52 @@
+package io.github.mmdski.codling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mmdski.codling.Reach;
+import io.github.mmdski.codling.StandardStepSolution;
+import io.github.mmdski.codling.StandardStepSolver;
+import io.github.mmdski.codling.SteadyPlan;
+
+/**
+ * Benchmarks for {@link StandardStepSolver#solvePlan(Reach, SteadyPlan)} on
+ * synthetic reaches of increasing length
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StandardStepBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    public int nNodes;
+
+    private Reach reach;
+    private SteadyPlan plan;
+    private StandardStepSolver solver;
+
+    @Setup
+    public void setup() {
+        reach = SyntheticReach.reach(nNodes);
+        plan = SyntheticReach.plan(nNodes);
+        solver = new StandardStepSolver();
+    }
+
+    @Benchmark
+    public StandardStepSolution solvePlan() {
+        return solver.solvePlan(reach, plan);
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.mmdski.codling.benchmarks;
+
+import io.github.mmdski.codling.Reach;
+import io.github.mmdski.codling.SteadyPlan;
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+/**
+ * Synthetic prismatic reach used as a benchmark fixture
+ * <p>
+ * All nodes share a single rectangular cross section on a constant slope, and
+ * the plan discharge is the normal discharge for a fixed normal depth. The
+ * solution is therefore known, and every node solve does a realistic amount of
+ * secant work.
+ */
+final class SyntheticReach {
+
+    static final double WIDTH = 10;
+    static final double ROUGHNESS = 0.03;
+    static final double SLOPE = 0.001;
+    static final double DX = 10;
+    static final double NORMAL_DEPTH = 2;
+
+    private SyntheticReach() {
+        ;
+    }
+
+    /**
+     * Returns the cross section shared by all synthetic reach nodes
+     *
+     * @return Rectangular cross section
+     */
+    static RectangularCrossSection crossSection() {
+        return new RectangularCrossSection(WIDTH, ROUGHNESS);
+    }
+
+    /**
+     * Returns the normal discharge for the synthetic cross section and slope
+     *
+     * @return Normal discharge
+     */
+    static double normalDischarge() {
+        CrossSectionProperties properties = crossSection().properties(NORMAL_DEPTH);
+        double conveyance = properties.value(CrossSectionProperties.Property.CONVEYANCE);
+        return conveyance * Math.sqrt(SLOPE);
+    }
+
+    /**
+     * Builds a reach with <code>nNodes</code> nodes
+     *
+     * @param nNodes Number of nodes
+     *
+     * @return Synthetic reach
+     */
+    static Reach reach(int nNodes) {
+
+        double[] x = new double[nNodes];
+        double[] thalweg = new double[nNodes];
+        int[] xsNumber = new int[nNodes];
+        CrossSection[] crossSections = { crossSection() };
+
+        for (int i = 0; i < nNodes; i++) {
+            x[i] = DX * i;
+            thalweg[i] = (nNodes - i - 1) * DX * SLOPE;
+            xsNumber[i] = 0;
+        }
+
+        return new Reach(x, thalweg, xsNumber, crossSections);
+    }
+
+    /**
+     * Builds a downstream boundary plan for a reach with <code>nNodes</code>
+     * nodes
+     * <p>
+     * The plan discharge is normal discharge, and the downstream water surface is
+     * held at 1.5 times normal depth above the downstream thalweg, so the profile
+     * is an M1 backwater curve that relaxes toward normal depth upstream rather
+     * than a trivially uniform one.
+     *
+     * @param nNodes Number of nodes
+     *
+     * @return Steady plan
+     */
+    static SteadyPlan plan(int nNodes) {
+
+        double[] discharge = new double[nNodes];
+        double q = normalDischarge();
+
+        for (int i = 0; i < nNodes; i++)
+            discharge[i] = q;
+
+        /* the downstream thalweg is at elevation 0 */
+        double bcElevation = 1.5 * NORMAL_DEPTH;
+
+        return new SteadyPlan(discharge, Q -> bcElevation, BCLocation.DOWNSTREAM);
+    }
+}
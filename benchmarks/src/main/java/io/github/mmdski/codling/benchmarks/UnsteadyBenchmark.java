@@ -0,0 +1,78 @@
+package io.github.mmdski.codling.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import io.github.mmdski.codling.ElevationBC;
+import io.github.mmdski.codling.RatingCurveElevationBC;
+import io.github.mmdski.codling.Reach;
+import io.github.mmdski.codling.UnsteadySolver;
+
+/**
+ * Benchmark for a year-long hourly {@link UnsteadySolver} simulation on
+ * synthetic reaches
+ * <p>
+ * The inflow hydrograph varies daily between normal discharge and twice normal
+ * discharge. The downstream boundary is a rating curve, so the benchmark
+ * measures the solver rather than normal depth solves.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class UnsteadyBenchmark {
+
+    private static final int HOURS = 8760;
+
+    @Param({ "10", "100" })
+    public int nNodes;
+
+    private Reach reach;
+    private double[] inflow;
+    private ElevationBC bc;
+    private UnsteadySolver solver;
+    private double[] initialDischarge;
+    private double[] initialElevation;
+
+    @Setup
+    public void setup() {
+
+        reach = SyntheticReach.reach(nNodes);
+        double q = SyntheticReach.normalDischarge();
+
+        inflow = new double[HOURS];
+        for (int s = 0; s < HOURS; s++)
+            inflow[s] = q * (1.5 - 0.5 * Math.cos(2 * Math.PI * s / 24));
+
+        bc = RatingCurveElevationBC.normalDepth(SyntheticReach.crossSection(), SyntheticReach.SLOPE,
+                4 * SyntheticReach.NORMAL_DEPTH, 1e-4, 0);
+
+        initialDischarge = new double[nNodes];
+        initialElevation = reach.thalweg();
+        for (int i = 0; i < nNodes; i++) {
+            initialDischarge[i] = q;
+            initialElevation[i] += SyntheticReach.NORMAL_DEPTH;
+        }
+
+        solver = new UnsteadySolver(reach);
+    }
+
+    @Benchmark
+    public int route() {
+        solver.initialize(initialDischarge, initialElevation);
+        return solver.route(inflow, 3600, bc, null);
+    }
+}
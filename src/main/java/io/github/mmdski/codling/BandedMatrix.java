@@ -0,0 +1,242 @@
+package io.github.mmdski.codling;
+
+import java.util.Arrays;
+
+/**
+ * Square banded matrix with an in-place LU solver
+ * <p>
+ * A banded matrix has <code>kl</code> diagonals below and <code>ku</code>
+ * diagonals above the main diagonal. Each row is stored in a single flat array
+ * with room for the <code>kl</code> extra upper diagonals filled in by row
+ * interchanges, so the matrix can be factored with partial pivoting in place.
+ * <p>
+ * All storage is allocated when the matrix is constructed. Assembling,
+ * factoring and solving don't allocate, so a banded matrix can be reused for
+ * every step of a long simulation. Banded matrices are not thread-safe.
+ */
+public class BandedMatrix {
+
+    private final int n;
+    private final int kl;
+    private final int ku;
+    private final int width; // stored elements per row, 2 * kl + ku + 1
+    private final double[] ab; // element (i, j) at i * width + j - i + kl
+    private final int[] pivot;
+    private boolean factored;
+
+    /**
+     * Construct a new zero banded matrix
+     *
+     * @param n  Number of rows and columns
+     * @param kl Number of diagonals below the main diagonal
+     * @param ku Number of diagonals above the main diagonal
+     */
+    public BandedMatrix(int n, int kl, int ku) {
+
+        if (n < 1 || kl < 0 || ku < 0)
+            throw new IllegalArgumentException();
+
+        this.n = n;
+        this.kl = kl;
+        this.ku = ku;
+        this.width = 2 * kl + ku + 1;
+        this.ab = new double[n * width];
+        this.pivot = new int[n];
+    }
+
+    /**
+     * Returns the number of rows and columns of this matrix
+     *
+     * @return Matrix size
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Set all elements of this matrix to zero
+     */
+    public void clear() {
+        Arrays.fill(ab, 0);
+        factored = false;
+    }
+
+    /**
+     * Returns an element of this matrix
+     * <p>
+     * Elements outside of the band are zero. After {@link #factor()}, the
+     * elements of the LU factors are returned instead.
+     *
+     * @param i Row index
+     * @param j Column index
+     *
+     * @return Element value
+     */
+    public double get(int i, int j) {
+
+        checkIndex(i, j);
+
+        if (j < i - kl || j > i + ku + kl)
+            return 0;
+
+        return ab[i * width + j - i + kl];
+    }
+
+    /**
+     * Set an element of this matrix
+     *
+     * @param i     Row index
+     * @param j     Column index
+     * @param value Element value
+     */
+    public void set(int i, int j, double value) {
+        ab[index(i, j)] = value;
+    }
+
+    /**
+     * Add to an element of this matrix
+     *
+     * @param i     Row index
+     * @param j     Column index
+     * @param value Value added to the element
+     */
+    public void add(int i, int j, double value) {
+        ab[index(i, j)] += value;
+    }
+
+    private int index(int i, int j) {
+
+        checkIndex(i, j);
+
+        if (j < i - kl || j > i + ku)
+            throw new IllegalArgumentException();
+
+        factored = false;
+
+        return i * width + j - i + kl;
+    }
+
+    private void checkIndex(int i, int j) {
+        if (i < 0 || i >= n || j < 0 || j >= n)
+            throw new ArrayIndexOutOfBoundsException();
+    }
+
+    /**
+     * Factor this matrix in place by Gaussian elimination with partial pivoting
+     * <p>
+     * The elements of this matrix are replaced by its LU factors.
+     *
+     * @return <code>true</code> if the matrix was factored, <code>false</code>
+     *         if it is singular
+     */
+    public boolean factor() {
+
+        double[] a = ab;
+        int w = width;
+
+        for (int k = 0; k < n; k++) {
+
+            int last = Math.min(n - 1, k + kl); // last row with an element in column k
+            int lastColumn = Math.min(n - 1, k + ku + kl);
+
+            /* pivot row */
+            int p = k;
+            double max = Math.abs(a[k * w + kl]);
+            for (int i = k + 1; i <= last; i++) {
+                double v = Math.abs(a[i * w + k - i + kl]);
+                if (v > max) {
+                    max = v;
+                    p = i;
+                }
+            }
+
+            pivot[k] = p;
+
+            if (!(max > 0))
+                return false;
+
+            if (p != k) {
+                for (int j = k; j <= lastColumn; j++) {
+                    double t = a[k * w + j - k + kl];
+                    a[k * w + j - k + kl] = a[p * w + j - p + kl];
+                    a[p * w + j - p + kl] = t;
+                }
+            }
+
+            double diagonal = a[k * w + kl];
+
+            for (int i = k + 1; i <= last; i++) {
+
+                int row = i * w - i + kl;
+                double m = a[row + k] / diagonal;
+                a[row + k] = m;
+
+                if (m == 0)
+                    continue;
+
+                int pivotRow = k * w - k + kl;
+                for (int j = k + 1; j <= lastColumn; j++)
+                    a[row + j] -= m * a[pivotRow + j];
+            }
+        }
+
+        factored = true;
+
+        return true;
+    }
+
+    /**
+     * Solve a linear system with this factored matrix
+     * <p>
+     * {@link #factor()} must be called successfully before this method.
+     *
+     * @param b Right-hand side, overwritten with the solution
+     *
+     * @return <code>b</code>, containing the solution
+     */
+    public double[] solve(double[] b) {
+
+        if (b == null)
+            throw new NullPointerException();
+
+        if (b.length != n)
+            throw new IllegalArgumentException();
+
+        if (!factored)
+            throw new IllegalStateException();
+
+        double[] a = ab;
+        int w = width;
+
+        /* forward substitution with L, applying row interchanges */
+        for (int k = 0; k < n; k++) {
+
+            int p = pivot[k];
+            if (p != k) {
+                double t = b[k];
+                b[k] = b[p];
+                b[p] = t;
+            }
+
+            double bk = b[k];
+            int last = Math.min(n - 1, k + kl);
+            for (int i = k + 1; i <= last; i++)
+                b[i] -= a[i * w + k - i + kl] * bk;
+        }
+
+        /* back substitution with U */
+        for (int k = n - 1; k >= 0; k--) {
+
+            int row = k * w - k + kl;
+            int lastColumn = Math.min(n - 1, k + ku + kl);
+            double sum = b[k];
+
+            for (int j = k + 1; j <= lastColumn; j++)
+                sum -= a[row + j] * b[j];
+
+            b[k] = sum / a[row + k];
+        }
+
+        return b;
+    }
+}
@@ -0,0 +1,191 @@
+package io.github.mmdski.codling;
+
+/**
+ * Solver class for Brent's bracketed root finding method
+ * <p>
+ * The first and second iterations of the solvable are used as the ends of the
+ * initial interval. If the function values at the ends have the same sign, the
+ * interval is expanded geometrically away from the end with the smaller
+ * function value until a root is bracketed. Once bracketed, Brent's method
+ * combines inverse quadratic interpolation and the secant method with bisection,
+ * so it always converges.
+ * <p>
+ * The number of function evaluations is bounded by two for the initial
+ * interval, one for each of at most 50 expansions, and one for each of at most
+ * <code>maxIterations</code> iterations. Brent solvers are immutable and may be
+ * shared between threads.
+ */
+public class BrentSolver implements RootFinder {
+
+    private static final int MAX_EXPANSIONS = 50;
+    private static final double EXPANSION_FACTOR = 1.6;
+
+    private final int maxIterations;
+    private final double eps;
+
+    /**
+     * Construct a new Brent solver
+     *
+     * @param maxIterations Maximum number of iterations after a root is bracketed
+     * @param eps           Convergence tolerance
+     */
+    public BrentSolver(int maxIterations, double eps) {
+
+        if (maxIterations < 2 || !Double.isFinite(eps) || eps <= 0)
+            throw new IllegalArgumentException();
+
+        this.maxIterations = maxIterations;
+        this.eps = eps;
+    }
+
+    /**
+     * Find a root of a solvable function, writing the result into
+     * <code>solution</code>
+     * <p>
+     * The number of iterations of the solution is the number of function
+     * evaluations.
+     *
+     * @param solvable Function to find a root of
+     * @param solution Solution to write the result into
+     *
+     * @return <code>solution</code>, containing the root finding solution
+     */
+    public SecantSolution solve(SecantSolvable solvable, SecantSolution solution) {
+
+        if (solution == null)
+            throw new NullPointerException();
+
+        search(solvable, solution);
+        return solution;
+    }
+
+    /**
+     * Find a root of a solvable function without allocating a solution
+     *
+     * @param solvable Function to find a root of
+     *
+     * @return Root of <code>solvable</code>, or <code>NaN</code> if no root was
+     *         found
+     */
+    public double root(SecantSolvable solvable) {
+        return search(solvable, null);
+    }
+
+    /*
+     * writes the result into solution, if solution is not null, and returns the
+     * root
+     */
+    private static double result(SecantSolution solution, boolean found, int evaluations, double x,
+            double residual) {
+
+        if (solution != null)
+            solution.setValues(found, evaluations, x, residual);
+
+        return x;
+    }
+
+    private double search(SecantSolvable solvable, SecantSolution solution) {
+
+        double a = solvable.firstIteration();
+        double b = solvable.secondIteration();
+
+        if (!Double.isFinite(a) || !Double.isFinite(b))
+            return result(solution, false, 0, Double.NaN, Double.NaN);
+
+        if (a == b)
+            b = a + eps;
+
+        double fa = solvable.solverFunction(a);
+        double fb = solvable.solverFunction(b);
+        int evaluations = 2;
+
+        /* expand the interval until the root is bracketed */
+        for (int k = 0; k < MAX_EXPANSIONS && Double.isFinite(fa) && Double.isFinite(fb)
+                && (fa > 0) == (fb > 0) && fa != 0 && fb != 0; k++) {
+            if (Math.abs(fa) < Math.abs(fb)) {
+                a += EXPANSION_FACTOR * (a - b);
+                fa = solvable.solverFunction(a);
+            } else {
+                b += EXPANSION_FACTOR * (b - a);
+                fb = solvable.solverFunction(b);
+            }
+            evaluations++;
+        }
+
+        if (!Double.isFinite(fa) || !Double.isFinite(fb) || ((fa > 0) == (fb > 0) && fa != 0 && fb != 0))
+            return result(solution, false, evaluations, Double.NaN, Math.abs(fa) < Math.abs(fb) ? fa : fb);
+
+        double c = b, fc = fb;
+        double d = b - a, e = d; // last and second to last steps
+        double tol, xm, p, q, r, s;
+
+        for (int i = 0; i < maxIterations; i++) {
+
+            /* keep the root between b and c */
+            if ((fb > 0 && fc > 0) || (fb < 0 && fc < 0)) {
+                c = a;
+                fc = fa;
+                d = b - a;
+                e = d;
+            }
+
+            /* b is the best estimate */
+            if (Math.abs(fc) < Math.abs(fb)) {
+                a = b;
+                b = c;
+                c = a;
+                fa = fb;
+                fb = fc;
+                fc = fa;
+            }
+
+            tol = 2 * Math.ulp(b) + 0.5 * eps;
+            xm = 0.5 * (c - b);
+
+            if (Math.abs(xm) <= tol || fb == 0)
+                return result(solution, true, evaluations, b, fb);
+
+            if (Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+
+                /* secant or inverse quadratic interpolation */
+                s = fb / fa;
+                if (a == c) {
+                    p = 2 * xm * s;
+                    q = 1 - s;
+                } else {
+                    q = fa / fc;
+                    r = fb / fc;
+                    p = s * (2 * xm * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+
+                if (p > 0)
+                    q = -q;
+                p = Math.abs(p);
+
+                if (2 * p < Math.min(3 * xm * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                } else {
+                    d = xm;
+                    e = d;
+                }
+            } else {
+                /* bisection */
+                d = xm;
+                e = d;
+            }
+
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : Math.copySign(tol, xm);
+            fb = solvable.solverFunction(b);
+            evaluations++;
+
+            if (!Double.isFinite(fb))
+                break;
+        }
+
+        return result(solution, false, evaluations, Double.NaN, fb);
+    }
+}
@@ -0,0 +1,277 @@
+package io.github.mmdski.codling;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+
+/**
+ * Thread-safe normal elevation boundary condition
+ * <p>
+ * Normal elevation is computed from a <code>crossSection</code>, like
+ * {@link NormalElevationBC}. Instead of a single last elevation, a small cache
+ * of (discharge, normal stage) solutions sorted by discharge is kept, and each
+ * computation is seeded from the cached solutions nearest to the requested
+ * discharge. This gives good initial estimates when discharges arrive in any
+ * order, and a discharge that is already cached is answered without solving.
+ * <p>
+ * The cache is an immutable snapshot that is replaced atomically, so elevations
+ * may be computed concurrently from any number of threads without locking.
+ * When the cache is full, a new solution replaces the closer of its two cached
+ * neighbours.
+ */
+public class ConcurrentNormalElevationBC implements ElevationBC {
+
+    /**
+     * Default number of cached solutions
+     */
+    public static final int DEFAULT_CAPACITY = 64;
+
+    /*
+     * exponent of discharge in the wide channel relation between stage and
+     * discharge, stage ~ discharge^(3/5). used to extrapolate from a single cached
+     * neighbour
+     */
+    private static final double STAGE_EXPONENT = 0.6;
+
+    private final CrossSection crossSection;
+    private final double slope;
+    private final double thalwegElevation;
+    private final int capacity;
+    private final AtomicReference<Cache> cache;
+    private volatile SolverListener listener;
+
+    /*
+     * immutable cache snapshot. stage is the cross section elevation, without the
+     * thalweg elevation of this boundary condition
+     */
+    private static final class Cache {
+
+        final double[] discharge;
+        final double[] stage;
+
+        Cache(double[] discharge, double[] stage) {
+            this.discharge = discharge;
+            this.stage = stage;
+        }
+    }
+
+    /**
+     * Construct a new concurrent normal elevation boundary condition
+     *
+     * @param crossSection Cross section used to compute normal elevation
+     * @param slope        Slope used with <code>crossSection</code> in the
+     *                     computation of normal elevation
+     */
+    public ConcurrentNormalElevationBC(CrossSection crossSection, double slope) {
+        this(crossSection, slope, 0, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct a new concurrent normal elevation boundary condition
+     *
+     * @param crossSection     Cross section used to compute normal elevation
+     * @param slope            Slope used with <code>crossSection</code> in the
+     *                         computation of normal elevation
+     * @param thalwegElevation Elevation of thalweg
+     */
+    public ConcurrentNormalElevationBC(CrossSection crossSection, double slope, double thalwegElevation) {
+        this(crossSection, slope, thalwegElevation, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Construct a new concurrent normal elevation boundary condition
+     *
+     * @param crossSection     Cross section used to compute normal elevation
+     * @param slope            Slope used with <code>crossSection</code> in the
+     *                         computation of normal elevation
+     * @param thalwegElevation Elevation of thalweg
+     * @param capacity         Maximum number of cached solutions
+     */
+    public ConcurrentNormalElevationBC(CrossSection crossSection, double slope, double thalwegElevation,
+            int capacity) {
+
+        if (crossSection == null)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(slope))
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(thalwegElevation))
+            throw new IllegalArgumentException();
+
+        if (capacity < 2)
+            throw new IllegalArgumentException();
+
+        this.crossSection = crossSection;
+        this.slope = slope;
+        this.thalwegElevation = thalwegElevation;
+        this.capacity = capacity;
+        this.cache = new AtomicReference<>(new Cache(new double[0], new double[0]));
+    }
+
+    /**
+     * Returns the number of cached solutions
+     *
+     * @return Number of cached solutions
+     */
+    public int cacheSize() {
+        return cache.get().discharge.length;
+    }
+
+    /**
+     * Set a listener notified each time a normal elevation is computed
+     * <p>
+     * Elevations answered from the cache are also reported. The listener must be
+     * thread-safe if elevations are computed concurrently.
+     *
+     * @param listener Listener notified of normal elevation computations, or
+     *                 <code>null</code> to disable instrumentation
+     */
+    public void setListener(SolverListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Compute normal elevation
+     *
+     * @param normalDischarge Normal discharge
+     *
+     * @return Normal elevation
+     */
+    public double elevation(double normalDischarge) {
+
+        if (!Double.isFinite(normalDischarge))
+            throw new IllegalArgumentException();
+
+        SolverListener listener = this.listener;
+
+        if (listener == null)
+            return stage(normalDischarge).solution() + thalwegElevation;
+
+        long start = System.nanoTime();
+        SecantSolution stage = stage(normalDischarge);
+        double elevation = stage.solution() + thalwegElevation;
+        listener.normalElevationSolved(normalDischarge, elevation, stage.iterations(), stage.solutionFound(),
+                System.nanoTime() - start);
+
+        return elevation;
+    }
+
+    /*
+     * normal stage from the cache, or solved and cached. a cached stage is found
+     * in 0 iterations
+     */
+    private SecantSolution stage(double normalDischarge) {
+
+        Cache c = cache.get();
+        int k = Arrays.binarySearch(c.discharge, normalDischarge);
+
+        if (k >= 0)
+            return new SecantSolution(true, 0, c.stage[k]);
+
+        k = -k - 1; // insertion point, index of the upper neighbour
+
+        double stage0 = initialStage(c, k, normalDischarge);
+        SecantSolution stage = null;
+        int iterations = 0;
+
+        /* the estimate is only used if it is a valid initial estimate */
+        if (Double.isFinite(stage0) && stage0 > crossSection.thalweg()) {
+            stage = crossSection.normalSolution(normalDischarge, slope, stage0);
+            iterations = stage.iterations();
+        }
+
+        /* no usable estimate, or no solution from the estimate */
+        if (stage == null || !stage.solutionFound() || !Double.isFinite(stage.solution())) {
+            stage = crossSection.normalSolution(normalDischarge, slope);
+            iterations += stage.iterations();
+            stage = new SecantSolution(stage.solutionFound(), iterations, stage.solution(), stage.residual());
+        }
+
+        if (Double.isFinite(stage.solution()))
+            insert(normalDischarge, stage.solution());
+
+        return stage;
+    }
+
+    /*
+     * initial stage estimate from the cached neighbours of the insertion point k
+     */
+    private double initialStage(Cache c, int k, double discharge) {
+
+        int n = c.discharge.length;
+
+        if (n == 0)
+            return Double.NaN;
+
+        double thalweg = crossSection.thalweg();
+
+        /* only one neighbour, extrapolate depth with the wide channel relation */
+        if (k == 0 || k == n) {
+            int i = k == 0 ? 0 : n - 1;
+            double depth = c.stage[i] - thalweg;
+            return thalweg + depth * Math.pow(discharge / c.discharge[i], STAGE_EXPONENT);
+        }
+
+        /* interpolate between the neighbours */
+        double w = (discharge - c.discharge[k - 1]) / (c.discharge[k] - c.discharge[k - 1]);
+        return c.stage[k - 1] + w * (c.stage[k] - c.stage[k - 1]);
+    }
+
+    /*
+     * insert a solution into the cache, replacing the snapshot atomically
+     */
+    private void insert(double discharge, double stage) {
+
+        Cache current;
+        Cache updated;
+
+        do {
+            current = cache.get();
+            int n = current.discharge.length;
+            int k = Arrays.binarySearch(current.discharge, discharge);
+
+            /* another thread cached this discharge first */
+            if (k >= 0)
+                return;
+
+            k = -k - 1;
+
+            double[] q;
+            double[] y;
+
+            if (n < capacity) {
+                q = new double[n + 1];
+                y = new double[n + 1];
+                System.arraycopy(current.discharge, 0, q, 0, k);
+                System.arraycopy(current.stage, 0, y, 0, k);
+                q[k] = discharge;
+                y[k] = stage;
+                System.arraycopy(current.discharge, k, q, k + 1, n - k);
+                System.arraycopy(current.stage, k, y, k + 1, n - k);
+            } else {
+                /*
+                 * replace the closer neighbour. the new discharge lies between the
+                 * neighbours of the replaced entry, so the cache stays sorted
+                 */
+                int r;
+                if (k == 0)
+                    r = 0;
+                else if (k == n)
+                    r = n - 1;
+                else if (discharge - current.discharge[k - 1] < current.discharge[k] - discharge)
+                    r = k - 1;
+                else
+                    r = k;
+                q = Arrays.copyOf(current.discharge, n);
+                y = Arrays.copyOf(current.stage, n);
+                q[r] = discharge;
+                y[r] = stage;
+            }
+
+            updated = new Cache(q, y);
+
+        } while (!cache.compareAndSet(current, updated));
+    }
+}
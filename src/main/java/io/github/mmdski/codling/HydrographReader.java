@@ -0,0 +1,202 @@
+package io.github.mmdski.codling;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Incremental reader of hydrograph text files
+ * <p>
+ * Each record of a hydrograph is a line with a time followed by discharge
+ * values, separated by commas or white space. A record has either a single
+ * discharge, used at every node, or one discharge for each node. Blank lines,
+ * lines starting with <code>#</code> and a single header line are skipped.
+ * Times must be strictly increasing.
+ * <p>
+ * Records are read one line at a time, so hydrographs of any length may be read
+ * with bounded memory. Hydrograph readers are not thread-safe.
+ */
+public class HydrographReader implements Closeable {
+
+    private final BufferedReader reader;
+    private final int nodes;
+    private final double[] discharge;
+    private double time = Double.NaN;
+    private int lineNumber;
+    private boolean first = true;
+    private long records;
+
+    /**
+     * Open a hydrograph file
+     *
+     * @param path  Path of the hydrograph file
+     * @param nodes Number of nodes of each record
+     * @throws IOException if the file can't be opened
+     */
+    public HydrographReader(Path path, int nodes) throws IOException {
+        this(Files.newBufferedReader(checkPath(path), StandardCharsets.UTF_8), nodes);
+    }
+
+    /**
+     * Construct a hydrograph reader from a character stream
+     *
+     * @param reader Character stream of hydrograph records
+     * @param nodes  Number of nodes of each record
+     */
+    public HydrographReader(Reader reader, int nodes) {
+
+        if (reader == null || nodes < 1)
+            throw new IllegalArgumentException();
+
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        this.nodes = nodes;
+        this.discharge = new double[nodes];
+    }
+
+    private static Path checkPath(Path path) {
+        if (path == null)
+            throw new IllegalArgumentException();
+        return path;
+    }
+
+    /**
+     * Read the next record
+     *
+     * @return <code>true</code> if a record was read, <code>false</code> at the
+     *         end of the hydrograph
+     * @throws IOException if the hydrograph can't be read or a record is invalid
+     */
+    public boolean next() throws IOException {
+
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+
+            lineNumber++;
+            line = line.trim();
+
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            String[] fields = line.split("[,\\s]+");
+
+            /* a first line that isn't numeric is a header, whatever its field count */
+            if (first) {
+                first = false;
+                if (!isNumeric(fields))
+                    continue;
+            }
+
+            if (fields.length != 2 && fields.length != nodes + 1)
+                throw new IOException("invalid hydrograph line " + lineNumber);
+
+            double t;
+            try {
+                t = Double.parseDouble(fields[0]);
+                for (int i = 1; i < fields.length; i++)
+                    discharge[i - 1] = Double.parseDouble(fields[i]);
+            } catch (NumberFormatException e) {
+                throw new IOException("invalid hydrograph line " + lineNumber);
+            }
+
+            if (fields.length == 2) {
+                for (int i = 1; i < nodes; i++)
+                    discharge[i] = discharge[0];
+            }
+
+            if (!Double.isFinite(t) || (records > 0 && !(t > time)))
+                throw new IOException("invalid hydrograph time on line " + lineNumber);
+
+            for (int i = 0; i < nodes; i++) {
+                if (!Double.isFinite(discharge[i]))
+                    throw new IOException("invalid hydrograph discharge on line " + lineNumber);
+            }
+
+            time = t;
+            records++;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    private static boolean isNumeric(String[] fields) {
+        try {
+            for (String field : fields)
+                Double.parseDouble(field);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of nodes of each record
+     *
+     * @return Number of nodes
+     */
+    public int nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of records read
+     *
+     * @return Number of records
+     */
+    public long records() {
+        return records;
+    }
+
+    /**
+     * Returns the time of the current record
+     *
+     * @return Time, or <code>NaN</code> before the first record is read
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Returns the discharge at a node of the current record
+     *
+     * @param i Node index
+     *
+     * @return Discharge
+     */
+    public double discharge(int i) {
+        return discharge[i];
+    }
+
+    /**
+     * Copy the discharge of the current record into an array
+     *
+     * @param discharge Array to write the discharge at each node into
+     *
+     * @return <code>discharge</code>
+     */
+    public double[] discharge(double[] discharge) {
+
+        if (discharge == null || discharge.length != nodes)
+            throw new IllegalArgumentException();
+
+        System.arraycopy(this.discharge, 0, discharge, 0, nodes);
+
+        return discharge;
+    }
+
+    /**
+     * Close this reader
+     *
+     * @throws IOException if the underlying stream can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.mmdski.codling;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+
+/**
+ * Mixed flow regime steady state plan
+ * <p>
+ * A mixed regime plan has discharge values for each node and elevation
+ * boundary conditions at both ends of a reach. The upstream boundary condition
+ * is used for the supercritical pass and the downstream boundary condition for
+ * the subcritical pass.
+ * <p>
+ * Boundary conditions are evaluated once, when the plan is constructed. A plan
+ * is immutable after construction and may be shared between threads.
+ */
+public class MixedRegimePlan {
+
+    private final SteadyPlan subcriticalPlan;
+    private final SteadyPlan supercriticalPlan;
+
+    /**
+     * Construct a new mixed regime plan
+     * <p>
+     * Discharge values must be positive.
+     *
+     * @param discharge    Discharge values for each node
+     * @param upstreamBC   Elevation boundary condition at the upstream node
+     * @param downstreamBC Elevation boundary condition at the downstream node
+     */
+    public MixedRegimePlan(double[] discharge, ElevationBC upstreamBC, ElevationBC downstreamBC) {
+
+        if (discharge == null || upstreamBC == null || downstreamBC == null)
+            throw new IllegalArgumentException();
+
+        if (discharge.length < 2)
+            throw new IllegalArgumentException();
+
+        for (double q : discharge) {
+            if (!(q > 0))
+                throw new IllegalArgumentException();
+        }
+
+        subcriticalPlan = new SteadyPlan(discharge, downstreamBC, BCLocation.DOWNSTREAM);
+        supercriticalPlan = new SteadyPlan(discharge, upstreamBC, BCLocation.UPSTREAM);
+    }
+
+    /**
+     * Elevation at the upstream boundary condition node
+     *
+     * @return Upstream boundary condition elevation
+     */
+    public double upstreamElevation() {
+        return supercriticalPlan.bcElevation();
+    }
+
+    /**
+     * Elevation at the downstream boundary condition node
+     *
+     * @return Downstream boundary condition elevation
+     */
+    public double downstreamElevation() {
+        return subcriticalPlan.bcElevation();
+    }
+
+    /**
+     * Discharge at node <code>i</code>
+     *
+     * @param i Node number
+     *
+     * @return Discharge
+     */
+    public double discharge(int i) {
+        return subcriticalPlan.discharge(i);
+    }
+
+    /**
+     * The number of nodes in this plan
+     *
+     * @return Number of nodes in this plan
+     */
+    public int length() {
+        return subcriticalPlan.length();
+    }
+
+    /*
+     * plan of the subcritical pass
+     */
+    SteadyPlan subcriticalPlan() {
+        return subcriticalPlan;
+    }
+
+    /*
+     * plan of the supercritical pass
+     */
+    SteadyPlan supercriticalPlan() {
+        return supercriticalPlan;
+    }
+}
@@ -0,0 +1,85 @@
+package io.github.mmdski.codling;
+
+/**
+ * Solution of a mixed flow regime steady state profile
+ * <p>
+ * A mixed regime solution is a standard step profile with the critical
+ * elevation and flow regime of each node. Hydraulic jumps are located between
+ * a supercritical node and the subcritical node downstream of it.
+ */
+public class MixedRegimeSolution {
+
+    private final StandardStepSolution profile;
+    private final double[] critical;
+    private final boolean[] supercritical;
+
+    /**
+     * Construct a mixed regime solution
+     * <p>
+     * The solution takes ownership of the arrays; they are not copied.
+     */
+    MixedRegimeSolution(StandardStepSolution profile, double[] criticalElevation, boolean[] supercritical) {
+        this.profile = profile;
+        this.critical = criticalElevation;
+        this.supercritical = supercritical;
+    }
+
+    /**
+     * Returns the number of nodes in this solution
+     *
+     * @return Number of nodes
+     */
+    public int length() {
+        return profile.length();
+    }
+
+    /**
+     * Returns the water surface profile of this solution
+     *
+     * @return Standard step solution
+     */
+    public StandardStepSolution profile() {
+        return profile;
+    }
+
+    /**
+     * Returns the critical water surface elevation at a node
+     *
+     * @param node Node index
+     *
+     * @return Critical elevation
+     */
+    public double criticalElevation(int node) {
+        return critical[node];
+    }
+
+    /**
+     * Returns true if the flow at a node is supercritical
+     *
+     * @param node Node index
+     *
+     * @return <code>true</code> if the supercritical profile controls at
+     *         <code>node</code>
+     */
+    public boolean supercritical(int node) {
+        return supercritical[node];
+    }
+
+    /**
+     * Returns the number of hydraulic jumps in this solution
+     *
+     * @return Number of changes from supercritical to subcritical flow in the
+     *         downstream direction
+     */
+    public int jumps() {
+
+        int jumps = 0;
+
+        for (int i = 1; i < supercritical.length; i++) {
+            if (supercritical[i - 1] && !supercritical[i])
+                jumps++;
+        }
+
+        return jumps;
+    }
+}
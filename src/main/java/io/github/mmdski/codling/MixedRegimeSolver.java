@@ -0,0 +1,203 @@
+package io.github.mmdski.codling;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+
+/**
+ * Mixed flow regime steady state solver
+ * <p>
+ * A subcritical profile is marched upstream from the downstream boundary
+ * condition and a supercritical profile is marched downstream from the
+ * upstream boundary condition. In each pass, an elevation that isn't found or
+ * that is on the wrong side of the critical elevation of its node is set to
+ * critical and marching continues from there.
+ * <p>
+ * The two passes are independent and run in parallel on a
+ * <code>ForkJoinPool</code>. Each pass is reported to the listener of the
+ * standard step solver, if any, as a plan, so the listener must be
+ * thread-safe. Nodes set to critical are reported as not found. Nodes where both passes found a valid elevation
+ * are assigned to the profile with the greater specific force, which locates
+ * hydraulic jumps. Where only one pass is valid, it is used.
+ * <p>
+ * Specific force is
+ * <p>
+ * M = Q<sup>2</sup> / (gA) + &int;<sub>0</sub><sup>d</sup> A(&eta;) d&eta;,
+ * <p>
+ * where the second term, the first moment of flow area about the water
+ * surface, is integrated over depth with Simpson's rule.
+ */
+public class MixedRegimeSolver {
+
+    /* number of Simpson's rule intervals, must be even */
+    private static final int SIMPSON_INTERVALS = 16;
+
+    private final StandardStepSolver solver;
+    private final ForkJoinPool pool;
+
+    /*
+     * one pass of the mixed regime solution
+     */
+    private class PassTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Reach reach;
+        private final SteadyPlan plan;
+        private final double[] discharge;
+        private final double[] critical;
+        final double[] wsElevation;
+        final boolean[] atCritical;
+
+        PassTask(Reach reach, SteadyPlan plan, double[] discharge, double[] critical) {
+            this.reach = reach;
+            this.plan = plan;
+            this.discharge = discharge;
+            this.critical = critical;
+            this.wsElevation = new double[discharge.length];
+            this.atCritical = new boolean[discharge.length];
+        }
+
+        @Override
+        protected void compute() {
+            wsElevation[plan.bcNode()] = plan.bcElevation();
+            solver.marchRegime(reach, discharge, wsElevation, critical, atCritical, plan.bcNode(),
+                    plan.solutionDirection());
+        }
+    }
+
+    /**
+     * Construct a new mixed regime solver using the common pool
+     *
+     * @param solver Standard step solver used for both passes
+     */
+    public MixedRegimeSolver(StandardStepSolver solver) {
+        this(solver, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a new mixed regime solver using <code>pool</code>
+     *
+     * @param solver Standard step solver used for both passes
+     * @param pool   Pool that the passes are run on
+     */
+    public MixedRegimeSolver(StandardStepSolver solver, ForkJoinPool pool) {
+
+        if (solver == null || pool == null)
+            throw new IllegalArgumentException();
+
+        this.solver = solver;
+        this.pool = pool;
+    }
+
+    /**
+     * Solve a mixed flow regime steady state profile
+     *
+     * @param reach Reach
+     * @param plan  Mixed regime plan
+     * @return Mixed regime solution
+     */
+    public MixedRegimeSolution solvePlan(Reach reach, MixedRegimePlan plan) {
+
+        if (reach == null || plan == null)
+            throw new IllegalArgumentException();
+
+        int n = reach.length();
+
+        if (n != plan.length())
+            throw new IllegalArgumentException();
+
+        double[] discharge = new double[n];
+        double[] critical = new double[n];
+        ReachNode node;
+        CrossSection xs;
+
+        for (int i = 0; i < n; i++) {
+            discharge[i] = plan.discharge(i);
+            node = reach.reachNodes[i];
+            xs = node.crossSection();
+            critical[i] = xs.criticalY(discharge[i]) - xs.thalweg() + node.thalweg();
+        }
+
+        PassTask subcritical = new PassTask(reach, plan.subcriticalPlan(), discharge, critical);
+        PassTask supercritical = new PassTask(reach, plan.supercriticalPlan(), discharge, critical);
+
+        pool.invoke(new RecursiveAction() {
+
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected void compute() {
+                invokeAll(subcritical, supercritical);
+            }
+        });
+
+        double[] wsElevation = new double[n];
+        boolean[] isSupercritical = new boolean[n];
+        CrossSectionProperties properties = new CrossSectionProperties();
+
+        for (int i = 0; i < n; i++) {
+
+            node = reach.reachNodes[i];
+
+            if (supercritical.atCritical[i])
+                isSupercritical[i] = false;
+            else if (subcritical.atCritical[i])
+                isSupercritical[i] = true;
+            else
+                isSupercritical[i] = specificForce(node, discharge[i], supercritical.wsElevation[i],
+                        properties) > specificForce(node, discharge[i], subcritical.wsElevation[i], properties);
+
+            wsElevation[i] = isSupercritical[i] ? supercritical.wsElevation[i] : subcritical.wsElevation[i];
+        }
+
+        StandardStepSolution profile = StandardStepSolution.adopt(wsElevation, reach.thalweg(), discharge);
+
+        return new MixedRegimeSolution(profile, critical, isSupercritical);
+    }
+
+    /**
+     * Computes the specific force at a reach node
+     *
+     * @param node        Reach node
+     * @param discharge   Discharge
+     * @param wsElevation Water surface elevation
+     *
+     * @return Specific force
+     */
+    public static double specificForce(ReachNode node, double discharge, double wsElevation) {
+
+        if (node == null)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(discharge) || !Double.isFinite(wsElevation) || wsElevation <= node.thalweg())
+            throw new IllegalArgumentException();
+
+        return specificForce(node, discharge, wsElevation, new CrossSectionProperties());
+    }
+
+    private static double specificForce(ReachNode node, double discharge, double wsElevation,
+            CrossSectionProperties properties) {
+
+        CrossSection xs = node.crossSection();
+        double depth = wsElevation - node.thalweg();
+        double h = depth / SIMPSON_INTERVALS;
+        double y0 = xs.thalweg();
+
+        /* Simpson's rule for the first moment of area about the water surface */
+        double sum = area(xs, y0, properties) + area(xs, y0 + depth, properties);
+        for (int k = 1; k < SIMPSON_INTERVALS; k++)
+            sum += (k % 2 == 1 ? 4 : 2) * area(xs, y0 + k * h, properties);
+        double moment = sum * h / 3;
+
+        double area = area(xs, y0 + depth, properties);
+
+        return discharge * discharge / (Constants.gravity() * area) + moment;
+    }
+
+    private static double area(CrossSection xs, double y, CrossSectionProperties properties) {
+        return xs.properties(y, properties).value(CrossSectionProperties.Property.AREA);
+    }
+}
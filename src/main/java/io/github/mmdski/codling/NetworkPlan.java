@@ -0,0 +1,126 @@
+package io.github.mmdski.codling;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+
+/**
+ * Steady state plan for a river network
+ * <p>
+ * A network plan has discharge values for each node of each reach and an
+ * elevation boundary condition at the downstream end of the outlet reach.
+ * <p>
+ * Flow is conserved at junctions. The discharge at the first node of each
+ * reach that has tributaries must equal the sum of the discharges at the last
+ * nodes of its tributaries. Lateral inflow enters a reach as an increase in
+ * discharge between its nodes.
+ * <p>
+ * The boundary condition is evaluated once, when the plan is constructed. A
+ * network plan is immutable after construction and may be shared between
+ * threads.
+ */
+public class NetworkPlan {
+
+    /* relative tolerance of the junction flow balance */
+    private static final double CONTINUITY_TOLERANCE = 1e-9;
+
+    private final RiverNetwork network;
+    private final double[][] discharge;
+    private final SteadyPlan outletPlan;
+
+    /**
+     * Construct a new network plan
+     *
+     * @param network           River network
+     * @param discharge         Discharge values for each node of each reach
+     * @param boundaryCondition Elevation boundary condition at the downstream end
+     *                          of the outlet reach
+     */
+    public NetworkPlan(RiverNetwork network, double[][] discharge, ElevationBC boundaryCondition) {
+
+        if (network == null || discharge == null || boundaryCondition == null)
+            throw new IllegalArgumentException();
+
+        int n = network.size();
+
+        if (discharge.length != n)
+            throw new IllegalArgumentException();
+
+        this.discharge = new double[n][];
+
+        for (int i = 0; i < n; i++) {
+
+            if (discharge[i] == null || discharge[i].length != network.reach(i).length())
+                throw new IllegalArgumentException();
+
+            for (double q : discharge[i]) {
+                if (!Double.isFinite(q))
+                    throw new IllegalArgumentException();
+            }
+
+            this.discharge[i] = discharge[i].clone();
+        }
+
+        for (int i = 0; i < n; i++) {
+
+            int[] tributaries = network.tributaries(i);
+
+            if (tributaries.length == 0)
+                continue;
+
+            double inflow = 0;
+            for (int t : tributaries)
+                inflow += this.discharge[t][this.discharge[t].length - 1];
+
+            double q = this.discharge[i][0];
+            if (Math.abs(q - inflow) > CONTINUITY_TOLERANCE * Math.max(Math.abs(q), Math.abs(inflow)))
+                throw new IllegalArgumentException();
+        }
+
+        this.network = network;
+        this.outletPlan = new SteadyPlan(this.discharge[network.outlet()], boundaryCondition, BCLocation.DOWNSTREAM);
+    }
+
+    /**
+     * Returns the river network of this plan
+     *
+     * @return River network
+     */
+    public RiverNetwork network() {
+        return network;
+    }
+
+    /**
+     * Elevation at the downstream end of the outlet reach
+     *
+     * @return Boundary condition elevation
+     */
+    public double bcElevation() {
+        return outletPlan.bcElevation();
+    }
+
+    /**
+     * Discharge at a node of a reach
+     *
+     * @param reach Reach index
+     * @param node  Node index
+     *
+     * @return Discharge
+     */
+    public double discharge(int reach, int node) {
+        return discharge[reach][node];
+    }
+
+    /*
+     * steady plan of the outlet reach
+     */
+    SteadyPlan outletPlan() {
+        return outletPlan;
+    }
+
+    /*
+     * steady plan of a tributary reach with a known elevation at its downstream
+     * end
+     */
+    SteadyPlan reachPlan(int reach, double junctionElevation) {
+        return new SteadyPlan(discharge[reach], q -> junctionElevation, BCLocation.DOWNSTREAM);
+    }
+}
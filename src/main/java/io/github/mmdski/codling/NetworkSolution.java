@@ -0,0 +1,41 @@
+package io.github.mmdski.codling;
+
+/**
+ * Solution of a steady state river network plan
+ * <p>
+ * A network solution holds one standard step solution for each reach, in the
+ * order of the reaches of the network.
+ */
+public class NetworkSolution {
+
+    private final StandardStepSolution[] solutions;
+
+    /**
+     * Construct a network solution from reach solutions
+     * <p>
+     * The solution takes ownership of the array; it is not copied.
+     */
+    NetworkSolution(StandardStepSolution[] solutions) {
+        this.solutions = solutions;
+    }
+
+    /**
+     * Returns the number of reaches in this solution
+     *
+     * @return Number of reaches
+     */
+    public int size() {
+        return solutions.length;
+    }
+
+    /**
+     * Returns the solution of a reach
+     *
+     * @param reach Reach index
+     *
+     * @return Standard step solution of reach <code>reach</code>
+     */
+    public StandardStepSolution solution(int reach) {
+        return solutions[reach];
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.mmdski.codling;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Steady state solver for dendritic river networks
+ * <p>
+ * Network profiles are subcritical and are solved from the outlet boundary
+ * condition upstream. Each reach is solved with the standard step method once
+ * the reach it flows into is solved. The elevation at the downstream end of a
+ * tributary is found with an energy balance across the junction, from the
+ * first node of the receiving reach to the last node of the tributary.
+ * <p>
+ * Reaches are solved as tasks on a <code>ForkJoinPool</code>. Once a reach is
+ * solved, all of its tributaries are forked, so independent tributaries are
+ * solved concurrently and each reach waits only for the junction at its
+ * downstream end.
+ */
+public class NetworkSolver {
+
+    private final StandardStepSolver solver;
+    private final ForkJoinPool pool;
+
+    private class ReachTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final NetworkPlan plan;
+        private final StandardStepSolution[] solutions;
+        private final int reach;
+
+        ReachTask(NetworkPlan plan, StandardStepSolution[] solutions, int reach) {
+            this.plan = plan;
+            this.solutions = solutions;
+            this.reach = reach;
+        }
+
+        @Override
+        protected void compute() {
+
+            RiverNetwork network = plan.network();
+            Reach r = network.reach(reach);
+            int receiving = network.downstream(reach);
+            SteadyPlan reachPlan;
+
+            if (receiving == -1) {
+                reachPlan = plan.outletPlan();
+            } else {
+                /* energy balance across the junction */
+                ReachNode receivingNode = network.reach(receiving).reachNodes[0];
+                ReachNode last = r.reachNodes[r.length() - 1];
+                ReachNode junctionNode = new ReachNode(
+                        receivingNode.distanceDownstream() - network.junctionLength(reach), last.thalweg(),
+                        last.crossSection());
+                double elevation = solver.solveStep(receivingNode, junctionNode, plan.discharge(receiving, 0),
+                        plan.discharge(reach, r.length() - 1), solutions[receiving].wsElevationView().get(0),
+                        r.length() - 1);
+                if (Double.isNaN(elevation))
+                    throw new IllegalStateException("junction step of reach " + reach + " did not converge");
+                reachPlan = plan.reachPlan(reach, elevation);
+            }
+
+            solutions[reach] = solver.solvePlan(r, reachPlan);
+
+            int[] tributaries = network.tributaries(reach);
+
+            if (tributaries.length == 1) {
+                new ReachTask(plan, solutions, tributaries[0]).compute();
+            } else if (tributaries.length > 1) {
+                ReachTask[] tasks = new ReachTask[tributaries.length];
+                for (int i = 0; i < tasks.length; i++)
+                    tasks[i] = new ReachTask(plan, solutions, tributaries[i]);
+                invokeAll(tasks);
+            }
+        }
+    }
+
+    /**
+     * Construct a new network solver using the common pool
+     *
+     * @param solver Standard step solver used for every reach and junction
+     */
+    public NetworkSolver(StandardStepSolver solver) {
+        this(solver, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a new network solver using <code>pool</code>
+     *
+     * @param solver Standard step solver used for every reach and junction
+     * @param pool   Pool that reaches are solved on
+     */
+    public NetworkSolver(StandardStepSolver solver, ForkJoinPool pool) {
+
+        if (solver == null || pool == null)
+            throw new IllegalArgumentException();
+
+        this.solver = solver;
+        this.pool = pool;
+    }
+
+    /**
+     * Solve a steady state network plan
+     * <p>
+     * Blocks until all reaches are solved. An exception thrown while solving any
+     * reach is rethrown by this method. An
+     * <code>IllegalStateException</code> is thrown if the energy balance across
+     * a junction doesn't converge. Junction steps are reported to the listener
+     * of the standard step solver, if any, as the last node of the tributary.
+     *
+     * @param plan Network plan
+     * @return Network solution
+     */
+    public NetworkSolution solve(NetworkPlan plan) {
+
+        if (plan == null)
+            throw new IllegalArgumentException();
+
+        RiverNetwork network = plan.network();
+        StandardStepSolution[] solutions = new StandardStepSolution[network.size()];
+
+        pool.invoke(new ReachTask(plan, solutions, network.outlet()));
+
+        return new NetworkSolution(solutions);
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.mmdski.codling;
+
+/**
+ * Consumer of node results from a streaming standard step solve
+ *
+ * @see StandardStepSolver#solvePlan(Reach, SteadyPlan, NodeSolutionConsumer)
+ */
+@FunctionalInterface
+public interface NodeSolutionConsumer {
+
+    /**
+     * Accept the solution at a node
+     *
+     * @param node             Node index
+     * @param discharge        Discharge at the node
+     * @param thalwegElevation Thalweg elevation of the node
+     * @param wsElevation      Water surface elevation at the node
+     */
+    public void accept(int node, double discharge, double thalwegElevation, double wsElevation);
+}
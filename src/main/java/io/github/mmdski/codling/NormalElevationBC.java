@@ -6,6 +6,11 @@ import io.github.mmdski.codling.crosssection.CrossSection;
  * Normal elevation boundary condition
  * <p>
  * Normal elevation is computed from a <code>crossSection</code>.
+ * <p>
+ * The last computed elevation is kept as the initial estimate of the next
+ * computation, so a normal elevation boundary condition is not thread-safe.
+ * Steady plans evaluate their boundary condition when they are constructed, so
+ * plans built on one thread may still be solved concurrently.
  */
 public class NormalElevationBC implements ElevationBC {
 
@@ -13,6 +18,7 @@ public class NormalElevationBC implements ElevationBC {
     double slope;
     double lastElevation;
     double thalwegElevation;
+    SolverListener listener;
 
     /**
      * Construct a new normal elevation boundary condition
@@ -63,6 +69,16 @@ public class NormalElevationBC implements ElevationBC {
 
     }
 
+    /**
+     * Set a listener notified each time a normal elevation is computed
+     *
+     * @param listener Listener notified of normal elevation computations, or
+     *                 <code>null</code> to disable instrumentation
+     */
+    public void setListener(SolverListener listener) {
+        this.listener = listener;
+    }
+
     /**
      * Compute normal elevation
      *
@@ -76,20 +92,25 @@ public class NormalElevationBC implements ElevationBC {
             throw new IllegalArgumentException();
         }
 
-        double stage;
+        SecantSolution stage;
         double lastStage;
         double elevation;
+        long start = listener == null ? 0 : System.nanoTime();
 
         if (Double.isNaN(lastElevation)) {
-            stage = crossSection.normalY(normalDischarge, slope);
+            stage = crossSection.normalSolution(normalDischarge, slope);
         } else {
             lastStage = lastElevation - thalwegElevation;
-            stage = crossSection.normalY(normalDischarge, slope, lastStage);
+            stage = crossSection.normalSolution(normalDischarge, slope, lastStage);
         }
 
-        elevation = stage + thalwegElevation;
+        elevation = stage.solution() + thalwegElevation;
         lastElevation = elevation;
 
+        if (listener != null)
+            listener.normalElevationSolved(normalDischarge, elevation, stage.iterations(), stage.solutionFound(),
+                    System.nanoTime() - start);
+
         return elevation;
 
     }
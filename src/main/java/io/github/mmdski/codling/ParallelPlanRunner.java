@@ -0,0 +1,104 @@
+package io.github.mmdski.codling;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs many steady plans against one reach in parallel
+ * <p>
+ * Plans are solved independently on a <code>ForkJoinPool</code> using a shared
+ * standard step solver. Reaches, reach nodes, steady plans, standard step
+ * solvers and the cross section types in this library are immutable after
+ * construction and safe to share between the worker threads. Boundary
+ * conditions are evaluated when plans are constructed, not while they are
+ * solved.
+ */
+public class ParallelPlanRunner {
+
+    private final StandardStepSolver solver;
+    private final ForkJoinPool pool;
+
+    private class SolveTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Reach reach;
+        private final SteadyPlan[] plans;
+        private final StandardStepSolution[] solutions;
+        private final int lo, hi; // range of plans solved by this task
+
+        SolveTask(Reach reach, SteadyPlan[] plans, StandardStepSolution[] solutions, int lo, int hi) {
+            this.reach = reach;
+            this.plans = plans;
+            this.solutions = solutions;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+
+            /* each plan is a large unit of work, so split down to single plans */
+            if (hi - lo == 1) {
+                solutions[lo] = solver.solvePlan(reach, plans[lo]);
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SolveTask(reach, plans, solutions, lo, mid),
+                    new SolveTask(reach, plans, solutions, mid, hi));
+        }
+    }
+
+    /**
+     * Construct a new parallel plan runner using the common pool
+     *
+     * @param solver Standard step solver used for every plan
+     */
+    public ParallelPlanRunner(StandardStepSolver solver) {
+        this(solver, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Construct a new parallel plan runner using <code>pool</code>
+     *
+     * @param solver Standard step solver used for every plan
+     * @param pool   Pool that plans are solved on
+     */
+    public ParallelPlanRunner(StandardStepSolver solver, ForkJoinPool pool) {
+
+        if (solver == null || pool == null)
+            throw new IllegalArgumentException();
+
+        this.solver = solver;
+        this.pool = pool;
+    }
+
+    /**
+     * Solve steady state plans in parallel
+     * <p>
+     * Blocks until all plans are solved. An exception thrown while solving any
+     * plan is rethrown by this method.
+     *
+     * @param reach Reach shared by all plans
+     * @param plans Steady state plans
+     * @return Standard step solutions, in the order of <code>plans</code>
+     */
+    public StandardStepSolution[] solvePlans(Reach reach, SteadyPlan[] plans) {
+
+        if (reach == null || plans == null)
+            throw new IllegalArgumentException();
+
+        for (SteadyPlan plan : plans) {
+            if (plan == null)
+                throw new IllegalArgumentException();
+        }
+
+        StandardStepSolution[] solutions = new StandardStepSolution[plans.length];
+
+        if (plans.length > 0)
+            pool.invoke(new SolveTask(reach, plans, solutions, 0, plans.length));
+
+        return solutions;
+    }
+}
@@ -0,0 +1,99 @@
+package io.github.mmdski.codling;
+
+import java.io.IOException;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+
+/**
+ * Streaming quasi-steady simulation
+ * <p>
+ * A quasi-steady simulation solves a steady state profile for each record of a
+ * hydrograph. Records are read from a {@link HydrographReader} one at a time,
+ * solved with the standard step method, and written to a
+ * {@link TimeSeriesWriter}, so memory use doesn't grow with the length of the
+ * hydrograph.
+ * <p>
+ * The solve at each node starts from the water surface elevation of the
+ * previous record, which is usually much closer to the solution than the
+ * elevation of the neighbouring node. The discharge and elevation arrays are
+ * allocated once per run and reused for every record.
+ * <p>
+ * A pipeline may be run concurrently on different hydrographs if its boundary
+ * condition is thread-safe.
+ */
+public class QuasiSteadyPipeline {
+
+    private final StandardStepSolver solver;
+    private final Reach reach;
+    private final ElevationBC boundaryCondition;
+    private final BCLocation bcLocation;
+
+    /**
+     * Construct a new quasi-steady pipeline
+     *
+     * @param solver            Standard step solver
+     * @param reach             Reach
+     * @param boundaryCondition Elevation boundary condition
+     * @param bcLocation        Location of elevation boundary condition
+     */
+    public QuasiSteadyPipeline(StandardStepSolver solver, Reach reach, ElevationBC boundaryCondition,
+            BCLocation bcLocation) {
+
+        if (solver == null || reach == null || boundaryCondition == null || bcLocation == null)
+            throw new IllegalArgumentException();
+
+        this.solver = solver;
+        this.reach = reach;
+        this.boundaryCondition = boundaryCondition;
+        this.bcLocation = bcLocation;
+    }
+
+    /**
+     * Solve every remaining record of a hydrograph
+     * <p>
+     * <code>hydrograph</code> and <code>output</code> must have the same number of
+     * nodes as the reach. Neither is closed by this method.
+     *
+     * @param hydrograph Hydrograph records
+     * @param output     Writer of the solution of each record
+     * @return Number of records solved
+     * @throws IOException if the hydrograph can't be read or the output can't be
+     *                     written
+     */
+    public long run(HydrographReader hydrograph, TimeSeriesWriter output) throws IOException {
+
+        if (hydrograph == null || output == null)
+            throw new IllegalArgumentException();
+
+        int n = reach.length();
+
+        if (hydrograph.nodes() != n || output.nodes() != n)
+            throw new IllegalArgumentException();
+
+        int bcNode = bcLocation == BCLocation.UPSTREAM ? 0 : n - 1;
+        int solutionDirection = bcLocation == BCLocation.UPSTREAM ? 1 : -1;
+
+        double[] discharge = new double[n];
+        double[] wsElevation = new double[n];
+        double[] previous = new double[n];
+        double[] swap;
+        long records = 0;
+
+        while (hydrograph.next()) {
+
+            hydrograph.discharge(discharge);
+            wsElevation[bcNode] = boundaryCondition.elevation(discharge[bcNode]);
+
+            solver.solveProfile(reach, discharge, wsElevation, bcNode, solutionDirection,
+                    records == 0 ? null : previous);
+            output.append(hydrograph.time(), discharge, wsElevation);
+
+            swap = previous;
+            previous = wsElevation;
+            wsElevation = swap;
+            records++;
+        }
+
+        return records;
+    }
+}
@@ -0,0 +1,314 @@
+package io.github.mmdski.codling;
+
+import java.util.Arrays;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+
+/**
+ * Stage-discharge rating curve
+ * <p>
+ * A rating curve is stored as two parallel primitive arrays of strictly
+ * increasing discharge and stage. Stage for a discharge, and discharge for a
+ * stage, are found by binary search and linear interpolation, in O(log n)
+ * time.
+ * <p>
+ * Normal depth rating curves are generated by adaptive sampling in stage.
+ * Since normal discharge is computed directly from conveyance, no root finding
+ * is needed. A stage interval is split in half until the stage at its
+ * midpoint discharge is within a tolerance of the stage interpolated from its
+ * ends, so points are concentrated where the curve bends, near the thalweg and
+ * where overbanks begin to flow.
+ * <p>
+ * Rating curves are immutable and thread-safe.
+ */
+public class RatingCurve {
+
+    /*
+     * number of evenly spaced intervals sampled before refinement, so that
+     * features narrower than the whole curve aren't skipped by the midpoint test
+     */
+    private static final int INITIAL_INTERVALS = 8;
+
+    /* limit on interval halving, far beyond double precision of any stage range */
+    private static final int MAX_DEPTH = 60;
+
+    /*
+     * smallest tolerance, in units in the last place of the curve elevations.
+     * interpolated stages carry a few ulps of rounding error, so smaller
+     * tolerances can't be met and would split intervals down to MAX_DEPTH
+     */
+    private static final double MIN_TOLERANCE_ULPS = 64;
+
+    private final double[] discharge;
+    private final double[] stage;
+
+    /**
+     * Construct a rating curve from discharge and stage points
+     * <p>
+     * <code>discharge</code> and <code>stage</code> must have the same length of
+     * at least 2, contain only finite values, and be strictly increasing.
+     *
+     * @param discharge Discharge of each point
+     * @param stage     Stage of each point
+     */
+    public RatingCurve(double[] discharge, double[] stage) {
+
+        if (discharge == null || stage == null)
+            throw new IllegalArgumentException();
+
+        int n = discharge.length;
+
+        if (n < 2 || stage.length != n)
+            throw new IllegalArgumentException();
+
+        for (int i = 0; i < n; i++) {
+            if (!Double.isFinite(discharge[i]) || !Double.isFinite(stage[i]))
+                throw new IllegalArgumentException();
+            if (i > 0 && (discharge[i] <= discharge[i - 1] || stage[i] <= stage[i - 1]))
+                throw new IllegalArgumentException();
+        }
+
+        this.discharge = Arrays.copyOf(discharge, n);
+        this.stage = Arrays.copyOf(stage, n);
+    }
+
+    /*
+     * growable pair of point arrays used while sampling
+     */
+    private static class Points {
+
+        double[] q = new double[64];
+        double[] y = new double[64];
+        int n = 0;
+
+        void add(double discharge, double stage) {
+            if (n == q.length) {
+                q = Arrays.copyOf(q, 2 * n);
+                y = Arrays.copyOf(y, 2 * n);
+            }
+            q[n] = discharge;
+            y[n] = stage;
+            n++;
+        }
+    }
+
+    /*
+     * normal discharge of a cross section, reusing a properties holder
+     */
+    private static class NormalDischarge {
+
+        final CrossSection crossSection;
+        final double sqrtS;
+        final CrossSectionProperties properties = new CrossSectionProperties();
+
+        NormalDischarge(CrossSection crossSection, double slope) {
+            this.crossSection = crossSection;
+            this.sqrtS = Math.sqrt(slope);
+        }
+
+        double discharge(double y) {
+            crossSection.properties(y, properties);
+            return properties.value(CrossSectionProperties.Property.CONVEYANCE) * sqrtS;
+        }
+    }
+
+    /**
+     * Generate a normal depth rating curve for a cross section
+     * <p>
+     * Stages are cross section elevations from the thalweg of
+     * <code>crossSection</code> to <code>maxElevation</code>. The curve is
+     * refined until linear interpolation of stage is within
+     * <code>tolerance</code> at the midpoint of every interval. An
+     * <code>IllegalArgumentException</code> is thrown if normal discharge does
+     * not increase with stage over the whole curve, or if
+     * <code>tolerance</code> is too small to be met in double precision at
+     * the elevations of the curve.
+     *
+     * @param crossSection Cross section
+     * @param slope        Channel slope
+     * @param maxElevation Highest stage of the curve
+     * @param tolerance    Stage interpolation tolerance
+     * @return Normal depth rating curve
+     */
+    public static RatingCurve normalDepth(CrossSection crossSection, double slope, double maxElevation,
+            double tolerance) {
+        return normalDepth(crossSection, slope, maxElevation, tolerance, 0);
+    }
+
+    /**
+     * Generate a normal depth rating curve for a reach node
+     * <p>
+     * Stages are water surface elevations from the thalweg of <code>node</code>
+     * to <code>maxElevation</code>.
+     *
+     * @param node         Reach node
+     * @param slope        Channel slope
+     * @param maxElevation Highest water surface elevation of the curve
+     * @param tolerance    Stage interpolation tolerance
+     * @return Normal depth rating curve
+     */
+    public static RatingCurve normalDepth(ReachNode node, double slope, double maxElevation, double tolerance) {
+
+        if (node == null)
+            throw new IllegalArgumentException();
+
+        CrossSection crossSection = node.crossSection();
+
+        /* shift from water surface elevation to cross section elevation */
+        double offset = node.thalweg() - crossSection.thalweg();
+
+        return normalDepth(crossSection, slope, maxElevation - offset, tolerance, offset);
+    }
+
+    private static RatingCurve normalDepth(CrossSection crossSection, double slope, double maxElevation,
+            double tolerance, double offset) {
+
+        if (crossSection == null)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(slope) || slope <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(tolerance) || tolerance <= 0)
+            throw new IllegalArgumentException();
+
+        double minElevation = crossSection.thalweg();
+
+        if (!Double.isFinite(maxElevation) || maxElevation <= minElevation)
+            throw new IllegalArgumentException();
+
+        if (tolerance < MIN_TOLERANCE_ULPS * Math.ulp(Math.max(Math.abs(minElevation), Math.abs(maxElevation))))
+            throw new IllegalArgumentException();
+
+        NormalDischarge normal = new NormalDischarge(crossSection, slope);
+        Points points = new Points();
+
+        double h = (maxElevation - minElevation) / INITIAL_INTERVALS;
+        double a = minElevation;
+        double qa = normal.discharge(a);
+        points.add(qa, a);
+
+        for (int i = 1; i <= INITIAL_INTERVALS; i++) {
+            double b = i == INITIAL_INTERVALS ? maxElevation : minElevation + i * h;
+            double qb = normal.discharge(b);
+            refine(normal, tolerance, a, qa, b, qb, 0, points);
+            a = b;
+            qa = qb;
+        }
+
+        double[] q = Arrays.copyOf(points.q, points.n);
+        double[] y = Arrays.copyOf(points.y, points.n);
+        for (int i = 0; i < y.length; i++)
+            y[i] += offset;
+
+        return new RatingCurve(q, y);
+    }
+
+    /*
+     * add the points of interval (a, b], splitting it while the midpoint stage
+     * error is greater than tolerance. the interpolated stage is within (a, b),
+     * so intervals no wider than twice the tolerance are never split
+     */
+    private static void refine(NormalDischarge normal, double tolerance, double a, double qa, double b, double qb,
+            int depth, Points points) {
+
+        double m = 0.5 * (a + b);
+        double qm = normal.discharge(m);
+
+        /* stage interpolated at the midpoint discharge */
+        double interpolated = a + (qm - qa) / (qb - qa) * (b - a);
+
+        if (depth < MAX_DEPTH && b - a > 2 * tolerance && !(Math.abs(m - interpolated) <= tolerance)) {
+            refine(normal, tolerance, a, qa, m, qm, depth + 1, points);
+            refine(normal, tolerance, m, qm, b, qb, depth + 1, points);
+        } else {
+            points.add(qb, b);
+        }
+    }
+
+    /**
+     * Returns the number of points in this rating curve
+     *
+     * @return Number of points
+     */
+    public int length() {
+        return discharge.length;
+    }
+
+    /**
+     * Returns the discharge of each point in this rating curve
+     *
+     * @return Discharge array
+     */
+    public double[] discharge() {
+        return Arrays.copyOf(discharge, discharge.length);
+    }
+
+    /**
+     * Returns the stage of each point in this rating curve
+     *
+     * @return Stage array
+     */
+    public double[] stage() {
+        return Arrays.copyOf(stage, stage.length);
+    }
+
+    /**
+     * Computes the stage for a discharge
+     * <p>
+     * <code>discharge</code> must be within the range of this curve.
+     *
+     * @param discharge Discharge
+     * @return Stage, linearly interpolated between the bracketing points
+     */
+    public double stage(double discharge) {
+        return interpolate(this.discharge, this.stage, discharge);
+    }
+
+    /**
+     * Computes the discharge for a stage
+     * <p>
+     * <code>stage</code> must be within the range of this curve.
+     *
+     * @param stage Stage
+     * @return Discharge, linearly interpolated between the bracketing points
+     */
+    public double discharge(double stage) {
+        return interpolate(this.stage, this.discharge, stage);
+    }
+
+    /*
+     * index of the interval of increasing array x containing value. value must be
+     * within x
+     */
+    static int interval(double[] x, double value) {
+
+        int lo = 0;
+        int hi = x.length - 1;
+        int mid;
+
+        while (hi - lo > 1) {
+            mid = (lo + hi) >>> 1;
+            if (x[mid] > value)
+                hi = mid;
+            else
+                lo = mid;
+        }
+
+        return lo;
+    }
+
+    private static double interpolate(double[] x, double[] y, double value) {
+
+        int n = x.length;
+
+        if (!(value >= x[0] && value <= x[n - 1]))
+            throw new IllegalArgumentException();
+
+        int i = interval(x, value);
+        double w = (value - x[i]) / (x[i + 1] - x[i]);
+
+        return y[i] + w * (y[i + 1] - y[i]);
+    }
+}
@@ -0,0 +1,258 @@
+package io.github.mmdski.codling;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+
+/**
+ * Rating curve elevation boundary condition
+ * <p>
+ * Elevation is looked up from a precomputed stage-discharge table instead of
+ * being solved for each discharge. Stage is interpolated with a monotone
+ * piecewise cubic Hermite interpolant (Fritsch-Carlson), so elevation
+ * increases with discharge between table points and the table points are
+ * reproduced exactly. Lookups are a binary search, in O(log n) time, and don't
+ * allocate.
+ * <p>
+ * As with {@link NormalElevationBC}, elevation is the table stage plus a
+ * thalweg elevation. Discharge outside of the table is not extrapolated.
+ * <p>
+ * Rating curve elevation boundary conditions are immutable and thread-safe.
+ */
+public class RatingCurveElevationBC implements ElevationBC {
+
+    private final double[] discharge;
+    private final double[] stage;
+    private final double[] slope; // interpolant derivative, d(stage)/d(discharge)
+    private final double thalwegElevation;
+
+    /**
+     * Construct a new rating curve elevation boundary condition
+     *
+     * @param curve Rating curve
+     */
+    public RatingCurveElevationBC(RatingCurve curve) {
+        this(curve, 0);
+    }
+
+    /**
+     * Construct a new rating curve elevation boundary condition
+     *
+     * @param curve            Rating curve
+     * @param thalwegElevation Elevation of thalweg
+     */
+    public RatingCurveElevationBC(RatingCurve curve, double thalwegElevation) {
+
+        if (curve == null)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(thalwegElevation))
+            throw new IllegalArgumentException();
+
+        this.discharge = curve.discharge();
+        this.stage = curve.stage();
+        this.slope = slopes(discharge, stage);
+        this.thalwegElevation = thalwegElevation;
+    }
+
+    /**
+     * Construct a rating curve elevation boundary condition from the normal depth
+     * rating curve of a cross section
+     *
+     * @param crossSection     Cross section
+     * @param slope            Channel slope
+     * @param maxElevation     Highest cross section elevation of the table
+     * @param tolerance        Stage interpolation tolerance of the table
+     * @param thalwegElevation Elevation of thalweg
+     * @return Rating curve elevation boundary condition
+     * @see RatingCurve#normalDepth(CrossSection, double, double, double)
+     */
+    public static RatingCurveElevationBC normalDepth(CrossSection crossSection, double slope, double maxElevation,
+            double tolerance, double thalwegElevation) {
+        return new RatingCurveElevationBC(RatingCurve.normalDepth(crossSection, slope, maxElevation, tolerance),
+                thalwegElevation);
+    }
+
+    /**
+     * Read a rating curve elevation boundary condition from a text file
+     * <p>
+     * Each line of the file holds a discharge and a stage separated by a comma or
+     * white space. Blank lines, lines starting with <code>#</code> and a single
+     * header line are skipped. Discharge and stage must be strictly increasing.
+     *
+     * @param path             Path of the rating curve file
+     * @param thalwegElevation Elevation of thalweg
+     * @return Rating curve elevation boundary condition
+     * @throws IOException if the file can't be read or is not a rating curve
+     */
+    public static RatingCurveElevationBC read(Path path, double thalwegElevation) throws IOException {
+
+        if (path == null)
+            throw new IllegalArgumentException();
+
+        double[] q = new double[64];
+        double[] y = new double[64];
+        int n = 0;
+        int lineNumber = 0;
+        boolean first = true;
+        String line;
+
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            while ((line = reader.readLine()) != null) {
+
+                lineNumber++;
+                line = line.trim();
+
+                if (line.isEmpty() || line.startsWith("#"))
+                    continue;
+
+                String[] fields = line.split("[,\\s]+");
+
+                if (fields.length != 2)
+                    throw new IOException("invalid rating curve line " + lineNumber);
+
+                double discharge;
+                double stage;
+                try {
+                    discharge = Double.parseDouble(fields[0]);
+                    stage = Double.parseDouble(fields[1]);
+                } catch (NumberFormatException e) {
+                    /* header line */
+                    if (first) {
+                        first = false;
+                        continue;
+                    }
+                    throw new IOException("invalid rating curve line " + lineNumber);
+                }
+
+                first = false;
+
+                if (n == q.length) {
+                    q = Arrays.copyOf(q, 2 * n);
+                    y = Arrays.copyOf(y, 2 * n);
+                }
+                q[n] = discharge;
+                y[n] = stage;
+                n++;
+            }
+        }
+
+        try {
+            return new RatingCurveElevationBC(new RatingCurve(Arrays.copyOf(q, n), Arrays.copyOf(y, n)),
+                    thalwegElevation);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("invalid rating curve", e);
+        }
+    }
+
+    /*
+     * Fritsch-Carlson derivatives of the monotone cubic interpolant of increasing
+     * data
+     */
+    private static double[] slopes(double[] x, double[] y) {
+
+        int n = x.length;
+        double[] m = new double[n];
+
+        double[] h = new double[n - 1];
+        double[] delta = new double[n - 1];
+        for (int k = 0; k < n - 1; k++) {
+            h[k] = x[k + 1] - x[k];
+            delta[k] = (y[k + 1] - y[k]) / h[k];
+        }
+
+        if (n == 2) {
+            m[0] = delta[0];
+            m[1] = delta[0];
+            return m;
+        }
+
+        /* weighted harmonic mean of the neighbouring secants */
+        for (int k = 1; k < n - 1; k++) {
+            double w1 = 2 * h[k] + h[k - 1];
+            double w2 = h[k] + 2 * h[k - 1];
+            m[k] = (w1 + w2) / (w1 / delta[k - 1] + w2 / delta[k]);
+        }
+
+        m[0] = endSlope(h[0], h[1], delta[0], delta[1]);
+        m[n - 1] = endSlope(h[n - 2], h[n - 3], delta[n - 2], delta[n - 3]);
+
+        return m;
+    }
+
+    /*
+     * shape-preserving three point end derivative
+     */
+    private static double endSlope(double h0, double h1, double delta0, double delta1) {
+
+        double m = ((2 * h0 + h1) * delta0 - h0 * delta1) / (h0 + h1);
+
+        if (m < 0)
+            return 0;
+
+        if (m > 3 * delta0)
+            return 3 * delta0;
+
+        return m;
+    }
+
+    /**
+     * Returns the number of points in the stage-discharge table of this boundary
+     * condition
+     *
+     * @return Number of points
+     */
+    public int length() {
+        return discharge.length;
+    }
+
+    /**
+     * Returns the thalweg elevation of this boundary condition
+     *
+     * @return Thalweg elevation
+     */
+    public double thalwegElevation() {
+        return thalwegElevation;
+    }
+
+    /**
+     * Look up elevation
+     * <p>
+     * <code>discharge</code> must be within the stage-discharge table of this
+     * boundary condition.
+     *
+     * @param discharge Discharge
+     *
+     * @return Elevation
+     */
+    public double elevation(double discharge) {
+
+        double[] q = this.discharge;
+        int n = q.length;
+
+        if (!(discharge >= q[0] && discharge <= q[n - 1]))
+            throw new IllegalArgumentException();
+
+        int i = RatingCurve.interval(q, discharge);
+
+        double h = q[i + 1] - q[i];
+        double t = (discharge - q[i]) / h;
+        double t2 = t * t;
+        double t3 = t2 * t;
+
+        /* cubic Hermite basis */
+        double h00 = 2 * t3 - 3 * t2 + 1;
+        double h10 = t3 - 2 * t2 + t;
+        double h01 = -2 * t3 + 3 * t2;
+        double h11 = t3 - t2;
+
+        double y = h00 * stage[i] + h10 * h * slope[i] + h01 * stage[i + 1] + h11 * h * slope[i + 1];
+
+        return y + thalwegElevation;
+    }
+}
@@ -1,14 +1,18 @@
 package io.github.mmdski.codling;
 
 import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionRegistry;
 
 /**
  * Contains references to cross sections, longitudinal distances, and thalweg
  * elevations
+ * <p>
+ * A reach is immutable after construction and may be shared between threads,
+ * provided that its cross sections are thread-safe.
  */
 public class Reach {
 
-    ReachNode[] reachNodes;
+    final ReachNode[] reachNodes;
 
     /**
      * Constructs a new reach
@@ -65,6 +69,70 @@ public class Reach {
 
     }
 
+    /**
+     * Constructs a new reach, interning its cross sections in
+     * <code>registry</code>
+     * <p>
+     * Each cross section is replaced by the equal cross section already
+     * registered in <code>registry</code>, if any, so reaches built from repeated
+     * templates share cross section instances and their tables.
+     *
+     * @param x                   Distance downstream of each node
+     * @param thalweg             Thalweg elevation of each node
+     * @param crossSectionNumbers Index of a cross section in
+     *                            <code>crossSections</code> for each node
+     * @param crossSections       Array of cross sections
+     * @param registry            Registry used to intern cross sections
+     */
+    public Reach(double[] x, double[] thalweg, int[] crossSectionNumbers, CrossSection[] crossSections,
+            CrossSectionRegistry registry) {
+        this(x, thalweg, crossSectionNumbers, intern(crossSections, registry));
+    }
+
+    private static CrossSection[] intern(CrossSection[] crossSections, CrossSectionRegistry registry) {
+
+        if (crossSections == null || registry == null)
+            throw new IllegalArgumentException();
+
+        CrossSection[] interned = new CrossSection[crossSections.length];
+
+        for (int i = 0; i < crossSections.length; i++) {
+            if (crossSections[i] == null)
+                throw new IllegalArgumentException();
+            interned[i] = registry.intern(crossSections[i]);
+        }
+
+        return interned;
+    }
+
+    private Reach(ReachNode[] reachNodes) {
+        this.reachNodes = reachNodes;
+    }
+
+    /**
+     * Returns a copy of this reach with the thalweg elevation and cross section
+     * of one node replaced
+     * <p>
+     * The distance downstream of the node is kept. Since reach nodes are
+     * immutable, all other nodes are shared with this reach.
+     *
+     * @param nodeIndex    Index of the node to replace
+     * @param thalweg      Thalweg elevation of the new node
+     * @param crossSection Cross section of the new node
+     *
+     * @return New reach with the node replaced
+     */
+    public Reach withNode(int nodeIndex, double thalweg, CrossSection crossSection) {
+
+        if (nodeIndex < 0 || nodeIndex > reachNodes.length - 1)
+            throw new ArrayIndexOutOfBoundsException();
+
+        ReachNode[] nodes = reachNodes.clone();
+        nodes[nodeIndex] = new ReachNode(reachNodes[nodeIndex].distanceDownstream(), thalweg, crossSection);
+
+        return new Reach(nodes);
+    }
+
     /**
      * Returns the distance downstream of each node in this reach
      *
@@ -102,6 +170,22 @@ public class Reach {
      * @return Hydraulic properties of a reach node
      */
     public ReachNodeProperties nodeProperties(int nodeIndex, double discharge, double wsElevation) {
+        return nodeProperties(nodeIndex, discharge, wsElevation, new ReachNodeProperties());
+    }
+
+    /**
+     * Hydraulic properties of a reach node, written into <code>properties</code>
+     *
+     * @param nodeIndex   Node index
+     * @param discharge   Discharge for computing properties
+     * @param wsElevation Water surface elevation for computing properties
+     * @param properties  Reach node properties holder to write results into
+     *
+     * @return <code>properties</code>, containing hydraulic properties of a reach
+     *         node
+     */
+    public ReachNodeProperties nodeProperties(int nodeIndex, double discharge, double wsElevation,
+            ReachNodeProperties properties) {
 
         if (!Double.isFinite(discharge))
             throw new IllegalArgumentException();
@@ -112,9 +196,7 @@ public class Reach {
         if (nodeIndex < 0 || nodeIndex > reachNodes.length - 1)
             throw new ArrayIndexOutOfBoundsException();
 
-        double depth = wsElevation - reachNodes[nodeIndex].thalweg();
-
-        return reachNodes[nodeIndex].properties(discharge, depth);
+        return reachNodes[nodeIndex].properties(discharge, wsElevation, properties);
     }
 
     /**
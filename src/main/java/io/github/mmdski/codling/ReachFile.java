@@ -0,0 +1,447 @@
+package io.github.mmdski.codling;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.github.mmdski.codling.crosssection.CoArray;
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.IrregularCrossSection;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+/**
+ * Columnar binary reach file
+ * <p>
+ * A reach file stores the geometry of a reach in little-endian columns that
+ * are read through a read-only memory mapping:
+ * <ul>
+ * <li>header: magic number, format version, number of nodes <i>n</i> and
+ * number of cross sections <i>m</i> (four <code>int</code> values)</li>
+ * <li>distance downstream of each node (<i>n</i> <code>double</code>
+ * values)</li>
+ * <li>thalweg elevation of each node (<i>n</i> <code>double</code>
+ * values)</li>
+ * <li>cross section index of each node (<i>n</i> <code>int</code> values,
+ * padded to a multiple of 8 bytes)</li>
+ * <li>cross section table, one 32 byte record per cross section: type,
+ * number of points, roughness, width, and offset of the point data</li>
+ * <li>point data, the elevations and then the stations of each irregular
+ * cross section (<code>double</code> values)</li>
+ * </ul>
+ * <p>
+ * Rectangular and irregular cross sections are supported. Equal cross sections
+ * are stored once. When a file is read, the node
+ * columns are decoded immediately, but the points of a cross section are not
+ * decoded until the cross section is first used. A reach that was read from a
+ * reach file can be written again. Since the mapping is
+ * read-only, the operating system page cache may share the file between
+ * processes.
+ * <p>
+ * Files are mapped in segments of 1 GB, so files larger than the 2 GB limit of
+ * a single mapping can be read and written. Every value in a reach file is
+ * aligned to its size, so no value spans two segments.
+ */
+public class ReachFile {
+
+    /**
+     * Magic number at the start of every reach file
+     */
+    public static final int MAGIC = 0x48435243; // "CRCH" in little-endian order
+
+    /**
+     * Current format version
+     */
+    public static final int VERSION = 1;
+
+    static final int RECTANGULAR = 1;
+    static final int IRREGULAR = 2;
+
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+
+    /* mapped segment size, a multiple of 8 so aligned values don't span segments */
+    static final int SEGMENT_BYTES = 1 << 30;
+
+    private ReachFile() {
+    }
+
+    /*
+     * byte offsets of the columns of a file with n nodes and m cross sections. the
+     * distance column starts right after the header
+     */
+    private static long thalwegOffset(int n) {
+        return HEADER_BYTES + 8L * n;
+    }
+
+    private static long indexOffset(int n) {
+        return HEADER_BYTES + 16L * n;
+    }
+
+    private static long tableOffset(int n) {
+        long end = indexOffset(n) + 4L * n;
+        return (end + 7) & ~7L;
+    }
+
+    private static long dataOffset(int n, int m) {
+        return tableOffset(n) + (long) RECORD_BYTES * m;
+    }
+
+    /*
+     * little-endian file mapped in segments of equal size, addressed by long
+     * offsets. values must not span segments
+     */
+    private static class Segments {
+
+        private final MappedByteBuffer[] buffers;
+        private final int segmentBytes;
+        private final long size;
+
+        Segments(FileChannel channel, FileChannel.MapMode mode, long size, int segmentBytes) throws IOException {
+
+            int count = (int) ((size + segmentBytes - 1) / segmentBytes);
+
+            this.buffers = new MappedByteBuffer[count];
+            this.segmentBytes = segmentBytes;
+            this.size = size;
+
+            for (int k = 0; k < count; k++) {
+                long offset = (long) k * segmentBytes;
+                buffers[k] = channel.map(mode, offset, Math.min(segmentBytes, size - offset));
+                buffers[k].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+
+        long size() {
+            return size;
+        }
+
+        private MappedByteBuffer segment(long offset) {
+            return buffers[(int) (offset / segmentBytes)];
+        }
+
+        private int position(long offset) {
+            return (int) (offset % segmentBytes);
+        }
+
+        int getInt(long offset) {
+            return segment(offset).getInt(position(offset));
+        }
+
+        long getLong(long offset) {
+            return segment(offset).getLong(position(offset));
+        }
+
+        double getDouble(long offset) {
+            return segment(offset).getDouble(position(offset));
+        }
+
+        void putInt(long offset, int value) {
+            segment(offset).putInt(position(offset), value);
+        }
+
+        void putLong(long offset, long value) {
+            segment(offset).putLong(position(offset), value);
+        }
+
+        void putDouble(long offset, double value) {
+            segment(offset).putDouble(position(offset), value);
+        }
+
+        void force() {
+            for (MappedByteBuffer buffer : buffers)
+                buffer.force();
+        }
+    }
+
+    /**
+     * Writes a reach to a reach file
+     *
+     * @param reach Reach to write
+     * @param path  Path of the file to create or replace
+     * @throws IOException if the file can't be written
+     */
+    public static void write(Reach reach, Path path) throws IOException {
+        write(reach, path, SEGMENT_BYTES);
+    }
+
+    /*
+     * write with a given segment size, so that segment boundaries can be tested
+     * with small files
+     */
+    static void write(Reach reach, Path path, int segmentBytes) throws IOException {
+
+        if (reach == null || path == null)
+            throw new IllegalArgumentException();
+
+        int n = reach.length();
+
+        /* number the distinct cross sections */
+        Map<CrossSection, Integer> numbers = new HashMap<>();
+        List<CrossSection> sections = new ArrayList<>();
+        int[] index = new int[n];
+        long dataBytes = 0;
+
+        for (int i = 0; i < n; i++) {
+            CrossSection xs = reach.reachNodes[i].crossSection();
+            /* a section read from a reach file is written as its decoded points */
+            if (xs instanceof MappedCrossSection)
+                xs = ((MappedCrossSection) xs).crossSection();
+            Integer number = numbers.get(xs);
+            if (number == null) {
+                if (xs instanceof IrregularCrossSection)
+                    dataBytes += 16L * ((IrregularCrossSection) xs).coordinates().length();
+                else if (!(xs instanceof RectangularCrossSection))
+                    throw new IllegalArgumentException();
+                number = sections.size();
+                numbers.put(xs, number);
+                sections.add(xs);
+            }
+            index[i] = number;
+        }
+
+        int m = sections.size();
+        long size = dataOffset(n, m) + dataBytes;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            Segments file = new Segments(channel, FileChannel.MapMode.READ_WRITE, size, segmentBytes);
+
+            file.putInt(0, MAGIC);
+            file.putInt(4, VERSION);
+            file.putInt(8, n);
+            file.putInt(12, m);
+
+            for (int i = 0; i < n; i++) {
+                ReachNode node = reach.reachNodes[i];
+                file.putDouble(HEADER_BYTES + 8L * i, node.distanceDownstream());
+                file.putDouble(thalwegOffset(n) + 8L * i, node.thalweg());
+                file.putInt(indexOffset(n) + 4L * i, index[i]);
+            }
+
+            long record = tableOffset(n);
+            long data = dataOffset(n, m);
+
+            for (CrossSection xs : sections) {
+
+                if (xs instanceof RectangularCrossSection) {
+                    RectangularCrossSection rectangular = (RectangularCrossSection) xs;
+                    file.putInt(record, RECTANGULAR);
+                    file.putInt(record + 4, 0);
+                    file.putDouble(record + 8, rectangular.roughness());
+                    file.putDouble(record + 16, rectangular.width());
+                    file.putLong(record + 24, 0);
+                } else {
+                    IrregularCrossSection irregular = (IrregularCrossSection) xs;
+                    CoArray coordinates = irregular.coordinates();
+                    int points = coordinates.length();
+                    file.putInt(record, IRREGULAR);
+                    file.putInt(record + 4, points);
+                    file.putDouble(record + 8, irregular.roughness());
+                    file.putDouble(record + 16, 0);
+                    file.putLong(record + 24, data);
+
+                    double[] y = coordinates.y();
+                    double[] z = coordinates.z();
+                    for (int j = 0; j < points; j++) {
+                        file.putDouble(data + 8L * j, y[j]);
+                        file.putDouble(data + 8L * (points + j), z[j]);
+                    }
+                    data += 16L * points;
+                }
+
+                record += RECORD_BYTES;
+            }
+
+            file.force();
+        }
+    }
+
+    /**
+     * Reads a reach from a reach file
+     * <p>
+     * The file is memory mapped. Cross section points are decoded from the
+     * mapping the first time each cross section is used.
+     *
+     * @param path Path of the reach file
+     * @return Reach
+     * @throws IOException if the file can't be read or is not a valid reach file
+     */
+    public static Reach read(Path path) throws IOException {
+        return read(path, SEGMENT_BYTES);
+    }
+
+    /*
+     * read with a given segment size
+     */
+    static Reach read(Path path, int segmentBytes) throws IOException {
+
+        if (path == null)
+            throw new IllegalArgumentException();
+
+        Segments file;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+            long size = channel.size();
+
+            if (size < HEADER_BYTES)
+                throw new IOException("not a reach file");
+
+            /* the mappings stay valid after the channel is closed */
+            file = new Segments(channel, FileChannel.MapMode.READ_ONLY, size, segmentBytes);
+        }
+
+        if (file.getInt(0) != MAGIC)
+            throw new IOException("not a reach file");
+
+        if (file.getInt(4) != VERSION)
+            throw new IOException("unsupported reach file version");
+
+        int n = file.getInt(8);
+        int m = file.getInt(12);
+
+        if (n < 0 || m < 0 || dataOffset(n, m) > file.size())
+            throw new IOException("truncated reach file");
+
+        double[] x = new double[n];
+        double[] thalweg = new double[n];
+        int[] index = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            x[i] = file.getDouble(HEADER_BYTES + 8L * i);
+            thalweg[i] = file.getDouble(thalwegOffset(n) + 8L * i);
+            index[i] = file.getInt(indexOffset(n) + 4L * i);
+            if (index[i] < 0 || index[i] >= m)
+                throw new IOException("invalid cross section index");
+        }
+
+        CrossSection[] sections = new CrossSection[m];
+        long record = tableOffset(n);
+
+        for (int k = 0; k < m; k++) {
+
+            int type = file.getInt(record);
+            int points = file.getInt(record + 4);
+            long data = file.getLong(record + 24);
+
+            if (type == RECTANGULAR)
+                sections[k] = new RectangularCrossSection(file.getDouble(record + 16), file.getDouble(record + 8));
+            else if (type == IRREGULAR && points >= 2 && data >= 0 && (data & 7) == 0
+                    && data + 16L * points <= file.size())
+                sections[k] = new MappedCrossSection(file, record);
+            else
+                throw new IOException("invalid cross section record");
+
+            record += RECORD_BYTES;
+        }
+
+        return new Reach(x, thalweg, index, sections);
+    }
+
+    /*
+     * irregular cross section decoded from a mapped reach file on first use
+     */
+    private static class MappedCrossSection implements CrossSection {
+
+        private final Segments file;
+        private final long record;
+        private volatile IrregularCrossSection crossSection;
+
+        MappedCrossSection(Segments file, long record) {
+            this.file = file;
+            this.record = record;
+        }
+
+        private IrregularCrossSection crossSection() {
+
+            IrregularCrossSection xs = crossSection;
+
+            if (xs == null) {
+                /* decoding twice on a race is harmless, both results are equal */
+                int points = file.getInt(record + 4);
+                double roughness = file.getDouble(record + 8);
+                long data = file.getLong(record + 24);
+                double[] y = new double[points];
+                double[] z = new double[points];
+                for (int j = 0; j < points; j++) {
+                    y[j] = file.getDouble(data + 8L * j);
+                    z[j] = file.getDouble(data + 8L * (points + j));
+                }
+                xs = new IrregularCrossSection(new CoArray(y, z), roughness);
+                crossSection = xs;
+            }
+
+            return xs;
+        }
+        public CrossSectionProperties properties(double y) {
+            return crossSection().properties(y);
+        }
+
+        public CrossSectionProperties properties(double y, CrossSectionProperties properties) {
+            return crossSection().properties(y, properties);
+        }
+
+        public double[][] properties(double[] y, double[][] results) {
+            return crossSection().properties(y, results);
+        }
+
+        public double criticalY(double Q) {
+            return crossSection().criticalY(Q);
+        }
+
+        public double criticalY(double Q, double y0) {
+            return crossSection().criticalY(Q, y0);
+        }
+
+        public double normalY(double Q, double S) {
+            return crossSection().normalY(Q, S);
+        }
+
+        public double normalY(double Q, double S, double y0) {
+            return crossSection().normalY(Q, S, y0);
+        }
+
+        public SecantSolution normalSolution(double Q, double S) {
+            return crossSection().normalSolution(Q, S);
+        }
+
+        public SecantSolution normalSolution(double Q, double S, double y0) {
+            return crossSection().normalSolution(Q, S, y0);
+        }
+
+        public double thalweg() {
+            return crossSection().thalweg();
+        }
+
+        /*
+         * mapped sections are equal when their decoded sections are, so equal
+         * sections of a file can be interned. an irregular section is never equal to
+         * a mapped one, keeping equals symmetric
+         */
+        @Override
+        public boolean equals(Object obj) {
+
+            if (this == obj)
+                return true;
+
+            if (!(obj instanceof MappedCrossSection))
+                return false;
+
+            return crossSection().equals(((MappedCrossSection) obj).crossSection());
+        }
+
+        @Override
+        public int hashCode() {
+            return crossSection().hashCode();
+        }
+    }
+}
@@ -1,16 +1,19 @@
 package io.github.mmdski.codling;
 
 import io.github.mmdski.codling.crosssection.CrossSection;
-import io.github.mmdski.codling.crosssection.CrossSectionProperties;;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
 
 /**
  * Node in river reach data structure
+ * <p>
+ * A reach node is immutable and may be shared between threads, provided that
+ * its cross section is thread-safe.
  */
 public class ReachNode {
 
-    private double x;
-    private double thalweg;
-    private CrossSection xs;
+    private final double x;
+    private final double thalweg;
+    private final CrossSection xs;
 
     /**
      * Construct a new reach node
@@ -41,6 +44,15 @@ public class ReachNode {
 
     }
 
+    /**
+     * Returns the cross section of this reach node
+     *
+     * @return Cross section
+     */
+    public CrossSection crossSection() {
+        return xs;
+    }
+
     /**
      * Returns the downstream distance of this reach node
      *
@@ -60,6 +72,25 @@ public class ReachNode {
      * @return Computed reach node properties
      */
     public ReachNodeProperties properties(double discharge, double waterSurfaceElevation) {
+        return properties(discharge, waterSurfaceElevation, new ReachNodeProperties());
+    }
+
+    /**
+     * Computes properties at this node for a given discharge and water surface
+     * elevation, writing the results into <code>properties</code>
+     * <p>
+     * No objects are allocated when the cross section of this node overrides
+     * {@link CrossSection#properties(double, CrossSectionProperties)}.
+     *
+     * @param discharge             Discharge value for computing properties
+     * @param waterSurfaceElevation Water surface elvation for computing properties
+     * @param properties            Reach node properties holder to write results
+     *                              into
+     *
+     * @return <code>properties</code>, containing computed reach node properties
+     */
+    public ReachNodeProperties properties(double discharge, double waterSurfaceElevation,
+            ReachNodeProperties properties) {
 
         if (!Double.isFinite(discharge))
             throw new IllegalArgumentException();
@@ -67,18 +98,21 @@ public class ReachNode {
         if (!Double.isFinite(waterSurfaceElevation))
             throw new IllegalArgumentException();
 
+        if (properties == null)
+            throw new NullPointerException();
+
         double depth = waterSurfaceElevation - thalweg;
 
-        CrossSectionProperties p = xs.properties(waterSurfaceElevation);
+        /* cross section elevations are relative to the cross section thalweg */
+        CrossSectionProperties p = xs.properties(depth + xs.thalweg(), properties.crossSectionProperties());
         double area = p.value(CrossSectionProperties.Property.AREA);
         double conveyance = p.value(CrossSectionProperties.Property.CONVEYANCE);
-        double velocityCoeff = p.value(CrossSectionProperties.Property.CONVEYANCE);
+        double velocityCoeff = p.value(CrossSectionProperties.Property.VELOCITY_COEFF);
 
         double velocity = discharge / area;
         double frictionSlope = (discharge * discharge) / (conveyance * conveyance);
         double velocityHead = velocityCoeff * velocity * velocity / (2 * Constants.gravity());
 
-        ReachNodeProperties properties = new ReachNodeProperties();
         properties.setValue(ReachNodeProperties.Property.X, x);
         properties.setValue(ReachNodeProperties.Property.Y, thalweg);
         properties.setValue(ReachNodeProperties.Property.DEPTH, depth);
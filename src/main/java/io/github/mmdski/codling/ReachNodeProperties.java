@@ -1,5 +1,7 @@
 package io.github.mmdski.codling;
 
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+
 /**
  * Reach node properties
  * <p>
@@ -8,6 +10,7 @@ package io.github.mmdski.codling;
 public class ReachNodeProperties {
 
     private double[] results;
+    private CrossSectionProperties crossSectionProperties;
 
     /**
      * Reach node property fields
@@ -32,6 +35,17 @@ public class ReachNodeProperties {
      */
     public ReachNodeProperties() {
         results = new double[Property.values().length];
+        crossSectionProperties = new CrossSectionProperties();
+    }
+
+    /**
+     * Cross section properties workspace used while computing these reach node
+     * properties
+     *
+     * @return Cross section properties workspace
+     */
+    CrossSectionProperties crossSectionProperties() {
+        return crossSectionProperties;
     }
 
     /**
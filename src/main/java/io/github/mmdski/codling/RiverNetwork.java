@@ -0,0 +1,182 @@
+package io.github.mmdski.codling;
+
+import java.util.Arrays;
+
+/**
+ * Dendritic river network
+ * <p>
+ * A river network is a tree of reaches. The downstream end of each reach flows
+ * into the upstream end of another reach at a junction, except for a single
+ * outlet reach. Nodes of each reach are ordered from upstream to downstream, so
+ * the last node of a tributary joins the first node of the reach it flows
+ * into.
+ * <p>
+ * Each junction has a length, the distance from the last node of the tributary
+ * to the first node of the receiving reach, used for friction losses in the
+ * junction energy balance.
+ * <p>
+ * A river network is immutable after construction and may be shared between
+ * threads, provided that its reaches are thread-safe.
+ */
+public class RiverNetwork {
+
+    private final Reach[] reaches;
+    private final int[] downstream;
+    private final double[] junctionLength;
+    private final int[][] upstream;
+    private final int outlet;
+
+    /**
+     * Construct a new river network with junctions of zero length
+     *
+     * @param reaches    Reaches of the network
+     * @param downstream Index of the reach that each reach flows into, or -1 for
+     *                   the outlet reach
+     */
+    public RiverNetwork(Reach[] reaches, int[] downstream) {
+        this(reaches, downstream, new double[reaches == null ? 0 : reaches.length]);
+    }
+
+    /**
+     * Construct a new river network
+     * <p>
+     * Exactly one reach must be the outlet, and following the downstream reaches
+     * from any reach must lead to the outlet.
+     *
+     * @param reaches        Reaches of the network
+     * @param downstream     Index of the reach that each reach flows into, or -1
+     *                       for the outlet reach
+     * @param junctionLength Length of the junction at the downstream end of each
+     *                       reach. The length of the outlet is not used.
+     */
+    public RiverNetwork(Reach[] reaches, int[] downstream, double[] junctionLength) {
+
+        if (reaches == null || downstream == null || junctionLength == null)
+            throw new IllegalArgumentException();
+
+        int n = reaches.length;
+
+        if (n < 1 || downstream.length != n || junctionLength.length != n)
+            throw new IllegalArgumentException();
+
+        int outlet = -1;
+        int[] nUpstream = new int[n];
+
+        for (int i = 0; i < n; i++) {
+
+            if (reaches[i] == null)
+                throw new IllegalArgumentException();
+
+            if (!Double.isFinite(junctionLength[i]) || junctionLength[i] < 0)
+                throw new IllegalArgumentException();
+
+            if (downstream[i] == -1) {
+                if (outlet != -1)
+                    throw new IllegalArgumentException();
+                outlet = i;
+            } else if (downstream[i] < 0 || downstream[i] >= n || downstream[i] == i) {
+                throw new IllegalArgumentException();
+            } else {
+                nUpstream[downstream[i]]++;
+            }
+        }
+
+        if (outlet == -1)
+            throw new IllegalArgumentException();
+
+        /* every reach must reach the outlet in fewer than n steps */
+        for (int i = 0; i < n; i++) {
+            int r = i;
+            for (int steps = 0; r != outlet; steps++) {
+                if (steps == n)
+                    throw new IllegalArgumentException();
+                r = downstream[r];
+            }
+        }
+
+        int[][] upstream = new int[n][];
+        for (int i = 0; i < n; i++)
+            upstream[i] = new int[nUpstream[i]];
+
+        Arrays.fill(nUpstream, 0);
+        for (int i = 0; i < n; i++) {
+            if (i != outlet)
+                upstream[downstream[i]][nUpstream[downstream[i]]++] = i;
+        }
+
+        this.reaches = reaches.clone();
+        this.downstream = downstream.clone();
+        this.junctionLength = junctionLength.clone();
+        this.upstream = upstream;
+        this.outlet = outlet;
+    }
+
+    /**
+     * Returns the number of reaches in this network
+     *
+     * @return Number of reaches
+     */
+    public int size() {
+        return reaches.length;
+    }
+
+    /**
+     * Returns a reach of this network
+     *
+     * @param i Reach index
+     *
+     * @return Reach
+     */
+    public Reach reach(int i) {
+        return reaches[i];
+    }
+
+    /**
+     * Returns the index of the reach that a reach flows into
+     *
+     * @param i Reach index
+     *
+     * @return Index of the downstream reach, or -1 for the outlet reach
+     */
+    public int downstream(int i) {
+        return downstream[i];
+    }
+
+    /**
+     * Returns the indices of the reaches that flow into a reach
+     *
+     * @param i Reach index
+     *
+     * @return Indices of the tributaries of reach <code>i</code>
+     */
+    public int[] upstream(int i) {
+        return upstream[i].clone();
+    }
+
+    /**
+     * Returns the length of the junction at the downstream end of a reach
+     *
+     * @param i Reach index
+     *
+     * @return Junction length
+     */
+    public double junctionLength(int i) {
+        return junctionLength[i];
+    }
+
+    /**
+     * Returns the index of the outlet reach
+     *
+     * @return Outlet reach index
+     */
+    public int outlet() {
+        return outlet;
+    }
+
+    /*
+     * tributaries of reach i, without copying
+     */
+    int[] tributaries(int i) {
+        return upstream[i];
+    }
+}
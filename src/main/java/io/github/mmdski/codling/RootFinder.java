@@ -0,0 +1,43 @@
+package io.github.mmdski.codling;
+
+/**
+ * Interface for root finding methods of <code>SecantSolvable</code> functions
+ * <p>
+ * The first and second iterations of a solvable are used as the starting
+ * points of the search. Root finders are immutable and may be shared between
+ * threads.
+ */
+public interface RootFinder {
+
+    /**
+     * Find a root of a solvable function
+     *
+     * @param solvable Function to find a root of
+     *
+     * @return Root finding solution
+     */
+    public default SecantSolution solve(SecantSolvable solvable) {
+        return solve(solvable, new SecantSolution());
+    }
+
+    /**
+     * Find a root of a solvable function, writing the result into
+     * <code>solution</code>
+     *
+     * @param solvable Function to find a root of
+     * @param solution Solution to write the result into
+     *
+     * @return <code>solution</code>, containing the root finding solution
+     */
+    public SecantSolution solve(SecantSolvable solvable, SecantSolution solution);
+
+    /**
+     * Find a root of a solvable function without allocating a solution
+     *
+     * @param solvable Function to find a root of
+     *
+     * @return Root of <code>solvable</code>, or <code>NaN</code> if no root was
+     *         found
+     */
+    public double root(SecantSolvable solvable);
+}
@@ -5,11 +5,38 @@ public class SecantSolution {
     private boolean solutionFound;
     private int iterations;
     private double solution;
+    private double residual;
+
+    /**
+     * Construct an empty secant solution
+     * <p>
+     * Empty solutions may be passed to
+     * {@link SecantSolver#solve(SecantSolvable, SecantSolution)} and reused for
+     * many solves.
+     */
+    public SecantSolution() {
+        this(false, 0, Double.NaN);
+    }
 
     public SecantSolution(boolean solutionFound, int iterations, double solution) {
+        this(solutionFound, iterations, solution, Double.NaN);
+    }
+
+    public SecantSolution(boolean solutionFound, int iterations, double solution, double residual) {
         this.solutionFound = solutionFound;
         this.iterations = iterations;
         this.solution = solution;
+        this.residual = residual;
+    }
+
+    /*
+     * overwrite this solution. used by root finders to reuse solutions
+     */
+    void setValues(boolean solutionFound, int iterations, double solution, double residual) {
+        this.solutionFound = solutionFound;
+        this.iterations = iterations;
+        this.solution = solution;
+        this.residual = residual;
     }
 
     public boolean solutionFound() {
@@ -23,4 +50,15 @@ public class SecantSolution {
     public double solution() {
         return solution;
     }
+
+    /**
+     * Returns the function value at the last evaluated point
+     * <p>
+     * When a solution is found, this is the function value at the solution.
+     *
+     * @return Residual of the solution
+     */
+    public double residual() {
+        return residual;
+    }
 }
@@ -2,11 +2,17 @@ package io.github.mmdski.codling;
 
 /**
  * Solver class for the secant root finding method
+ * <p>
+ * Only the last two iterates are kept, in local variables, so solving does not
+ * allocate apart from the returned solution. Use
+ * {@link #solve(SecantSolvable, SecantSolution)} or
+ * {@link #root(SecantSolvable)} to avoid that allocation too. Secant solvers
+ * are immutable and may be shared between threads.
  */
-public class SecantSolver {
+public class SecantSolver implements RootFinder {
 
-    private int maxIterations;
-    private double eps;
+    private final int maxIterations;
+    private final double eps;
 
     /**
      * Construct a new secant solver
@@ -32,42 +38,99 @@ public class SecantSolver {
      * @return Root finding solution
      */
     public SecantSolution solve(SecantSolvable solvable) {
+        return solve(solvable, new SecantSolution());
+    }
+
+    /**
+     * Find a root of a solvable function, writing the result into
+     * <code>solution</code>
+     * <p>
+     * The solution is found when two consecutive iterates are within the
+     * convergence tolerance. If the first and second iterations already are, and
+     * the secant step from them is within the tolerance too, the second iteration
+     * is returned after one iteration.
+     *
+     * @param solvable Function to find a root of
+     * @param solution Solution to write the result into
+     *
+     * @return <code>solution</code>, containing the root finding solution
+     */
+    public SecantSolution solve(SecantSolvable solvable, SecantSolution solution) {
+
+        if (solution == null)
+            throw new NullPointerException();
+
+        search(solvable, solution);
+
+        return solution;
+    }
+
+    /**
+     * Find a root of a solvable function without allocating a solution
+     *
+     * @param solvable Function to find a root of
+     *
+     * @return Root of <code>solvable</code>, or <code>NaN</code> if no root was
+     *         found within the maximum number of iterations
+     */
+    public double root(SecantSolvable solvable) {
+        return search(solvable, null);
+    }
+
+    /*
+     * secant iteration shared by solve and root. the result is written into
+     * solution unless it is null. returns the root, or NaN if none was found
+     */
+    private double search(SecantSolvable solvable, SecantSolution solution) {
 
         int i;
         boolean solutionFound = false;
-        double delta;
-        double xDiff;
-        double yDiff;
         double xComputed = Double.NaN;
-        double[] x = new double[maxIterations];
-        double[] y = new double[maxIterations];
 
-        x[0] = solvable.firstIteration();
-        x[1] = solvable.secondIteration();
+        double x0 = solvable.firstIteration();
+        double x1 = solvable.secondIteration();
+
+        double y0 = solvable.solverFunction(x0);
+        double y1 = solvable.solverFunction(x1);
+
+        double x2;
 
-        y[0] = solvable.solverFunction(x[0]);
-        y[1] = solvable.solverFunction(x[1]);
+        /*
+         * the starting points may already be converged, as when the first iteration
+         * is taken from a prior solution. close starting points alone don't make a
+         * root, so the secant step from them must be within tolerance too
+         */
+        if (Math.abs(x1 - x0) <= eps
+                && (y1 == 0 || y1 != y0 && Math.abs(y1 * (x1 - x0) / (y1 - y0)) <= eps)) {
+            if (solution != null)
+                solution.setValues(true, 1, x1, y1);
+            return x1;
+        }
 
         for (i = 2; i < maxIterations; i++) {
 
-            xDiff = x[i - 1] - x[i - 2];
-            yDiff = y[i - 1] - y[i - 2];
+            /* the secant is undefined through points with equal or NaN values */
+            if (y1 == y0 || Double.isNaN(y1))
+                break;
 
-            x[i] = x[i - 1] - y[i - 1] * xDiff / yDiff;
-            y[i] = solvable.solverFunction(x[i]);
+            x2 = x1 - y1 * (x1 - x0) / (y1 - y0);
 
-            delta = Math.abs(x[i] - x[i - 1]);
+            x0 = x1;
+            y0 = y1;
+            x1 = x2;
+            y1 = solvable.solverFunction(x1);
 
-            if (delta <= eps) {
+            if (Math.abs(x1 - x0) <= eps) {
                 solutionFound = true;
-                xComputed = x[i];
+                xComputed = x1;
                 break;
             }
         }
 
-        SecantSolution solution = new SecantSolution(solutionFound, i, xComputed);
+        if (solution != null)
+            solution.setValues(solutionFound, i, xComputed, y1);
 
-        return solution;
+        return xComputed;
     }
 
 }
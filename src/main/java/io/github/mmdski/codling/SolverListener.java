@@ -0,0 +1,58 @@
+package io.github.mmdski.codling;
+
+/**
+ * Listener for solver convergence and timing events
+ * <p>
+ * All methods do nothing by default, so listeners only need to override the
+ * events they use. Solvers without a listener do not read the clock or build
+ * any events. A listener shared by solvers running on several threads must be
+ * thread-safe.
+ *
+ * @see SolverStatistics
+ */
+public interface SolverListener {
+
+    /**
+     * Called after the water surface elevation of a node is solved
+     *
+     * @param node          Index of the solved node
+     * @param iterations    Number of root finder iterations, as counted by the
+     *                      root finder. {@link SecantSolver} counts secant
+     *                      iterations, one less than its energy equation
+     *                      evaluations, while {@link BrentSolver} counts
+     *                      evaluations, including those that bracket the root,
+     *                      so counts from the two aren't directly comparable
+     * @param solutionFound <code>true</code> if the root finder converged
+     * @param residual      Energy equation residual at the last iteration
+     * @param nanos         Wall time of the node solve, in nanoseconds
+     */
+    public default void nodeSolved(int node, int iterations, boolean solutionFound, double residual, long nanos) {
+    }
+
+    /**
+     * Called after a steady state plan, or a batch of plans, is solved
+     *
+     * @param nodes Number of nodes solved, including the boundary condition
+     *              node. A re-solve counts only the nodes it recomputed, and a
+     *              batch counts the nodes of every profile it solved
+     * @param nanos Wall time of the solve, in nanoseconds
+     */
+    public default void planSolved(int nodes, long nanos) {
+    }
+
+    /**
+     * Called after a boundary condition computes a normal elevation
+     *
+     * @param discharge     Normal discharge
+     * @param elevation     Computed normal elevation
+     * @param iterations    Number of iterations of the cross section normal
+     *                      elevation solve, 0 for elevations found without
+     *                      iterating
+     * @param solutionFound <code>true</code> if the normal elevation solve
+     *                      converged
+     * @param nanos         Wall time of the computation, in nanoseconds
+     */
+    public default void normalElevationSolved(double discharge, double elevation, int iterations,
+            boolean solutionFound, long nanos) {
+    }
+}
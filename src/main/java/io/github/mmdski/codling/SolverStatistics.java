@@ -0,0 +1,240 @@
+package io.github.mmdski.codling;
+
+import java.util.Arrays;
+
+/**
+ * Solver listener that accumulates convergence and timing statistics
+ * <p>
+ * Node statistics are kept per node index and summed over every plan solved
+ * while the statistics are attached to a solver. Solver statistics are
+ * thread-safe, so one instance may be shared by solvers running on several
+ * threads.
+ */
+public class SolverStatistics implements SolverListener {
+
+    private int[] nodeSolves = new int[0];
+    private long[] nodeIterations = new long[0];
+    private int[] nodeMaxIterations = new int[0];
+    private int[] nodeFailures = new int[0];
+    private double[] nodeMaxResidual = new double[0];
+    private long[] nodeNanos = new long[0];
+
+    private int plans;
+    private long planNanos;
+
+    private int normalElevations;
+    private long normalElevationIterations;
+    private int normalElevationFailures;
+    private long normalElevationNanos;
+
+    public synchronized void nodeSolved(int node, int iterations, boolean solutionFound, double residual,
+            long nanos) {
+
+        if (node >= nodeSolves.length)
+            grow(node + 1);
+
+        nodeSolves[node]++;
+        nodeIterations[node] += iterations;
+        nodeMaxIterations[node] = Math.max(nodeMaxIterations[node], iterations);
+        nodeNanos[node] += nanos;
+
+        if (!solutionFound)
+            nodeFailures[node]++;
+
+        /* once a NaN residual is recorded, the maximum stays NaN */
+        double r = Math.abs(residual);
+        if (Double.isNaN(r) || r > nodeMaxResidual[node])
+            nodeMaxResidual[node] = r;
+    }
+
+    public synchronized void planSolved(int nodes, long nanos) {
+        plans++;
+        planNanos += nanos;
+    }
+
+    public synchronized void normalElevationSolved(double discharge, double elevation, int iterations,
+            boolean solutionFound, long nanos) {
+        normalElevations++;
+        normalElevationIterations += iterations;
+        if (!solutionFound)
+            normalElevationFailures++;
+        normalElevationNanos += nanos;
+    }
+
+    private void grow(int n) {
+        nodeSolves = Arrays.copyOf(nodeSolves, n);
+        nodeIterations = Arrays.copyOf(nodeIterations, n);
+        nodeMaxIterations = Arrays.copyOf(nodeMaxIterations, n);
+        nodeFailures = Arrays.copyOf(nodeFailures, n);
+        nodeMaxResidual = Arrays.copyOf(nodeMaxResidual, n);
+        nodeNanos = Arrays.copyOf(nodeNanos, n);
+    }
+
+    /**
+     * Returns the number of nodes with statistics, one more than the greatest
+     * solved node index
+     *
+     * @return Number of nodes
+     */
+    public synchronized int nodes() {
+        return nodeSolves.length;
+    }
+
+    /**
+     * Returns the number of times a node was solved
+     *
+     * @param node Node index
+     * @return Number of solves
+     */
+    public synchronized int solves(int node) {
+        return node < nodeSolves.length ? nodeSolves[node] : 0;
+    }
+
+    /**
+     * Returns the total number of root finder iterations of a node
+     *
+     * @param node Node index
+     * @return Total iterations
+     */
+    public synchronized long iterations(int node) {
+        return node < nodeIterations.length ? nodeIterations[node] : 0;
+    }
+
+    /**
+     * Returns the greatest number of root finder iterations of a single solve of
+     * a node
+     *
+     * @param node Node index
+     * @return Maximum iterations
+     */
+    public synchronized int maxIterations(int node) {
+        return node < nodeMaxIterations.length ? nodeMaxIterations[node] : 0;
+    }
+
+    /**
+     * Returns the number of solves of a node that did not converge
+     *
+     * @param node Node index
+     * @return Number of convergence failures
+     */
+    public synchronized int failures(int node) {
+        return node < nodeFailures.length ? nodeFailures[node] : 0;
+    }
+
+    /**
+     * Returns the greatest absolute energy equation residual of a node, or
+     * <code>NaN</code> if any solve of the node ended with a non-finite residual
+     *
+     * @param node Node index
+     * @return Maximum absolute residual
+     */
+    public synchronized double maxResidual(int node) {
+        return node < nodeMaxResidual.length ? nodeMaxResidual[node] : 0;
+    }
+
+    /**
+     * Returns the total wall time spent solving a node, in nanoseconds
+     *
+     * @param node Node index
+     * @return Wall time
+     */
+    public synchronized long nanos(int node) {
+        return node < nodeNanos.length ? nodeNanos[node] : 0;
+    }
+
+    /**
+     * Returns the total number of convergence failures of all nodes
+     *
+     * @return Number of convergence failures
+     */
+    public synchronized int failures() {
+        int failures = 0;
+        for (int f : nodeFailures)
+            failures += f;
+        return failures;
+    }
+
+    /**
+     * Returns the index of the node with the greatest total wall time, or -1 if no
+     * nodes were solved
+     *
+     * @return Index of the slowest node
+     */
+    public synchronized int slowestNode() {
+        int slowest = -1;
+        for (int i = 0; i < nodeNanos.length; i++) {
+            if (nodeSolves[i] > 0 && (slowest < 0 || nodeNanos[i] > nodeNanos[slowest]))
+                slowest = i;
+        }
+        return slowest;
+    }
+
+    /**
+     * Returns the number of solved plans and batches
+     *
+     * @return Number of plans
+     */
+    public synchronized int plans() {
+        return plans;
+    }
+
+    /**
+     * Returns the total wall time spent solving plans, in nanoseconds
+     *
+     * @return Wall time
+     */
+    public synchronized long planNanos() {
+        return planNanos;
+    }
+
+    /**
+     * Returns the number of computed normal elevations
+     *
+     * @return Number of normal elevations
+     */
+    public synchronized int normalElevations() {
+        return normalElevations;
+    }
+
+    /**
+     * Returns the total number of iterations of all normal elevation
+     * computations
+     *
+     * @return Number of iterations
+     */
+    public synchronized long normalElevationIterations() {
+        return normalElevationIterations;
+    }
+
+    /**
+     * Returns the number of normal elevation computations that did not converge
+     *
+     * @return Number of convergence failures
+     */
+    public synchronized int normalElevationFailures() {
+        return normalElevationFailures;
+    }
+
+    /**
+     * Returns the total wall time spent computing normal elevations, in
+     * nanoseconds
+     *
+     * @return Wall time
+     */
+    public synchronized long normalElevationNanos() {
+        return normalElevationNanos;
+    }
+
+    /**
+     * Clears all statistics
+     */
+    public synchronized void reset() {
+        grow(0);
+        plans = 0;
+        planNanos = 0;
+        normalElevations = 0;
+        normalElevationIterations = 0;
+        normalElevationFailures = 0;
+        normalElevationNanos = 0;
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.mmdski.codling;
+
+/**
+ * Solution of a batch of steady state profiles from the standard step method
+ * <p>
+ * Water surface elevation and discharge are stored in columnar arrays with all
+ * profiles of a node stored next to each other. The thalweg elevation is
+ * shared by all profiles.
+ */
+public class StandardStepBatchSolution {
+
+    private int nProfiles;
+    private double[] wse; // wse[node * nProfiles + profile]
+    private double[] thalweg;
+    private double[] q; // q[node * nProfiles + profile]
+
+    /**
+     * Construct a batch solution from columnar arrays
+     * <p>
+     * The solution takes ownership of the arrays; they are not copied.
+     */
+    StandardStepBatchSolution(int nProfiles, double[] wsElevation, double[] thalwegElevation, double[] discharge) {
+        this.nProfiles = nProfiles;
+        this.wse = wsElevation;
+        this.thalweg = thalwegElevation;
+        this.q = discharge;
+    }
+
+    /**
+     * Returns the number of nodes in each profile
+     *
+     * @return Number of nodes
+     */
+    public int length() {
+        return thalweg.length;
+    }
+
+    /**
+     * Returns the number of profiles in this solution
+     *
+     * @return Number of profiles
+     */
+    public int profiles() {
+        return nProfiles;
+    }
+
+    /**
+     * Returns the discharge of a profile at a node
+     *
+     * @param profile Profile index
+     * @param node    Node index
+     *
+     * @return Discharge
+     */
+    public double discharge(int profile, int node) {
+        return q[index(profile, node)];
+    }
+
+    /**
+     * Returns the water surface elevation of a profile at a node
+     *
+     * @param profile Profile index
+     * @param node    Node index
+     *
+     * @return Water surface elevation
+     */
+    public double wsElevation(int profile, int node) {
+        return wse[index(profile, node)];
+    }
+
+    /**
+     * Returns an array containing the water surface elevation for each node of a
+     * profile
+     *
+     * @param profile Profile index
+     *
+     * @return Water surface elevation array
+     */
+    public double[] wsElevation(int profile) {
+        return column(wse, profile);
+    }
+
+    /**
+     * Returns an array containing the discharge for each node of a profile
+     *
+     * @param profile Profile index
+     *
+     * @return Discharge array
+     */
+    public double[] discharge(int profile) {
+        return column(q, profile);
+    }
+
+    /**
+     * Returns an array containing the thalweg elevation for each node
+     *
+     * @return Thalweg elevation array
+     */
+    public double[] thalwegElevation() {
+        int n = thalweg.length;
+        double[] thalwegElevation = new double[n];
+        for (int i = 0; i < n; i++)
+            thalwegElevation[i] = thalweg[i];
+        return thalwegElevation;
+    }
+
+    /**
+     * Returns a single profile of this batch as a standard step solution
+     *
+     * @param profile Profile index
+     *
+     * @return Standard step solution of the profile
+     */
+    public StandardStepSolution solution(int profile) {
+        return StandardStepSolution.adopt(wsElevation(profile), thalweg, discharge(profile));
+    }
+
+    private int index(int profile, int node) {
+
+        if (profile < 0 || profile >= nProfiles)
+            throw new ArrayIndexOutOfBoundsException();
+
+        if (node < 0 || node >= thalweg.length)
+            throw new ArrayIndexOutOfBoundsException();
+
+        return node * nProfiles + profile;
+    }
+
+    private double[] column(double[] values, int profile) {
+
+        if (profile < 0 || profile >= nProfiles)
+            throw new ArrayIndexOutOfBoundsException();
+
+        int n = thalweg.length;
+        double[] column = new double[n];
+        for (int i = 0; i < n; i++)
+            column[i] = values[i * nProfiles + profile];
+        return column;
+    }
+}
@@ -1,7 +1,13 @@
 package io.github.mmdski.codling;
 
+import java.nio.DoubleBuffer;
+
 /**
  * Solution from the standard step method
+ * <p>
+ * Standard step solutions are immutable. The array accessors return copies;
+ * the view accessors return read-only buffers that share storage with the
+ * solution.
  */
 public class StandardStepSolution {
 
@@ -47,6 +53,30 @@ public class StandardStepSolution {
 
     }
 
+    private StandardStepSolution() {
+    }
+
+    /*
+     * construct a solution that takes ownership of the arrays without copying
+     * them. used by solvers for arrays that aren't referenced elsewhere
+     */
+    static StandardStepSolution adopt(double[] wsElevation, double[] thalwegElevation, double[] discharge) {
+        StandardStepSolution solution = new StandardStepSolution();
+        solution.wse = wsElevation;
+        solution.thalweg = thalwegElevation;
+        solution.q = discharge;
+        return solution;
+    }
+
+    /**
+     * Returns the number of nodes in this solution
+     *
+     * @return Number of nodes
+     */
+    public int length() {
+        return wse.length;
+    }
+
     /**
      * Returns an array containing the discharge for each node in the solution
      *
@@ -88,4 +118,32 @@ public class StandardStepSolution {
         return wsElevation;
     }
 
+    /**
+     * Returns a read-only view of the discharge for each node in the solution
+     *
+     * @return Read-only discharge
+     */
+    public DoubleBuffer dischargeView() {
+        return DoubleBuffer.wrap(q).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the thalweg elevation for each node in the
+     * solution
+     *
+     * @return Read-only thalweg elevation
+     */
+    public DoubleBuffer thalwegElevationView() {
+        return DoubleBuffer.wrap(thalweg).asReadOnlyBuffer();
+    }
+
+    /**
+     * Returns a read-only view of the water surface elevation for each node in the
+     * solution
+     *
+     * @return Read-only water surface elevation
+     */
+    public DoubleBuffer wsElevationView() {
+        return DoubleBuffer.wrap(wse).asReadOnlyBuffer();
+    }
 }
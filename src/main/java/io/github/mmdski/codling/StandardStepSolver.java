@@ -1,51 +1,106 @@
 package io.github.mmdski.codling;
 
+import java.util.function.IntToDoubleFunction;
+
 import io.github.mmdski.codling.ReachNodeProperties.Property;
 
 /**
  * Standard step solution for steady-state hydraulics
+ * <p>
+ * Solver workspaces are created per call, so a standard step solver may be
+ * shared between threads solving plans concurrently, provided its listener, if
+ * any, is thread-safe.
  */
 public class StandardStepSolver {
 
-    private int maxIterations;
-    private double eps;
+    private final RootFinder rootFinder;
+    private final SolverListener listener;
 
     private class StandardStepSolvable implements SecantSolvable {
 
-        private int i1, i2; // index 1 and index 2
+        private ReachNode node1, node2; // node 1 (known) and node 2 (solved)
         private double q1, q2, wse1; // node 1 discharge, node 2 discharge, water surface elevation 1
-        Reach reach;
-
-        public StandardStepSolvable(Reach reach, int node, int direction, double[] q, double[] wse) {
-            i1 = node - 1 * direction;
-            i2 = node;
-            q1 = q[i1];
-            q2 = q[i2];
-            wse1 = wse[i1];
-            this.reach = reach;
+        private double first; // first iteration of node 2 elevation
+        private ReachNodeProperties p1, p2; // reusable node property holders
+
+        /* known side of the step, computed once per step */
+        private double x1, sf1, vh1;
+
+        /* node 2 properties and residual at the last evaluated elevation */
+        private double lastElevation = Double.NaN;
+        private double lastResidual;
+        private double x2, sf2, vh2;
+
+        public StandardStepSolvable() {
+            p1 = new ReachNodeProperties();
+            p2 = new ReachNodeProperties();
+        }
+
+        /*
+         * point this solvable at the step from node1 to node2. the solvable is reused
+         * for every node in a plan so that no objects are allocated per secant
+         * iteration.
+         *
+         * the known side properties are computed here, once per step. when the
+         * previous step solved node1 for the same discharge and its last evaluated
+         * elevation is wse1, the properties computed in that evaluation are carried
+         * forward instead
+         */
+        public void setStep(ReachNode node1, ReachNode node2, double q1, double q2, double wse1) {
+
+            if (node1 == this.node2 && q1 == this.q2 && wse1 == lastElevation) {
+                x1 = x2;
+                sf1 = sf2;
+                vh1 = vh2;
+            } else {
+                node1.properties(q1, wse1, p1);
+                x1 = p1.value(Property.X);
+                sf1 = p1.value(Property.FRICTION_SLOPE);
+                vh1 = p1.value(Property.VELOCITY_HEAD);
+            }
+
+            this.node1 = node1;
+            this.node2 = node2;
+            this.q1 = q1;
+            this.q2 = q2;
+            this.wse1 = wse1;
+            first = wse1;
+            lastElevation = Double.NaN;
+        }
+
+        /*
+         * start the next solve from elevation instead of wse1
+         */
+        public void seed(double elevation) {
+            first = elevation;
         }
 
         public double firstIteration() {
-            return wse1;
+            return first;
         }
 
         public double secondIteration() {
-            return wse1 + 0.7 * solverFunction(wse1);
+            return first + 0.7 * solverFunction(first);
         }
 
         public double solverFunction(double elevation) {
-            double x1, x2; // channel distance
-            double sf1, sf2, sf; // friction slope
-            double vh1, vh2; // velocity head
+
+            /* root finders evaluate the first iteration again after the second */
+            if (elevation == lastElevation)
+                return lastResidual;
+
+            /*
+             * an iterate at or below the thalweg has no flow area. its residual is NaN,
+             * which root finders report as no solution found
+             */
+            if (!(elevation > node2.thalweg()))
+                return Double.NaN;
+
+            double sf; // friction slope
             double he; // head loss
             double wsComputed; // computed water surface
 
-            ReachNodeProperties p1 = reach.nodeProperties(i1, q1, wse1);
-            x1 = p1.value(Property.X);
-            sf1 = p1.value(Property.FRICTION_SLOPE);
-            vh1 = p1.value(Property.VELOCITY_HEAD);
-
-            ReachNodeProperties p2 = reach.nodeProperties(i2, q2, elevation);
+            node2.properties(q2, elevation, p2);
             x2 = p2.value(Property.X);
             sf2 = p2.value(Property.FRICTION_SLOPE);
             vh2 = p2.value(Property.VELOCITY_HEAD);
@@ -55,7 +110,10 @@ public class StandardStepSolver {
 
             wsComputed = wse1 + vh1 - vh2 - he;
 
-            return wsComputed - elevation;
+            lastElevation = elevation;
+            lastResidual = wsComputed - elevation;
+
+            return lastResidual;
         }
     }
 
@@ -66,8 +124,7 @@ public class StandardStepSolver {
      * maximum iterations (20) and epsilon (0.003) values.
      */
     public StandardStepSolver() {
-        maxIterations = 20;
-        eps = 0.003;
+        this(20, 0.003);
     }
 
     /**
@@ -87,8 +144,42 @@ public class StandardStepSolver {
         if (eps < 0)
             throw new IllegalArgumentException();
 
-        this.maxIterations = maxIterations;
-        this.eps = eps;
+        rootFinder = new SecantSolver(maxIterations, eps);
+        listener = null;
+    }
+
+    /**
+     * Construct a new standard step solver, specifying the root finder used to
+     * find water surface elevations
+     * <p>
+     * A bracketing root finder such as {@link BrentSolver} bounds the number of
+     * energy equation evaluations per node, at the cost of a few more evaluations
+     * than the secant method for well behaved steps.
+     *
+     * @param rootFinder Root finder used to find water surface elevations
+     */
+    public StandardStepSolver(RootFinder rootFinder) {
+        this(rootFinder, null);
+    }
+
+    /**
+     * Construct a new standard step solver, specifying the root finder used to
+     * find water surface elevations and a listener notified of convergence and
+     * timing events
+     * <p>
+     * The listener is notified after each node and plan is solved. A
+     * <code>null</code> listener disables instrumentation.
+     *
+     * @param rootFinder Root finder used to find water surface elevations
+     * @param listener   Listener notified of solver events, or <code>null</code>
+     */
+    public StandardStepSolver(RootFinder rootFinder, SolverListener listener) {
+
+        if (rootFinder == null)
+            throw new IllegalArgumentException();
+
+        this.rootFinder = rootFinder;
+        this.listener = listener;
     }
 
     /**
@@ -123,17 +214,447 @@ public class StandardStepSolver {
 
         wsElevation[bcNode] = plan.bcElevation();
 
-        SecantSolver solver = new SecantSolver(maxIterations, eps);
-        SecantSolution solution;
-        StandardStepSolvable solvable;
+        march(reach, discharge, wsElevation, bcNode + solutionDirection, solutionDirection, lastNode, null, 0, 0,
+                null);
+
+        return StandardStepSolution.adopt(wsElevation, thalwegElevation, discharge);
+    }
+
+    /**
+     * Solve a steady state hydraulic profile starting from a prior solution
+     * <p>
+     * The solve at each node starts from the water surface elevation of
+     * <code>prior</code> at that node instead of the elevation of the previously
+     * solved node. When consecutive plans differ only slightly, as in
+     * quasi-steady sweeps and calibration loops, each node converges in fewer
+     * iterations. Prior elevations that are not above the thalweg of their node
+     * are not used.
+     *
+     * @param reach Reach
+     * @param plan  Steady state plan
+     * @param prior Prior solution with the same length as <code>reach</code>
+     * @return Standard step solution
+     */
+    public StandardStepSolution solvePlan(Reach reach, SteadyPlan plan, StandardStepSolution prior) {
+
+        int n = reach.length();
+
+        if (plan == null || prior == null)
+            throw new IllegalArgumentException();
+
+        if (n != plan.length() || n != prior.length())
+            throw new IllegalArgumentException();
+
+        double[] discharge = new double[n];
+        double[] wsElevation = new double[n];
+        double[] thalwegElevation = reach.thalweg();
+
+        int solutionDirection = plan.solutionDirection();
+        int bcNode = plan.bcNode();
+        int lastNode = n - 1 - bcNode;
+
+        for (int i = 0; i < n; i++)
+            discharge[i] = plan.discharge(i);
+
+        wsElevation[bcNode] = plan.bcElevation();
+
+        march(reach, discharge, wsElevation, bcNode + solutionDirection, solutionDirection, lastNode, null, 0, 0,
+                prior.wsElevation());
+
+        return StandardStepSolution.adopt(wsElevation, thalwegElevation, discharge);
+    }
+
+    /**
+     * Solve a steady state hydraulic profile, streaming node results to
+     * <code>consumer</code>
+     * <p>
+     * Each node is passed to <code>consumer</code> as soon as it is solved,
+     * starting with the boundary condition node and continuing in the solution
+     * direction. Only the last solved elevation is kept, so no arrays the length
+     * of the reach are allocated.
+     *
+     * @param reach    Reach
+     * @param plan     Steady state plan
+     * @param consumer Consumer of node results
+     */
+    public void solvePlan(Reach reach, SteadyPlan plan, NodeSolutionConsumer consumer) {
+
+        int n = reach.length();
+
+        if (plan == null || consumer == null)
+            throw new IllegalArgumentException();
+
+        if (n != plan.length())
+            throw new IllegalArgumentException();
+
+        int solutionDirection = plan.solutionDirection();
+        int bcNode = plan.bcNode();
+        double bcElevation = plan.bcElevation();
+
+        consumer.accept(bcNode, plan.discharge(bcNode), reach.reachNodes[bcNode].thalweg(), bcElevation);
+
+        march(reach, plan::discharge, bcElevation, bcNode + solutionDirection, solutionDirection, n - 1 - bcNode,
+                null, 0, 0, null, consumer);
+    }
+
+    /**
+     * Re-solve a steady state hydraulic profile after the geometry of one node
+     * changed
+     * <p>
+     * <code>reach</code> is the edited reach, for example from
+     * {@link Reach#withNode(int, double, io.github.mmdski.codling.crosssection.CrossSection)},
+     * and <code>previous</code> is the solution of <code>plan</code> on the reach
+     * before the edit. Since the standard step method marches away from the
+     * boundary condition, only the changed node and the nodes after it in the
+     * solution direction are recomputed. Nodes before the changed node are copied
+     * from <code>previous</code>.
+     * <p>
+     * Once a node after the changed node is within <code>tolerance</code> of its
+     * previous elevation, the new profile has re-converged with the old one and
+     * the remaining elevations are copied from <code>previous</code>. With a
+     * tolerance of 0, the march stops early only on exact agreement.
+     *
+     * @param reach       Reach, after the edit
+     * @param plan        Steady state plan solved for <code>previous</code>
+     * @param previous    Solution of <code>plan</code> before the edit
+     * @param changedNode Index of the edited node
+     * @param tolerance   Water surface elevation difference at which the new
+     *                    profile is considered re-converged with
+     *                    <code>previous</code>
+     * @return Standard step solution
+     */
+    public StandardStepSolution resolvePlan(Reach reach, SteadyPlan plan, StandardStepSolution previous,
+            int changedNode, double tolerance) {
+
+        if (reach == null || plan == null || previous == null)
+            throw new IllegalArgumentException();
+
+        int n = reach.length();
+
+        if (n != plan.length() || n != previous.length())
+            throw new IllegalArgumentException();
+
+        if (changedNode < 0 || changedNode >= n)
+            throw new IllegalArgumentException();
+
+        if (!(tolerance >= 0))
+            throw new IllegalArgumentException();
+
+        double[] discharge = new double[n];
+        double[] previousElevation = previous.wsElevation();
+        double[] wsElevation = previous.wsElevation();
+        double[] thalwegElevation = reach.thalweg();
+
+        int solutionDirection = plan.solutionDirection();
+        int bcNode = plan.bcNode();
+        int lastNode = n - 1 - bcNode;
+
+        for (int i = 0; i < n; i++)
+            discharge[i] = plan.discharge(i);
+
+        wsElevation[bcNode] = plan.bcElevation();
+
+        /* the boundary node elevation doesn't depend on geometry, start after it */
+        int start = changedNode == bcNode ? bcNode + solutionDirection : changedNode;
+
+        march(reach, discharge, wsElevation, start, solutionDirection, lastNode, previousElevation, changedNode,
+                tolerance, null);
+
+        return StandardStepSolution.adopt(wsElevation, thalwegElevation, discharge);
+    }
+
+    /*
+     * solve a profile in place, without allocating arrays. wsElevation holds the
+     * boundary elevation at bcNode. if seed isn't null, the solve at each node
+     * starts from its seed elevation instead of the elevation of the known node
+     */
+    void solveProfile(Reach reach, double[] discharge, double[] wsElevation, int bcNode, int solutionDirection,
+            double[] seed) {
+        march(reach, discharge, wsElevation, bcNode + solutionDirection, solutionDirection,
+                reach.length() - 1 - bcNode, null, 0, 0, seed);
+    }
+
+    /*
+     * solve nodes start through lastNode in the solution direction. if previous is
+     * not null, stop once a node after changedNode is within tolerance of previous,
+     * leaving the remaining elevations as they are. if seed is not null, start
+     * the solve at each node from its seed elevation, if it is above the thalweg
+     */
+    private void march(Reach reach, double[] discharge, double[] wsElevation, int start, int solutionDirection,
+            int lastNode, double[] previous, int changedNode, double tolerance, double[] seed) {
+        march(reach, i -> discharge[i], wsElevation[start - solutionDirection], start, solutionDirection, lastNode,
+                previous, changedNode, tolerance, seed, (i, q, thalweg, wse) -> wsElevation[i] = wse);
+    }
+
+    /*
+     * march from the known elevation wse1 of the node before start, passing each
+     * solved node to consumer. only the last solved elevation is kept
+     */
+    private void march(Reach reach, IntToDoubleFunction discharge, double wse1, int start, int solutionDirection,
+            int lastNode, double[] previous, int changedNode, double tolerance, double[] seed,
+            NodeSolutionConsumer consumer) {
+
+        RootFinder solver = rootFinder;
+        SecantSolution solution = new SecantSolution();
+        StandardStepSolvable solvable = new StandardStepSolvable();
+        ReachNode[] nodes = reach.reachNodes;
+        double q1 = discharge.applyAsDouble(start - solutionDirection);
+        double q2;
+
+        /* the boundary node counts as solved when the march starts from it */
+        int solved = start - solutionDirection == reach.length() - 1 - lastNode ? 1 : 0;
+
+        SolverListener listener = this.listener;
+        long planStart = listener == null ? 0 : System.nanoTime();
+        long nodeStart = 0;
+
+        for (int i = start; solutionDirection * i <= lastNode; i = i + solutionDirection) {
+            if (listener != null)
+                nodeStart = System.nanoTime();
+            q2 = discharge.applyAsDouble(i);
+            solvable.setStep(nodes[i - solutionDirection], nodes[i], q1, q2, wse1);
+            if (seed != null && seed[i] > nodes[i].thalweg())
+                solvable.seed(seed[i]);
+            solver.solve(solvable, solution);
+            solved++;
+            if (listener != null)
+                listener.nodeSolved(i, solution.iterations(), solution.solutionFound(), solution.residual(),
+                        System.nanoTime() - nodeStart);
+
+            if (previous != null && solutionDirection * (i - changedNode) > 0
+                    && Math.abs(solution.solution() - previous[i]) <= tolerance)
+                break;
+
+            q1 = q2;
+            wse1 = solution.solution();
+            consumer.accept(i, q1, nodes[i].thalweg(), wse1);
+        }
+
+        if (listener != null)
+            listener.planSolved(solved, System.nanoTime() - planStart);
+    }
+
+    /*
+     * solve all nodes after bcNode in the solution direction, keeping elevations
+     * on one side of critical. profiles solved upstream are subcritical and
+     * profiles solved downstream are supercritical. elevations that aren't found
+     * or that are on the wrong side of critical are set to critical and flagged
+     * in atCritical, and marching continues from critical. the listener is told
+     * that no solution was found at nodes set to critical
+     */
+    void marchRegime(Reach reach, double[] discharge, double[] wsElevation, double[] critical,
+            boolean[] atCritical, int bcNode, int solutionDirection) {
+
+        RootFinder solver = rootFinder;
+        SecantSolution solution = new SecantSolution();
+        StandardStepSolvable solvable = new StandardStepSolvable();
+        int lastNode = reach.length() - 1 - bcNode;
+        ReachNode[] nodes = reach.reachNodes;
+        int j; // index of the known node
+        boolean found;
+
+        SolverListener listener = this.listener;
+        long planStart = listener == null ? 0 : System.nanoTime();
+        long nodeStart = 0;
+
+        atCritical[bcNode] = clampToCritical(wsElevation, critical, bcNode, solutionDirection, true);
 
         for (int i = bcNode + solutionDirection; solutionDirection * i <= lastNode; i = i + solutionDirection) {
-            solvable = new StandardStepSolvable(reach, i, solutionDirection, discharge, wsElevation);
-            solution = solver.solve(solvable);
+            j = i - solutionDirection;
+            if (listener != null)
+                nodeStart = System.nanoTime();
+
+            /*
+             * supercritical steps start from the depth of the known node, since starting
+             * from its elevation on a steep slope tends to find the subcritical root
+             */
+            solvable.setStep(nodes[j], nodes[i], discharge[j], discharge[i], wsElevation[j]);
+            if (solutionDirection > 0)
+                solvable.seed(wsElevation[j] - nodes[j].thalweg() + nodes[i].thalweg());
+
+            solver.solve(solvable, solution);
             wsElevation[i] = solution.solution();
+            found = solution.solutionFound();
+
+            atCritical[i] = clampToCritical(wsElevation, critical, i, solutionDirection, found);
+            if (listener != null)
+                listener.nodeSolved(i, solution.iterations(), !atCritical[i], solution.residual(),
+                        System.nanoTime() - nodeStart);
         }
 
-        return new StandardStepSolution(wsElevation, thalwegElevation, discharge);
+        if (listener != null)
+            listener.planSolved(reach.length(), System.nanoTime() - planStart);
+    }
+
+    /*
+     * set elevation i to critical if it wasn't found or is on the wrong side of
+     * critical for the solution direction. returns true if the elevation was set
+     */
+    private static boolean clampToCritical(double[] wsElevation, double[] critical, int i, int solutionDirection,
+            boolean found) {
+
+        /* subcritical elevations are above critical, supercritical below */
+        boolean wrongSide = solutionDirection < 0 ? wsElevation[i] < critical[i] : wsElevation[i] > critical[i];
+
+        if (!found || wrongSide) {
+            wsElevation[i] = critical[i];
+            return true;
+        }
+
+        return false;
+    }
+
+    /*
+     * solve a single step from known node1 to node2. used for steps between
+     * nodes of different reaches, such as across a junction. the step is reported
+     * to the listener as node. returns NaN if no solution was found
+     */
+    double solveStep(ReachNode node1, ReachNode node2, double q1, double q2, double wse1, int node) {
+
+        SecantSolution solution = new SecantSolution();
+        StandardStepSolvable solvable = new StandardStepSolvable();
+
+        SolverListener listener = this.listener;
+        long nodeStart = listener == null ? 0 : System.nanoTime();
+
+        solvable.setStep(node1, node2, q1, q2, wse1);
+        rootFinder.solve(solvable, solution);
+
+        if (listener != null)
+            listener.nodeSolved(node, solution.iterations(), solution.solutionFound(), solution.residual(),
+                    System.nanoTime() - nodeStart);
+
+        return solution.solutionFound() ? solution.solution() : Double.NaN;
+    }
+
+    /**
+     * Solve a batch of steady state hydraulic profiles on the same reach
+     * <p>
+     * All plans are marched together node by node. Each profile keeps its own
+     * step workspace, so the known side of each step is carried forward from the
+     * previous node as in {@link #solvePlan(Reach, SteadyPlan)}. Profiles that
+     * have the same boundary elevation and discharges as an earlier profile,
+     * from the boundary up to a node, have the same elevations there, so those
+     * nodes are copied instead of solved. Plans that differ only away from the
+     * boundary, such as inflow scenarios on an upstream tributary, share the
+     * solution of their common part. All plans must have the same boundary
+     * condition location and the same length as <code>reach</code>.
+     *
+     * @param reach Reach
+     * @param plans Steady state plans
+     * @return Batch standard step solution with one profile per plan, in the
+     *         order of <code>plans</code>
+     */
+    public StandardStepBatchSolution solvePlans(Reach reach, SteadyPlan[] plans) {
+
+        if (reach == null || plans == null)
+            throw new IllegalArgumentException();
+
+        int n = reach.length();
+        int nProfiles = plans.length;
+
+        if (nProfiles < 1)
+            throw new IllegalArgumentException();
+
+        for (SteadyPlan plan : plans) {
+            if (plan == null)
+                throw new IllegalArgumentException();
+            if (plan.length() != n)
+                throw new IllegalArgumentException();
+            if (plan.bcLocation() != plans[0].bcLocation())
+                throw new IllegalArgumentException();
+        }
+
+        /* columnar storage, element (node i, profile p) is at i * nProfiles + p */
+        double[] discharge = new double[n * nProfiles];
+        double[] wsElevation = new double[n * nProfiles];
+
+        int solutionDirection = plans[0].solutionDirection();
+        int bcNode = plans[0].bcNode();
+        int lastNode = n - 1 - bcNode;
+
+        for (int i = 0; i < n; i++)
+            for (int p = 0; p < nProfiles; p++)
+                discharge[i * nProfiles + p] = plans[p].discharge(i);
+
+        for (int p = 0; p < nProfiles; p++)
+            wsElevation[bcNode * nProfiles + p] = plans[p].bcElevation();
+
+        RootFinder solver = rootFinder;
+        SecantSolution solution = new SecantSolution();
+        StandardStepSolvable[] solvables = new StandardStepSolvable[nProfiles];
+        ReachNode[] nodes = reach.reachNodes;
+        int j; // index of the known node
+        int k; // column index of node i, profile p
+
+        /*
+         * same[p] is the first profile with the same boundary elevation and
+         * discharges as profile p through the known node, or -1 if there is none.
+         * profiles with same[p] == -1 are solved, the others copied
+         */
+        int[] same = new int[nProfiles];
+        int[] next = new int[nProfiles];
+        int[] swap;
+
+        for (int p = 0; p < nProfiles; p++) {
+            solvables[p] = new StandardStepSolvable();
+            same[p] = -1;
+            k = bcNode * nProfiles;
+            for (int r = 0; r < p; r++) {
+                if (same[r] == -1 && discharge[k + r] == discharge[k + p] && wsElevation[k + r] == wsElevation[k + p]) {
+                    same[p] = r;
+                    break;
+                }
+            }
+        }
+
+        SolverListener listener = this.listener;
+        long planStart = listener == null ? 0 : System.nanoTime();
+        long nodeStart = 0;
+        int solved = nProfiles; // boundary nodes
+
+        for (int i = bcNode + solutionDirection; solutionDirection * i <= lastNode; i = i + solutionDirection) {
+            j = i - solutionDirection;
+            for (int p = 0; p < nProfiles; p++) {
+                k = i * nProfiles;
+
+                /* the first profile of the same group with the same discharge here */
+                int g = same[p];
+                next[p] = -1;
+                if (g >= 0) {
+                    for (int r = g; r < p; r++) {
+                        if ((r == g || same[r] == g) && discharge[k + r] == discharge[k + p]) {
+                            next[p] = r;
+                            break;
+                        }
+                    }
+                }
+
+                if (next[p] >= 0) {
+                    wsElevation[k + p] = wsElevation[k + next[p]];
+                    continue;
+                }
+
+                if (listener != null)
+                    nodeStart = System.nanoTime();
+                solvables[p].setStep(nodes[j], nodes[i], discharge[j * nProfiles + p], discharge[k + p],
+                        wsElevation[j * nProfiles + p]);
+                solver.solve(solvables[p], solution);
+                wsElevation[k + p] = solution.solution();
+                solved++;
+                if (listener != null)
+                    listener.nodeSolved(i, solution.iterations(), solution.solutionFound(), solution.residual(),
+                            System.nanoTime() - nodeStart);
+            }
+            swap = same;
+            same = next;
+            next = swap;
+        }
+
+        if (listener != null)
+            listener.planSolved(solved, System.nanoTime() - planStart);
+
+        return new StandardStepBatchSolution(nProfiles, wsElevation, reach.thalweg(), discharge);
     }
 
 }
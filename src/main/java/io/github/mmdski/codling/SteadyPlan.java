@@ -4,6 +4,9 @@ package io.github.mmdski.codling;
  * Steady state plan
  * <p>
  * A steady state plan includes information for a steady state solution
+ * <p>
+ * The boundary condition is evaluated once, when the plan is constructed. A
+ * plan is immutable after construction and may be shared between threads.
  */
 public class SteadyPlan {
 
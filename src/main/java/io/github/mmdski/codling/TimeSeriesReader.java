@@ -0,0 +1,173 @@
+package io.github.mmdski.codling;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reader of chunked binary time series files
+ * <p>
+ * Records are read one chunk at a time, and the last chunk read is kept, so
+ * reading records in order reads each chunk once. Only one chunk is held in
+ * memory.
+ * <p>
+ * Time series readers are not thread-safe.
+ *
+ * @see TimeSeriesWriter
+ */
+public class TimeSeriesReader implements Closeable {
+
+    private final FileChannel channel;
+    private final int nodes;
+    private final int chunkRecords;
+    private final long records;
+    private final ByteBuffer chunk;
+    private long loaded = -1; // index of the chunk in the buffer
+
+    /**
+     * Open a time series file
+     *
+     * @param path Path of the file
+     * @throws IOException if the file can't be read or is not a time series file
+     */
+    public TimeSeriesReader(Path path) throws IOException {
+
+        if (path == null)
+            throw new IllegalArgumentException();
+
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(TimeSeriesWriter.HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            read(header, 0);
+
+            if (header.getInt(0) != TimeSeriesWriter.MAGIC)
+                throw new IOException("not a time series file");
+
+            if (header.getInt(4) != TimeSeriesWriter.VERSION)
+                throw new IOException("unsupported time series file version");
+
+            nodes = header.getInt(8);
+            chunkRecords = header.getInt(12);
+            records = header.getLong(TimeSeriesWriter.RECORDS_OFFSET);
+
+            long chunkBytes = TimeSeriesWriter.chunkBytes(nodes, chunkRecords);
+
+            if (nodes < 1 || chunkRecords < 1 || records < 0 || chunkBytes > Integer.MAX_VALUE)
+                throw new IOException("invalid time series file header");
+
+            long chunks = (records + chunkRecords - 1) / chunkRecords;
+            if (channel.size() < TimeSeriesWriter.HEADER_BYTES + chunks * chunkBytes)
+                throw new IOException("truncated time series file");
+
+            chunk = ByteBuffer.allocateDirect((int) chunkBytes).order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private void read(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0)
+                throw new IOException("truncated time series file");
+            position += n;
+        }
+    }
+
+    /**
+     * Returns the number of nodes of each record
+     *
+     * @return Number of nodes
+     */
+    public int nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of records in this file
+     *
+     * @return Number of records
+     */
+    public long records() {
+        return records;
+    }
+
+    /*
+     * load the chunk containing a record, returning the index of the record in
+     * the chunk
+     */
+    private int load(long record) throws IOException {
+
+        if (record < 0 || record >= records)
+            throw new IndexOutOfBoundsException();
+
+        long index = record / chunkRecords;
+
+        if (index != loaded) {
+            loaded = -1;
+            chunk.clear();
+            read(chunk, TimeSeriesWriter.HEADER_BYTES + index * chunk.capacity());
+            loaded = index;
+        }
+
+        return (int) (record - index * chunkRecords);
+    }
+
+    /**
+     * Returns the time of a record
+     *
+     * @param record Record index
+     * @return Time
+     * @throws IOException if the file can't be read
+     */
+    public double time(long record) throws IOException {
+        return chunk.getDouble(8 * load(record));
+    }
+
+    /**
+     * Read a record
+     *
+     * @param record      Record index
+     * @param discharge   Array to write the discharge at each node into
+     * @param wsElevation Array to write the water surface elevation at each node
+     *                    into
+     * @return Time of the record
+     * @throws IOException if the file can't be read
+     */
+    public double read(long record, double[] discharge, double[] wsElevation) throws IOException {
+
+        if (discharge == null || wsElevation == null)
+            throw new IllegalArgumentException();
+
+        if (discharge.length != nodes || wsElevation.length != nodes)
+            throw new IllegalArgumentException();
+
+        int r = load(record);
+        int k = chunkRecords;
+        int qStart = 8 * (k + r * nodes);
+        int hStart = 8 * (k + k * nodes + r * nodes);
+
+        for (int i = 0; i < nodes; i++) {
+            discharge[i] = chunk.getDouble(qStart + 8 * i);
+            wsElevation[i] = chunk.getDouble(hStart + 8 * i);
+        }
+
+        return chunk.getDouble(8 * r);
+    }
+
+    /**
+     * Close this file
+     *
+     * @throws IOException if the file can't be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,231 @@
+package io.github.mmdski.codling;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writer of chunked binary time series files
+ * <p>
+ * A time series file stores the discharge and water surface elevation at each
+ * node of a reach for a sequence of times. Values are little-endian and are
+ * grouped into fixed size chunks of records:
+ * <ul>
+ * <li>header, 32 bytes: magic number, format version, number of nodes
+ * <i>n</i>, records per chunk <i>k</i> (four <code>int</code> values) and the
+ * number of records (a <code>long</code> value), followed by 8 reserved
+ * bytes</li>
+ * <li>chunks of <i>k</i> records, each with the time of each record (<i>k</i>
+ * <code>double</code> values), then the discharge and then the water surface
+ * elevation of each record (<i>k</i> &times; <i>n</i> <code>double</code>
+ * values each, in record order)</li>
+ * </ul>
+ * <p>
+ * Only one chunk is held in memory, so files of any number of records may be
+ * written with bounded memory. The record count in the header is updated each
+ * time a chunk is written, so a file is readable up to its last full chunk
+ * even if it isn't closed. The last chunk is padded to full size.
+ * <p>
+ * Time series writers are not thread-safe.
+ *
+ * @see TimeSeriesReader
+ */
+public class TimeSeriesWriter implements Closeable {
+
+    /**
+     * Magic number at the start of every time series file
+     */
+    public static final int MAGIC = 0x53544343; // "CCTS" in little-endian order
+
+    /**
+     * Current format version
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Default number of records per chunk
+     */
+    public static final int DEFAULT_CHUNK_RECORDS = 1024;
+
+    static final int HEADER_BYTES = 32;
+    static final int RECORDS_OFFSET = 16;
+
+    private final FileChannel channel;
+    private final int nodes;
+    private final int chunkRecords;
+    private final ByteBuffer chunk;
+    private final ByteBuffer count;
+    private long records;
+    private int buffered; // records in the chunk buffer
+    private boolean closed;
+
+    /**
+     * Create a time series file with the default number of records per chunk
+     *
+     * @param path  Path of the file to create or replace
+     * @param nodes Number of nodes of each record
+     * @throws IOException if the file can't be created
+     */
+    public TimeSeriesWriter(Path path, int nodes) throws IOException {
+        this(path, nodes, DEFAULT_CHUNK_RECORDS);
+    }
+
+    /**
+     * Create a time series file
+     *
+     * @param path         Path of the file to create or replace
+     * @param nodes        Number of nodes of each record
+     * @param chunkRecords Number of records per chunk
+     * @throws IOException if the file can't be created
+     */
+    public TimeSeriesWriter(Path path, int nodes, int chunkRecords) throws IOException {
+
+        if (path == null || nodes < 1 || chunkRecords < 1)
+            throw new IllegalArgumentException();
+
+        long chunkBytes = chunkBytes(nodes, chunkRecords);
+
+        if (chunkBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException();
+
+        this.nodes = nodes;
+        this.chunkRecords = chunkRecords;
+        this.chunk = ByteBuffer.allocateDirect((int) chunkBytes).order(ByteOrder.LITTLE_ENDIAN);
+        this.count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(nodes).putInt(chunkRecords).putLong(0).putLong(0);
+            header.flip();
+            write(header, 0);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /*
+     * bytes of one chunk of a file with n nodes and k records per chunk
+     */
+    static long chunkBytes(int n, int k) {
+        return 8L * k * (1 + 2L * n);
+    }
+
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining())
+            position += channel.write(buffer, position);
+    }
+
+    /**
+     * Returns the number of nodes of each record
+     *
+     * @return Number of nodes
+     */
+    public int nodes() {
+        return nodes;
+    }
+
+    /**
+     * Returns the number of records appended to this file
+     *
+     * @return Number of records
+     */
+    public long records() {
+        return records + buffered;
+    }
+
+    /**
+     * Append a record
+     *
+     * @param time        Time of the record
+     * @param discharge   Discharge at each node
+     * @param wsElevation Water surface elevation at each node
+     * @throws IOException if a chunk can't be written
+     */
+    public void append(double time, double[] discharge, double[] wsElevation) throws IOException {
+
+        if (closed)
+            throw new IllegalStateException();
+
+        if (discharge == null || wsElevation == null)
+            throw new IllegalArgumentException();
+
+        if (discharge.length != nodes || wsElevation.length != nodes)
+            throw new IllegalArgumentException();
+
+        int k = chunkRecords;
+        int r = buffered;
+        int qStart = 8 * (k + r * nodes);
+        int hStart = 8 * (k + k * nodes + r * nodes);
+
+        chunk.putDouble(8 * r, time);
+        for (int i = 0; i < nodes; i++) {
+            chunk.putDouble(qStart + 8 * i, discharge[i]);
+            chunk.putDouble(hStart + 8 * i, wsElevation[i]);
+        }
+
+        if (++buffered == chunkRecords)
+            flush();
+    }
+
+    /*
+     * write the buffered chunk and the record count. only the last chunk, written
+     * on close, is partial
+     */
+    private void flush() throws IOException {
+
+        if (buffered == 0)
+            return;
+
+        /* zero the unused records of a partial chunk */
+        for (int r = buffered; r < chunkRecords; r++) {
+            chunk.putDouble(8 * r, 0);
+            for (int i = 0; i < nodes; i++) {
+                chunk.putDouble(8 * (chunkRecords + r * nodes + i), 0);
+                chunk.putDouble(8 * (chunkRecords + chunkRecords * nodes + r * nodes + i), 0);
+            }
+        }
+
+        long position = HEADER_BYTES + (records / chunkRecords) * chunkBytes(nodes, chunkRecords);
+        chunk.clear();
+        write(chunk, position);
+        chunk.clear();
+
+        records += buffered;
+        buffered = 0;
+        writeCount(records);
+    }
+
+    private void writeCount(long n) throws IOException {
+        count.clear();
+        count.putLong(0, n);
+        write(count, RECORDS_OFFSET);
+    }
+
+    /**
+     * Write any buffered records and close this file
+     *
+     * @throws IOException if the file can't be written
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (closed)
+            return;
+
+        closed = true;
+
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package io.github.mmdski.codling;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Consumer of time step results from an unsteady simulation
+ *
+ * @see UnsteadySolver#route(double[], double, ElevationBC, TimeStepConsumer)
+ */
+@FunctionalInterface
+public interface TimeStepConsumer {
+
+    /**
+     * Accept the solution at the end of a time step
+     * <p>
+     * <code>discharge</code> and <code>wsElevation</code> are read-only views of
+     * the state of the solver. They are reused for every time step and are only
+     * valid until this method returns.
+     *
+     * @param step        Time step index
+     * @param time        Simulation time at the end of the time step
+     * @param discharge   Discharge at each node
+     * @param wsElevation Water surface elevation at each node
+     */
+    public void accept(int step, double time, DoubleBuffer discharge, DoubleBuffer wsElevation);
+}
@@ -0,0 +1,479 @@
+package io.github.mmdski.codling;
+
+import java.nio.DoubleBuffer;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties.Property;
+
+/**
+ * Implicit unsteady flow solver for a reach
+ * <p>
+ * The Saint-Venant equations,
+ * <p>
+ * &part;A/&part;t + &part;Q/&part;x = 0,
+ * <p>
+ * &part;Q/&part;t + &part;(&beta;Q<sup>2</sup>/A)/&part;x + gA(&part;h/&part;x
+ * + S<sub>f</sub>) = 0,
+ * <p>
+ * are discretized on each interval between reach nodes with the Preissmann
+ * four-point scheme, centered in space and weighted by <code>theta</code> in
+ * time. The unknowns of a time step are the discharge and water surface
+ * elevation at each node. Together with a discharge boundary condition at the
+ * upstream node and an elevation boundary condition at the downstream node,
+ * the equations are solved with Newton's method. The Jacobian has two
+ * diagonals below and above the main diagonal when the unknowns are ordered by
+ * node, and is factored with a {@link BandedMatrix}.
+ * <p>
+ * The derivatives of conveyance and of the downstream boundary condition are
+ * computed with forward differences, and the velocity distribution coefficient
+ * is lagged within each Newton iteration.
+ * <p>
+ * All workspaces are allocated when the solver is constructed, so time steps
+ * don't allocate beyond any allocation done by cross sections and boundary
+ * conditions. An unsteady solver holds the state of a simulation and is not
+ * thread-safe.
+ */
+public class UnsteadySolver {
+
+    /** Default time weighting factor */
+    public static final double DEFAULT_THETA = 0.6;
+
+    private static final int DEFAULT_MAX_ITERATIONS = 20;
+    private static final double DEFAULT_TOLERANCE = 1e-6;
+
+    /* elevation increment used for the derivative of conveyance */
+    private static final double ELEVATION_INCREMENT = 1e-6;
+
+    /* relative discharge increment used for the derivative of the downstream boundary */
+    private static final double DISCHARGE_INCREMENT = 1e-6;
+
+    private final ReachNode[] nodes;
+    private final int n;
+    private final double[] dx; // interval lengths
+    private final double theta;
+    private final int maxIterations;
+    private final double tolerance;
+
+    /* state at the start of the time step */
+    private final double[] q;
+    private final double[] h;
+    private double time;
+    private boolean initialized;
+
+    /* Newton iterate */
+    private final double[] qNew;
+    private final double[] hNew;
+
+    /* node properties at the current iterate */
+    private final double[] area;
+    private final double[] topWidth;
+    private final double[] conveyance;
+    private final double[] dConveyance;
+    private final double[] beta;
+
+    /* explicit part of the interval equations */
+    private final double[] continuityOld;
+    private final double[] momentumOld;
+
+    private final BandedMatrix jacobian;
+    private final double[] rhs;
+    private final CrossSectionProperties properties = new CrossSectionProperties();
+    private final DoubleBuffer dischargeView;
+    private final DoubleBuffer wsElevationView;
+    private int iterations;
+
+    /**
+     * Construct a new unsteady solver with the default time weighting factor
+     * (0.6), maximum number of Newton iterations (20) and tolerance (1e-6)
+     *
+     * @param reach Reach
+     */
+    public UnsteadySolver(Reach reach) {
+        this(reach, DEFAULT_THETA, DEFAULT_MAX_ITERATIONS, DEFAULT_TOLERANCE);
+    }
+
+    /**
+     * Construct a new unsteady solver
+     * <p>
+     * Newton iterations stop when the change in every elevation is less than
+     * <code>tolerance</code> and the change in every discharge is less than
+     * <code>tolerance</code> relative to the discharge, or to 1 for discharges
+     * smaller than 1.
+     *
+     * @param reach         Reach, with nodes in increasing downstream distance
+     * @param theta         Time weighting factor, between 0.5 and 1
+     * @param maxIterations Maximum number of Newton iterations per time step
+     * @param tolerance     Newton iteration tolerance
+     */
+    public UnsteadySolver(Reach reach, double theta, int maxIterations, double tolerance) {
+
+        if (reach == null)
+            throw new IllegalArgumentException();
+
+        if (!(theta >= 0.5 && theta <= 1))
+            throw new IllegalArgumentException();
+
+        if (maxIterations < 1)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(tolerance) || tolerance <= 0)
+            throw new IllegalArgumentException();
+
+        nodes = reach.reachNodes;
+        n = nodes.length;
+
+        if (n < 2)
+            throw new IllegalArgumentException();
+
+        dx = new double[n - 1];
+        for (int i = 0; i < n - 1; i++) {
+            dx[i] = nodes[i + 1].distanceDownstream() - nodes[i].distanceDownstream();
+            if (!(dx[i] > 0))
+                throw new IllegalArgumentException();
+        }
+
+        this.theta = theta;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+
+        q = new double[n];
+        h = new double[n];
+        qNew = new double[n];
+        hNew = new double[n];
+        area = new double[n];
+        topWidth = new double[n];
+        conveyance = new double[n];
+        dConveyance = new double[n];
+        beta = new double[n];
+        continuityOld = new double[n - 1];
+        momentumOld = new double[n - 1];
+
+        jacobian = new BandedMatrix(2 * n, 2, 2);
+        rhs = new double[2 * n];
+
+        dischargeView = DoubleBuffer.wrap(q).asReadOnlyBuffer();
+        wsElevationView = DoubleBuffer.wrap(h).asReadOnlyBuffer();
+    }
+
+    /**
+     * Set the initial state from a steady state solution
+     *
+     * @param initial Steady state solution of the reach
+     */
+    public void initialize(StandardStepSolution initial) {
+
+        if (initial == null)
+            throw new IllegalArgumentException();
+
+        initialize(initial.discharge(), initial.wsElevation());
+    }
+
+    /**
+     * Set the initial state
+     * <p>
+     * The simulation time is reset to 0.
+     *
+     * @param discharge   Discharge at each node
+     * @param wsElevation Water surface elevation at each node
+     */
+    public void initialize(double[] discharge, double[] wsElevation) {
+
+        if (discharge == null || wsElevation == null)
+            throw new IllegalArgumentException();
+
+        if (discharge.length != n || wsElevation.length != n)
+            throw new IllegalArgumentException();
+
+        for (int i = 0; i < n; i++) {
+            if (!Double.isFinite(discharge[i]) || !(wsElevation[i] > nodes[i].thalweg()))
+                throw new IllegalArgumentException();
+        }
+
+        System.arraycopy(discharge, 0, q, 0, n);
+        System.arraycopy(wsElevation, 0, h, 0, n);
+        time = 0;
+        initialized = true;
+    }
+
+    /**
+     * Advance the solution by one time step
+     * <p>
+     * If the Newton iteration doesn't converge, or an iterate is at or below the
+     * thalweg of a node, the state is left unchanged and <code>false</code> is
+     * returned, so the step may be retried, for example with a shorter time
+     * step. Exceptions thrown by <code>downstreamBC</code> are not caught.
+     *
+     * @param dt                 Time step
+     * @param upstreamDischarge  Discharge at the upstream node at the end of the
+     *                           time step
+     * @param downstreamBC       Elevation boundary condition at the downstream node
+     * @return <code>true</code> if the time step converged
+     */
+    public boolean step(double dt, double upstreamDischarge, ElevationBC downstreamBC) {
+
+        if (!initialized)
+            throw new IllegalStateException();
+
+        if (!Double.isFinite(dt) || dt <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(upstreamDischarge))
+            throw new IllegalArgumentException();
+
+        if (downstreamBC == null)
+            throw new IllegalArgumentException();
+
+        iterations = 0;
+
+        return newton(dt, upstreamDischarge, downstreamBC);
+    }
+
+    private boolean newton(double dt, double upstreamDischarge, ElevationBC downstreamBC) {
+
+        double g = Constants.gravity();
+        double c = 0.5 / dt;
+        double oneMinusTheta = 1 - theta;
+
+        /* explicit part of each interval equation, at the start of the time step */
+        if (!evaluate(h, false))
+            return false;
+
+        for (int i = 0; i < n - 1; i++) {
+            int k = i + 1;
+            double meanArea = 0.5 * (area[i] + area[k]);
+            double frictionSlope = 0.5 * (q[i] * Math.abs(q[i]) / (conveyance[i] * conveyance[i])
+                    + q[k] * Math.abs(q[k]) / (conveyance[k] * conveyance[k]));
+
+            continuityOld[i] = -c * (area[i] + area[k]) + oneMinusTheta * (q[k] - q[i]) / dx[i];
+            momentumOld[i] = -c * (q[i] + q[k])
+                    + oneMinusTheta * (beta[k] * q[k] * q[k] / area[k] - beta[i] * q[i] * q[i] / area[i]) / dx[i]
+                    + oneMinusTheta * g * meanArea * ((h[k] - h[i]) / dx[i] + frictionSlope);
+        }
+
+        System.arraycopy(q, 0, qNew, 0, n);
+        System.arraycopy(h, 0, hNew, 0, n);
+        qNew[0] = upstreamDischarge;
+
+        int last = 2 * n - 1;
+
+        for (iterations = 1; iterations <= maxIterations; iterations++) {
+
+            /* a dry iterate can't be evaluated, give up on the time step */
+            if (!evaluate(hNew, true))
+                return false;
+
+            jacobian.clear();
+
+            /* upstream discharge */
+            jacobian.set(0, 0, 1);
+            rhs[0] = upstreamDischarge - qNew[0];
+
+            for (int i = 0; i < n - 1; i++) {
+
+                int k = i + 1;
+                int rc = 2 * i + 1; // continuity row
+                int rm = 2 * i + 2; // momentum row
+                int qi = 2 * i, hi = 2 * i + 1, qk = 2 * k, hk = 2 * k + 1; // columns
+                double r = theta / dx[i];
+
+                /* continuity */
+                rhs[rc] = -(c * (area[i] + area[k]) + r * (qNew[k] - qNew[i]) + continuityOld[i]);
+                jacobian.set(rc, qi, -r);
+                jacobian.set(rc, hi, c * topWidth[i]);
+                jacobian.set(rc, qk, r);
+                jacobian.set(rc, hk, c * topWidth[k]);
+
+                /* momentum */
+                double meanArea = 0.5 * (area[i] + area[k]);
+                double ki2 = conveyance[i] * conveyance[i];
+                double kk2 = conveyance[k] * conveyance[k];
+                double fi = qNew[i] * Math.abs(qNew[i]);
+                double fk = qNew[k] * Math.abs(qNew[k]);
+                double slopeTerm = (hNew[k] - hNew[i]) / dx[i] + 0.5 * (fi / ki2 + fk / kk2);
+                double fluxI = beta[i] * qNew[i] * qNew[i] / area[i];
+                double fluxK = beta[k] * qNew[k] * qNew[k] / area[k];
+                double gt = theta * g;
+
+                rhs[rm] = -(c * (qNew[i] + qNew[k]) + r * (fluxK - fluxI) + gt * meanArea * slopeTerm
+                        + momentumOld[i]);
+
+                jacobian.set(rm, qi, c - r * 2 * beta[i] * qNew[i] / area[i]
+                        + gt * meanArea * Math.abs(qNew[i]) / ki2);
+                jacobian.set(rm, qk, c + r * 2 * beta[k] * qNew[k] / area[k]
+                        + gt * meanArea * Math.abs(qNew[k]) / kk2);
+                jacobian.set(rm, hi, r * fluxI * topWidth[i] / area[i] + gt * 0.5 * topWidth[i] * slopeTerm
+                        + gt * meanArea * (-1 / dx[i] - fi * dConveyance[i] / (ki2 * conveyance[i])));
+                jacobian.set(rm, hk, -r * fluxK * topWidth[k] / area[k] + gt * 0.5 * topWidth[k] * slopeTerm
+                        + gt * meanArea * (1 / dx[i] - fk * dConveyance[k] / (kk2 * conveyance[k])));
+            }
+
+            /* downstream elevation */
+            double qd = qNew[n - 1];
+            double increment = DISCHARGE_INCREMENT * Math.max(1, Math.abs(qd));
+            double elevation = downstreamBC.elevation(qd);
+            double dElevation = (downstreamBC.elevation(qd + increment) - elevation) / increment;
+            rhs[last] = elevation - hNew[n - 1];
+            jacobian.set(last, last - 1, -dElevation);
+            jacobian.set(last, last, 1);
+
+            if (!jacobian.factor())
+                return false;
+            jacobian.solve(rhs);
+
+            boolean converged = true;
+            for (int i = 0; i < n; i++) {
+                double dq = rhs[2 * i];
+                double dh = rhs[2 * i + 1];
+                if (!Double.isFinite(dq) || !Double.isFinite(dh))
+                    return false;
+                qNew[i] += dq;
+                hNew[i] += dh;
+                if (Math.abs(dh) > tolerance || Math.abs(dq) > tolerance * Math.max(1, Math.abs(qNew[i])))
+                    converged = false;
+            }
+
+            if (converged) {
+                System.arraycopy(qNew, 0, q, 0, n);
+                System.arraycopy(hNew, 0, h, 0, n);
+                time += dt;
+                return true;
+            }
+        }
+
+        iterations = maxIterations;
+
+        return false;
+    }
+
+    /*
+     * node properties at water surface elevations wse. returns false, leaving the
+     * properties partly evaluated, if any elevation is at or below its thalweg
+     */
+    private boolean evaluate(double[] wse, boolean derivatives) {
+
+        for (int i = 0; i < n; i++) {
+
+            ReachNode node = nodes[i];
+            CrossSection xs = node.crossSection();
+            double depth = wse[i] - node.thalweg();
+
+            if (!(depth > 0))
+                return false;
+
+            double y = depth + xs.thalweg();
+            xs.properties(y, properties);
+            area[i] = properties.value(Property.AREA);
+            topWidth[i] = properties.value(Property.TOP_WIDTH);
+            conveyance[i] = properties.value(Property.CONVEYANCE);
+            beta[i] = properties.value(Property.VELOCITY_COEFF);
+
+            if (derivatives) {
+                xs.properties(y + ELEVATION_INCREMENT, properties);
+                dConveyance[i] = (properties.value(Property.CONVEYANCE) - conveyance[i]) / ELEVATION_INCREMENT;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Route a hydrograph through the reach
+     * <p>
+     * One time step is taken for each value of <code>upstreamDischarge</code>,
+     * and <code>consumer</code> is called at the end of each converged step.
+     * Routing stops at the first time step that doesn't converge.
+     *
+     * @param upstreamDischarge Upstream discharge at the end of each time step
+     * @param dt                Time step
+     * @param downstreamBC      Elevation boundary condition at the downstream node
+     * @param consumer          Consumer of time step results, or <code>null</code>
+     * @return Number of converged time steps
+     */
+    public int route(double[] upstreamDischarge, double dt, ElevationBC downstreamBC, TimeStepConsumer consumer) {
+
+        if (upstreamDischarge == null)
+            throw new IllegalArgumentException();
+
+        for (int s = 0; s < upstreamDischarge.length; s++) {
+
+            if (!step(dt, upstreamDischarge[s], downstreamBC))
+                return s;
+
+            if (consumer != null) {
+                dischargeView.rewind();
+                wsElevationView.rewind();
+                consumer.accept(s, time, dischargeView, wsElevationView);
+            }
+        }
+
+        return upstreamDischarge.length;
+    }
+
+    /**
+     * Returns the number of nodes
+     *
+     * @return Number of nodes
+     */
+    public int length() {
+        return n;
+    }
+
+    /**
+     * Returns the simulation time
+     *
+     * @return Time since the state was initialized
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Returns the number of Newton iterations of the last time step
+     *
+     * @return Number of iterations
+     */
+    public int iterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the discharge at a node
+     *
+     * @param i Node index
+     *
+     * @return Discharge
+     */
+    public double discharge(int i) {
+        return q[i];
+    }
+
+    /**
+     * Returns the water surface elevation at a node
+     *
+     * @param i Node index
+     *
+     * @return Water surface elevation
+     */
+    public double wsElevation(int i) {
+        return h[i];
+    }
+
+    /**
+     * Returns an array containing the discharge at each node
+     *
+     * @return Discharge array
+     */
+    public double[] discharge() {
+        return q.clone();
+    }
+
+    /**
+     * Returns an array containing the water surface elevation at each node
+     *
+     * @return Water surface elevation array
+     */
+    public double[] wsElevation() {
+        return h.clone();
+    }
+}
@@ -1,14 +1,24 @@
 package io.github.mmdski.codling.crosssection;
 
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
 /**
  * Cross section coordinate array
  *
  * Provides methods for cross section coordinate array manipulation
+ * <p>
+ * Coordinates are stored as parallel primitive arrays of y-values and
+ * z-values. <code>CoArray</code> is immutable, so copies and derived arrays
+ * share storage where possible; for example, {@link #addY(double)} shares the
+ * z-values of this array. Coordinate arrays are thread-safe. Coordinate arrays
+ * with the same y-values and z-values are equal.
  */
 public class CoArray {
 
-    private double minY;
-    private Coordinate[] coordinates;
+    private final double minY;
+    private final double[] y;
+    private final double[] z;
 
     /**
      * Creates a <code>CoArray</code> from coordinates defined in <code>y</code> and
@@ -40,24 +50,30 @@ public class CoArray {
         if (z[n - 1] - z[0] <= 0)
             throw new IllegalArgumentException();
 
-        coordinates = new Coordinate[n];
-        minY = y[0];
-        coordinates[0] = new Coordinate(y[0], z[0]);
+        double minY = y[0];
+
+        for (int i = 0; i < n; i++) {
 
-        for (int i = 1; i < n; i++) {
+            if (!Double.isFinite(y[i]) || !Double.isFinite(z[i]))
+                throw new IllegalArgumentException();
 
             if (y[i] < minY)
                 minY = y[i];
 
-            coordinates[i] = new Coordinate(y[i], z[i]);
-
-            if (coordinates[i - 1].z() > coordinates[i].z())
+            if (i > 0 && z[i - 1] > z[i])
                 throw new IllegalArgumentException();
         }
+
+        this.minY = minY;
+        this.y = Arrays.copyOf(y, n);
+        this.z = Arrays.copyOf(z, n);
     }
 
     /**
      * Creates a copy of a <code>CoArray</code>
+     * <p>
+     * Since coordinate arrays are immutable, the copy shares storage with
+     * <code>coArray</code>.
      *
      * @param coArray <code>CoArray</code> to copy
      */
@@ -67,33 +83,33 @@ public class CoArray {
             throw new NullPointerException();
 
         minY = coArray.minY;
-        coordinates = new Coordinate[coArray.coordinates.length];
-        for (int i = 0; i < coArray.coordinates.length; i++) {
-            coordinates[i] = new Coordinate(coArray.coordinates[i].y(), coArray.coordinates[i].z());
-        }
+        y = coArray.y;
+        z = coArray.z;
     }
 
-    private CoArray(Coordinate[] coords, double minY) {
+    private CoArray(double[] y, double[] z, double minY) {
         this.minY = minY;
-        coordinates = coords;
+        this.y = y;
+        this.z = z;
     }
 
     /**
      * Find the index of the coordinate with the greatest z-value that's lower than
-     * z.
+     * or equal to z, searching between lo and hi.
      */
-    private int findLow(Coordinate[] coordinates, double z, int lo, int hi) {
+    private int findLow(double z, int lo, int hi) {
 
-        // if the highest and lowest indices are off by one, return lo.
-        if (hi - lo == 1)
-            return lo;
+        int mid;
 
-        int mid = (hi - lo) / 2;
+        while (hi - lo > 1) {
+            mid = (lo + hi) >>> 1;
+            if (this.z[mid] > z)
+                hi = mid;
+            else
+                lo = mid;
+        }
 
-        if (coordinates[mid].z() > z)
-            return findLow(coordinates, z, lo, mid);
-        else
-            return findLow(coordinates, z, mid + 1, hi);
+        return lo;
     }
 
     /**
@@ -108,10 +124,31 @@ public class CoArray {
         if (!Double.isFinite(y))
             throw new IllegalArgumentException();
 
-        Coordinate[] new_coords = new Coordinate[coordinates.length];
-        for (int i = 0; i < coordinates.length; i++)
-            new_coords[i] = new Coordinate(coordinates[i].y() + y, coordinates[i].z());
-        return new CoArray(new_coords, minY + y);
+        int n = this.y.length;
+        double[] newY = new double[n];
+        for (int i = 0; i < n; i++)
+            newY[i] = this.y[i] + y;
+        return new CoArray(newY, z, minY + y);
+    }
+
+    /**
+     * Returns the y-value of coordinate <code>i</code> without copying
+     *
+     * @param i Coordinate index
+     * @return y-value of coordinate <code>i</code>
+     */
+    double y(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the z-value of coordinate <code>i</code> without copying
+     *
+     * @param i Coordinate index
+     * @return z-value of coordinate <code>i</code>
+     */
+    double z(int i) {
+        return z[i];
     }
 
     /**
@@ -120,7 +157,7 @@ public class CoArray {
      * @return Length of this coordinate array
      */
     public int length() {
-        return coordinates.length;
+        return y.length;
     }
 
     /**
@@ -157,42 +194,45 @@ public class CoArray {
         if (zHi <= zLo)
             throw new IllegalArgumentException();
 
-        if (zLo < coordinates[0].z() || coordinates[n - 1].z() < zHi)
+        if (zLo < z[0] || z[n - 1] < zHi)
             throw new IllegalArgumentException();
 
-        int i; // index of this array
-        int j = 0; // index of other array
-
-        double minY;
+        int lo = findLow(zLo, 0, n - 1); // index of the first coordinate used
+        int hi = lo + 1; // index of the coordinate following the last interior coordinate
 
-        // at most, the new array will be equal to the length of this array
-        Coordinate[] tempSubCoords = new Coordinate[n];
-        Coordinate[] subCoords;
+        while (z[hi] < zHi)
+            hi++;
 
-        i = findLow(coordinates, zLo, 0, n - 1);
+        /* interior coordinates lo + 1 to hi - 1 plus the two interpolated ends */
+        int subLength = hi - lo + 1;
+        double[] subY = new double[subLength];
+        double[] subZ = new double[subLength];
 
-        // add the first coordinate to the array by interpolation
-        tempSubCoords[0] = coordinates[i].interpY(coordinates[i + 1], zLo);
-        minY = tempSubCoords[0].y();
+        subY[0] = interpY(lo, lo + 1, zLo);
+        subZ[0] = zLo;
+        double minY = subY[0];
 
-        // add coordinates in between zLo and zHi
-        while (coordinates[++i].z() < zHi) {
-            tempSubCoords[++j] = new Coordinate(coordinates[i]);
-            if (tempSubCoords[j].y() < minY)
-                minY = tempSubCoords[j].y();
+        for (int i = lo + 1, j = 1; i < hi; i++, j++) {
+            subY[j] = y[i];
+            subZ[j] = z[i];
+            if (y[i] < minY)
+                minY = y[i];
         }
 
-        tempSubCoords[j + 1] = coordinates[i].interpY(coordinates[i - 1], zHi);
-        if (tempSubCoords[j + 1].y() < minY)
-            minY = tempSubCoords[j + 1].y();
-
-        int subLength = j + 2;
+        subY[subLength - 1] = interpY(hi, hi - 1, zHi);
+        subZ[subLength - 1] = zHi;
+        if (subY[subLength - 1] < minY)
+            minY = subY[subLength - 1];
 
-        subCoords = new Coordinate[subLength];
-        for (int k = 0; k < subLength; k++)
-            subCoords[k] = tempSubCoords[k];
+        return new CoArray(subY, subZ, minY);
+    }
 
-        return new CoArray(subCoords, minY);
+    /*
+     * y-value linearly interpolated at z from coordinate i toward coordinate j
+     */
+    private double interpY(int i, int j, double z) {
+        double slope = (y[j] - y[i]) / (this.z[j] - this.z[i]);
+        return slope * (z - this.z[i]) + y[i];
     }
 
     /**
@@ -201,11 +241,18 @@ public class CoArray {
      * @return y-values of this coordinate array
      */
     public double[] y() {
-        double[] y = new double[this.coordinates.length];
-        for (int i = 0; i < this.coordinates.length; i++) {
-            y[i] = this.coordinates[i].y();
-        }
-        return y;
+        return Arrays.copyOf(y, y.length);
+    }
+
+    /**
+     * Returns a read-only view of the y-values of this coordinate array
+     * <p>
+     * The view shares storage with this array, so no values are copied.
+     *
+     * @return Read-only y-values of this coordinate array
+     */
+    public DoubleBuffer yView() {
+        return DoubleBuffer.wrap(y).asReadOnlyBuffer();
     }
 
     /**
@@ -214,10 +261,36 @@ public class CoArray {
      * @return z-values of this coordinate array
      */
     public double[] z() {
-        double[] z = new double[this.coordinates.length];
-        for (int i = 0; i < this.coordinates.length; i++) {
-            z[i] = this.coordinates[i].z();
-        }
-        return z;
+        return Arrays.copyOf(z, z.length);
+    }
+
+    /**
+     * Returns a read-only view of the z-values of this coordinate array
+     * <p>
+     * The view shares storage with this array, so no values are copied.
+     *
+     * @return Read-only z-values of this coordinate array
+     */
+    public DoubleBuffer zView() {
+        return DoubleBuffer.wrap(z).asReadOnlyBuffer();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof CoArray))
+            return false;
+
+        CoArray other = (CoArray) obj;
+
+        return Arrays.equals(y, other.y) && Arrays.equals(z, other.z);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(y) + Arrays.hashCode(z);
     }
 }
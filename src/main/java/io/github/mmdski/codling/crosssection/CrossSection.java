@@ -1,7 +1,14 @@
 package io.github.mmdski.codling.crosssection;
 
+import io.github.mmdski.codling.SecantSolution;
+
 /**
  * Cross section interface
+ * <p>
+ * Implementations are expected to be immutable, or at least safe for
+ * concurrent calls to all methods of this interface, so that a cross section
+ * can be shared by many reach nodes and by solves running on different
+ * threads. All cross section types in this package meet this requirement.
  */
 public interface CrossSection {
 
@@ -14,6 +21,64 @@ public interface CrossSection {
      */
     CrossSectionProperties properties(double y);
 
+    /**
+     * Computes hydraulic properties for an elevation, writing the results into
+     * <code>properties</code>
+     * <p>
+     * This method allows callers in a solver inner loop to reuse a single
+     * properties holder instead of allocating one per evaluation. The default
+     * implementation copies the results of {@link #properties(double)};
+     * implementations should override it to avoid the allocation.
+     *
+     * @param y          Elevation
+     * @param properties Properties holder to write results into
+     *
+     * @return <code>properties</code>, containing hydraulic properties for
+     *         elevation <code>y</code>
+     */
+    default CrossSectionProperties properties(double y, CrossSectionProperties properties) {
+
+        if (properties == null)
+            throw new NullPointerException();
+
+        properties.setValues(properties(y));
+
+        return properties;
+    }
+
+    /**
+     * Computes hydraulic properties for many elevations, writing the results into
+     * columnar arrays
+     * <p>
+     * The value of property <code>p</code> for elevation <code>y[i]</code> is
+     * written to <code>results[p.value()][i]</code>. <code>results</code> must
+     * have an array for each property, each at least as long as <code>y</code>.
+     * The default implementation evaluates the elevations one at a time with a
+     * single properties holder; implementations may override it with loops over
+     * whole columns.
+     *
+     * @param y       Elevations
+     * @param results Property columns to write results into
+     *
+     * @return <code>results</code>, containing hydraulic properties for each
+     *         elevation
+     */
+    default double[][] properties(double[] y, double[][] results) {
+
+        CrossSectionProperties.checkColumns(y, results);
+
+        CrossSectionProperties properties = new CrossSectionProperties();
+        CrossSectionProperties.Property[] values = CrossSectionProperties.Property.values();
+
+        for (int i = 0; i < y.length; i++) {
+            properties(y[i], properties);
+            for (CrossSectionProperties.Property p : values)
+                results[p.value()][i] = properties.value(p);
+        }
+
+        return results;
+    }
+
     /**
      * Computes critical elevation for discharge <code>Q</code>
      *
@@ -59,6 +124,44 @@ public interface CrossSection {
      */
     public double normalY(double Q, double S, double y0);
 
+    /**
+     * Computes normal elevation for discharge <code>Q</code> and slope
+     * <code>S</code>, returning the root finding solution
+     * <p>
+     * The solution holds the normal elevation as computed by
+     * {@link #normalY(double, double)}, with the number of iterations and
+     * whether the iteration converged. The default implementation reports a
+     * finite elevation as found in 0 iterations.
+     *
+     * @param Q Normal discharge
+     * @param S Channel slope
+     *
+     * @return Normal elevation solution
+     */
+    default SecantSolution normalSolution(double Q, double S) {
+        double y = normalY(Q, S);
+        return new SecantSolution(Double.isFinite(y), 0, y);
+    }
+
+    /**
+     * Computes normal elevation for discharge <code>Q</code> and slope
+     * <code>S</code> using <code>y0</code> as an initial estimate, returning the
+     * root finding solution
+     * <p>
+     * The default implementation reports a finite elevation from
+     * {@link #normalY(double, double, double)} as found in 0 iterations.
+     *
+     * @param Q  Normal discharge
+     * @param S  Channel slope
+     * @param y0 Initial estimate of normal elevation
+     *
+     * @return Normal elevation solution
+     */
+    default SecantSolution normalSolution(double Q, double S, double y0) {
+        double y = normalY(Q, S, y0);
+        return new SecantSolution(Double.isFinite(y), 0, y);
+    }
+
     /**
      * Returns the thalweg elevation of this cross section
      *
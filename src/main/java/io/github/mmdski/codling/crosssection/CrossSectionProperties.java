@@ -33,6 +33,41 @@ public class CrossSectionProperties {
 
     }
 
+    /**
+     * Creates columnar arrays for the properties of <code>n</code> elevations,
+     * for use with {@link CrossSection#properties(double[], double[][])}
+     *
+     * @param n Number of elevations
+     *
+     * @return Property columns, indexed by {@link Property#value()}
+     */
+    public static double[][] columns(int n) {
+
+        if (n < 0)
+            throw new IllegalArgumentException();
+
+        return new double[Property.values().length][n];
+    }
+
+    /*
+     * validate arguments of the bulk properties method
+     */
+    static void checkColumns(double[] y, double[][] results) {
+
+        if (y == null || results == null)
+            throw new NullPointerException();
+
+        if (results.length < Property.values().length)
+            throw new IllegalArgumentException();
+
+        for (Property p : Property.values()) {
+            if (results[p.value()] == null)
+                throw new NullPointerException();
+            if (results[p.value()].length < y.length)
+                throw new IllegalArgumentException();
+        }
+    }
+
     /**
      * Creates a new cross section properties
      */
@@ -50,6 +85,19 @@ public class CrossSectionProperties {
         results[p.value()] = value;
     }
 
+    /**
+     * Sets all property values to those contained in <code>properties</code>
+     *
+     * @param properties Cross section properties to copy values from
+     */
+    public void setValues(CrossSectionProperties properties) {
+
+        if (properties == null)
+            throw new NullPointerException();
+
+        System.arraycopy(properties.results, 0, results, 0, results.length);
+    }
+
     /**
      * Returns the value of a cross section property
      *
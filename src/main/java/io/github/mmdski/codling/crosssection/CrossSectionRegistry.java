@@ -0,0 +1,167 @@
+package io.github.mmdski.codling.crosssection;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Registry of interned cross sections
+ * <p>
+ * Cross sections are interned by equality: {@link #intern(CrossSection)}
+ * returns the first registered cross section equal to its argument, so reaches
+ * built from repeated templates share one instance of each distinct section.
+ * Tabulated cross sections requested through
+ * {@link #tabulated(CrossSection, double[])} are built once for each distinct
+ * cross section and set of elevations, so their property tables are shared by
+ * every node that uses them.
+ * <p>
+ * Cross section types that don't override <code>equals</code> are only
+ * interned by identity. Cross section registries are thread-safe.
+ */
+public class CrossSectionRegistry {
+
+    private final ConcurrentHashMap<CrossSection, CrossSection> sections = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<TableKey, TabulatedCrossSection> tables = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+
+    /*
+     * key of a tabulated cross section. the cross section is interned, so it's
+     * compared by identity
+     */
+    private static final class TableKey {
+
+        final CrossSection crossSection;
+        final double[] elevations;
+
+        TableKey(CrossSection crossSection, double[] elevations) {
+            this.crossSection = crossSection;
+            this.elevations = elevations;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+
+            if (!(obj instanceof TableKey))
+                return false;
+
+            TableKey other = (TableKey) obj;
+
+            return crossSection == other.crossSection && Arrays.equals(elevations, other.elevations);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(crossSection) + Arrays.hashCode(elevations);
+        }
+    }
+
+    /**
+     * Returns the registered cross section equal to <code>crossSection</code>,
+     * registering <code>crossSection</code> if there is none
+     *
+     * @param crossSection Cross section to intern
+     * @return Interned cross section
+     */
+    public CrossSection intern(CrossSection crossSection) {
+
+        if (crossSection == null)
+            throw new NullPointerException();
+
+        requests.incrementAndGet();
+
+        CrossSection interned = sections.putIfAbsent(crossSection, crossSection);
+
+        if (interned == null)
+            return crossSection;
+
+        hits.incrementAndGet();
+        return interned;
+    }
+
+    /**
+     * Returns a shared tabulated cross section of <code>crossSection</code> at
+     * <code>elevations</code>
+     * <p>
+     * <code>crossSection</code> is interned first. The table is computed only the
+     * first time a cross section and set of elevations is requested.
+     *
+     * @param crossSection Cross section to tabulate
+     * @param elevations   Elevations at which properties are tabulated
+     * @return Shared tabulated cross section
+     */
+    public TabulatedCrossSection tabulated(CrossSection crossSection, double[] elevations) {
+
+        if (crossSection == null || elevations == null)
+            throw new NullPointerException();
+
+        CrossSection interned = intern(crossSection);
+        TableKey key = new TableKey(interned, Arrays.copyOf(elevations, elevations.length));
+
+        requests.incrementAndGet();
+
+        TabulatedCrossSection tabulated = tables.get(key);
+
+        if (tabulated != null) {
+            hits.incrementAndGet();
+            return tabulated;
+        }
+
+        tabulated = tables.computeIfAbsent(key, k -> new TabulatedCrossSection(k.crossSection, k.elevations));
+        sections.putIfAbsent(tabulated, tabulated);
+
+        return tabulated;
+    }
+
+    /**
+     * Returns a shared tabulated cross section of <code>crossSection</code> with
+     * <code>n</code> evenly spaced elevations from its thalweg to
+     * <code>maxElevation</code>
+     *
+     * @param crossSection Cross section to tabulate
+     * @param maxElevation Highest tabulated elevation
+     * @param n            Number of tabulated elevations
+     * @return Shared tabulated cross section
+     */
+    public TabulatedCrossSection tabulated(CrossSection crossSection, double maxElevation, int n) {
+        return tabulated(crossSection, TabulatedCrossSection.evenlySpaced(crossSection, maxElevation, n));
+    }
+
+    /**
+     * Returns the number of distinct registered cross sections, including
+     * tabulated cross sections
+     *
+     * @return Number of registered cross sections
+     */
+    public int size() {
+        return sections.size();
+    }
+
+    /**
+     * Returns the number of distinct tabulated cross sections
+     *
+     * @return Number of tabulated cross sections
+     */
+    public int tables() {
+        return tables.size();
+    }
+
+    /**
+     * Returns the number of intern and tabulation requests
+     *
+     * @return Number of requests
+     */
+    public long requests() {
+        return requests.get();
+    }
+
+    /**
+     * Returns the number of requests answered with an already registered cross
+     * section or table
+     *
+     * @return Number of hits
+     */
+    public long hits() {
+        return hits.get();
+    }
+}
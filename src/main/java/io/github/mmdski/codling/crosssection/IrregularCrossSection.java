@@ -0,0 +1,429 @@
+package io.github.mmdski.codling.crosssection;
+
+import io.github.mmdski.codling.Constants;
+import io.github.mmdski.codling.BrentSolver;
+import io.github.mmdski.codling.SecantSolution;
+import io.github.mmdski.codling.SecantSolvable;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties.Property;
+
+/**
+ * Irregular cross section
+ * <p>
+ * Cross section type for a surveyed station-elevation polyline stored in a
+ * <code>CoArray</code>. The y-values of the coordinate array are elevations
+ * and the z-values are stations. The irregular cross section type has a single
+ * roughness value.
+ * <p>
+ * Hydraulic properties are computed in a single pass over the survey points.
+ * Water surface elevations above either end point are contained by vertical
+ * walls at the end stations. All points below the water surface are considered
+ * wet, including low areas that are not connected to the main channel.
+ * <p>
+ * Normal and critical elevations are found with the bracketed
+ * <code>BrentSolver</code>, which converges from any initial estimate above the
+ * thalweg.
+ * <p>
+ * Irregular cross sections are immutable and thread-safe. Irregular cross
+ * sections with equal coordinates and roughness are equal.
+ */
+public class IrregularCrossSection implements CrossSection {
+
+    private final CoArray coordinates;
+    private final double roughness;
+    private final double thalweg; // thalweg elevation
+
+    private class NormalDepthSolvable implements SecantSolvable {
+
+        private double Q, sqrtS, y0;
+        private CrossSectionProperties properties;
+
+        public NormalDepthSolvable(double Q, double S, double y0) {
+            this.Q = Q;
+            this.sqrtS = Math.sqrt(S);
+            this.y0 = y0;
+            this.properties = new CrossSectionProperties();
+        }
+
+        public double firstIteration() {
+            return y0;
+        }
+
+        public double secondIteration() {
+            return 1.1 * (y0 - thalweg) + thalweg;
+        }
+
+        public double solverFunction(double y) {
+
+            /* a failed evaluation, not an invalid argument */
+            if (!Double.isFinite(y))
+                return Double.NaN;
+
+            properties(y, properties);
+            double conveyance = properties.value(Property.CONVEYANCE);
+            return conveyance * sqrtS - Q;
+        }
+
+    }
+
+    private class CriticalDepthSolvable implements SecantSolvable {
+
+        private double Q, y0;
+        private CrossSectionProperties properties;
+
+        public CriticalDepthSolvable(double Q, double y0) {
+            this.Q = Q;
+            this.y0 = y0;
+            this.properties = new CrossSectionProperties();
+        }
+
+        public double firstIteration() {
+            return y0;
+        }
+
+        public double secondIteration() {
+            return 1.1 * (y0 - thalweg) + thalweg;
+        }
+
+        public double solverFunction(double y) {
+
+            properties(y, properties);
+            double criticalFlow = properties.value(Property.CRITICAL_FLOW);
+            return criticalFlow - Q;
+        }
+
+    }
+
+    /**
+     * Construct an irregular cross section
+     * <p>
+     * The thalweg elevation is the minimum y-value of <code>coordinates</code>.
+     * <code>IrregularCrossSection</code> maintains a copy of
+     * <code>coordinates</code>.
+     *
+     * @param coordinates Station-elevation coordinates of the cross section
+     * @param roughness   Cross section roughness
+     */
+    public IrregularCrossSection(CoArray coordinates, double roughness) {
+
+        if (coordinates == null)
+            throw new NullPointerException();
+
+        if (!Double.isFinite(roughness) || roughness <= 0)
+            throw new IllegalArgumentException();
+
+        this.coordinates = new CoArray(coordinates);
+        this.roughness = roughness;
+        thalweg = coordinates.minY();
+    }
+
+    /**
+     * Returns a copy of the coordinates of this cross section
+     *
+     * @return Coordinates of this cross section
+     */
+    public CoArray coordinates() {
+        return new CoArray(coordinates);
+    }
+
+    /**
+     * Returns the roughness of this cross section
+     *
+     * @return Roughness
+     */
+    public double roughness() {
+        return roughness;
+    }
+
+    /**
+     * Computes hydraulic properties of this cross section for an elevation
+     *
+     * @param y Elevation to compute hydraulic properites for
+     *
+     * @return Hydraulic properties computed for elevation <code>y</code>
+     */
+    public CrossSectionProperties properties(double y) {
+        return properties(y, new CrossSectionProperties());
+    }
+
+    /**
+     * Computes hydraulic properties of this cross section for an elevation,
+     * writing the results into <code>properties</code>
+     *
+     * @param y          Elevation to compute hydraulic properites for
+     * @param properties Properties holder to write results into
+     *
+     * @return <code>properties</code>, containing hydraulic properties computed
+     *         for elevation <code>y</code>
+     */
+    public CrossSectionProperties properties(double y, CrossSectionProperties properties) {
+
+        if (!Double.isFinite(y))
+            throw new IllegalArgumentException();
+
+        if (properties == null)
+            throw new NullPointerException();
+
+        int n = coordinates.length();
+
+        double area = 0;
+        double topWidth = 0;
+        double perimeter = 0;
+
+        double y0, y1, z0, z1; // segment end coordinates
+        double d0, d1; // segment end depths
+        double dz, dy, length, fraction;
+
+        y1 = coordinates.y(0);
+        z1 = coordinates.z(0);
+        d1 = y - y1;
+
+        /* left wall */
+        if (d1 > 0)
+            perimeter += d1;
+
+        for (int i = 1; i < n; i++) {
+
+            y0 = y1;
+            z0 = z1;
+            d0 = d1;
+
+            y1 = coordinates.y(i);
+            z1 = coordinates.z(i);
+            d1 = y - y1;
+
+            /* dry segment */
+            if (d0 <= 0 && d1 <= 0)
+                continue;
+
+            dz = z1 - z0;
+            dy = y1 - y0;
+            length = Math.sqrt(dz * dz + dy * dy);
+
+            if (d0 >= 0 && d1 >= 0) {
+                /* wet segment */
+                area += 0.5 * (d0 + d1) * dz;
+                topWidth += dz;
+                perimeter += length;
+            } else {
+                /* partially wet segment. the wet part is a triangle */
+                if (d0 > 0)
+                    fraction = d0 / (d0 - d1);
+                else
+                    fraction = d1 / (d1 - d0);
+                area += 0.5 * Math.max(d0, d1) * fraction * dz;
+                topWidth += fraction * dz;
+                perimeter += fraction * length;
+            }
+        }
+
+        /* right wall */
+        if (d1 > 0)
+            perimeter += d1;
+
+        double depth = y - thalweg;
+        double hydraulicDepth = topWidth > 0 ? area / topWidth : 0;
+        double radius = perimeter > 0 ? area / perimeter : 0;
+        double conveyance = Constants.manningK() / roughness * area * Math.pow(radius, 2.0 / 3.0);
+        double criticalFlow = area * Math.sqrt(Constants.gravity() * hydraulicDepth);
+
+        properties.setValue(Property.DEPTH, depth);
+        properties.setValue(Property.AREA, area);
+        properties.setValue(Property.TOP_WIDTH, topWidth);
+        properties.setValue(Property.WETTED_PERIMETER, perimeter);
+        properties.setValue(Property.HYDRAULIC_DEPTH, hydraulicDepth);
+        properties.setValue(Property.HYDRAULIC_RADIUS, radius);
+        properties.setValue(Property.CONVEYANCE, conveyance);
+        properties.setValue(Property.VELOCITY_COEFF, 1);
+        properties.setValue(Property.CRITICAL_FLOW, criticalFlow);
+
+        return properties;
+    }
+
+    /*
+     * initial elevation estimate, half way between the thalweg and the lower of the
+     * two end points
+     */
+    private double initialEstimate() {
+
+        int n = coordinates.length();
+        double bank = Math.min(coordinates.y(0), coordinates.y(n - 1));
+
+        if (bank > thalweg)
+            return 0.5 * (bank - thalweg) + thalweg;
+        else
+            return 0.5 * (coordinates.z(n - 1) - coordinates.z(0)) + thalweg;
+    }
+
+    /**
+     * Computes critical elevation for discharge <code>Q</code>
+     * <p>
+     * The initial elevation estimate is half way between the thalweg and the lower
+     * of the two end points of this cross section.
+     *
+     * @param Q Critical discharge
+     *
+     * @return Critical elevation for discharge <code>Q</code>
+     */
+    public double criticalY(double Q) {
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        return criticalY(Q, initialEstimate());
+    }
+
+    /**
+     * Computes critical elevation for critical discharge <code>Q</code> using
+     * <code>y0</code> as an initial estimate
+     *
+     * @param Q  Critical discharge
+     * @param y0 Initial estimate of critical elevation
+     *
+     * @return Critical elevation for discharge <code>Q</code>
+     */
+    public double criticalY(double Q, double y0) {
+
+        if (!Double.isFinite(y0) || y0 <= thalweg)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        int maxIterations = 20;
+        double eps = 0.003;
+
+        CriticalDepthSolvable solvable = new CriticalDepthSolvable(Q, y0);
+        BrentSolver solver = new BrentSolver(maxIterations, eps);
+
+        return solver.root(solvable);
+    }
+
+    /**
+     * Computes normal elevation for normal discharge <code>Q</code> and channel
+     * slope <code>S</code> using an internally computed initial estimate of normal
+     * elevation
+     * <p>
+     * The initial elevation estimate is half way between the thalweg and the lower
+     * of the two end points of this cross section.
+     *
+     * @param Q Normal discharge
+     * @param S Channel slope
+     *
+     * @return Normal elevation for discharge <code>Q</code> and slope
+     *         <code>S</code>
+     */
+    public double normalY(double Q, double S) {
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        return normalY(Q, S, initialEstimate());
+    }
+
+    /**
+     * Computes normal elevation for normal discharge <code>Q</code> and channel
+     * slope <code>S</code> using initial elevation estimate <code>y0</code>
+     *
+     * @param Q  Normal discharge
+     * @param S  Channel slope
+     * @param y0 Initial estimate of normal elevation
+     *
+     * @return Normal elevation for discharge <code>Q</code> and slope
+     *         <code>S</code>
+     */
+    public double normalY(double Q, double S, double y0) {
+
+        if (!Double.isFinite(y0) || y0 <= thalweg)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        return normalSolver().root(new NormalDepthSolvable(Q, S, y0));
+    }
+
+    /**
+     * Computes normal elevation for normal discharge <code>Q</code> and channel
+     * slope <code>S</code>, returning the root finding solution
+     *
+     * @param Q Normal discharge
+     * @param S Channel slope
+     *
+     * @return Normal elevation solution
+     */
+    @Override
+    public SecantSolution normalSolution(double Q, double S) {
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        return normalSolution(Q, S, initialEstimate());
+    }
+
+    /**
+     * Computes normal elevation for normal discharge <code>Q</code> and channel
+     * slope <code>S</code> using initial elevation estimate <code>y0</code>,
+     * returning the root finding solution
+     *
+     * @param Q  Normal discharge
+     * @param S  Channel slope
+     * @param y0 Initial estimate of normal elevation
+     *
+     * @return Normal elevation solution
+     */
+    @Override
+    public SecantSolution normalSolution(double Q, double S, double y0) {
+
+        if (!Double.isFinite(y0) || y0 <= thalweg)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        return normalSolver().solve(new NormalDepthSolvable(Q, S, y0));
+    }
+
+    private static BrentSolver normalSolver() {
+        return new BrentSolver(20, 0.003);
+    }
+
+    /**
+     * Returns the thalweg elevation of this cross section
+     *
+     * @return Thalweg elevation
+     */
+    public double thalweg() {
+        return thalweg;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof IrregularCrossSection))
+            return false;
+
+        IrregularCrossSection other = (IrregularCrossSection) obj;
+
+        return Double.compare(roughness, other.roughness) == 0 && coordinates.equals(other.coordinates);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * coordinates.hashCode() + Double.hashCode(roughness);
+    }
+}
@@ -1,9 +1,7 @@
 package io.github.mmdski.codling.crosssection;
 
 import io.github.mmdski.codling.Constants;
-import io.github.mmdski.codling.SecantSolvable;
 import io.github.mmdski.codling.SecantSolution;
-import io.github.mmdski.codling.SecantSolver;
 import io.github.mmdski.codling.crosssection.CrossSectionProperties.Property;
 
 /**
@@ -11,40 +9,27 @@ import io.github.mmdski.codling.crosssection.CrossSectionProperties.Property;
  * <p>
  * Cross section type for a simple rectangular cross section. The rectangular
  * cross section type has a single roughness value.
+ * <p>
+ * Critical and normal elevations are computed without an initial estimate. The
+ * <code>y0</code> argument of {@link #criticalY(double, double)},
+ * {@link #normalY(double, double, double)} and
+ * {@link #normalSolution(double, double, double)} is validated but otherwise
+ * ignored, so results and iteration counts don't depend on it.
+ * <p>
+ * Rectangular cross sections are immutable and thread-safe. Rectangular cross
+ * sections with the same width, roughness and thalweg are equal.
  */
 public class RectangularCrossSection implements CrossSection {
 
-    private double width;
-    private double roughness;
-    private double thalweg; // thalweg elevation
-
-    private class NormalDepthSolvable implements SecantSolvable {
-
-        private double Q, sqrtS, y0;
-
-        public NormalDepthSolvable(double Q, double S, double y0) {
-            this.Q = Q;
-            this.sqrtS = Math.sqrt(S);
-            this.y0 = y0;
-        }
-
-        public double firstIteration() {
-            return y0;
-        }
-
-        public double secondIteration() {
-            double err = solverFunction(y0);
-            return y0 + 0.7 * err;
-        }
-
-        public double solverFunction(double y) {
-
-            CrossSectionProperties properties = properties(y);
-            double conveyance = properties.value(Property.CONVEYANCE);
-            return conveyance * sqrtS - Q;
-        }
+    private final double width;
+    private final double roughness;
+    private final double thalweg; // thalweg elevation
 
-    }
+    /*
+     * relative tolerance and iteration limit of the normal depth Newton iteration
+     */
+    private static final double NORMAL_DEPTH_TOLERANCE = 1e-12;
+    private static final int NORMAL_DEPTH_MAX_ITERATIONS = 50;
 
     /**
      * Construct a simple rectangular cross section
@@ -67,6 +52,24 @@ public class RectangularCrossSection implements CrossSection {
         thalweg = 0;
     }
 
+    /**
+     * Returns the width of this cross section
+     *
+     * @return Width
+     */
+    public double width() {
+        return width;
+    }
+
+    /**
+     * Returns the roughness of this cross section
+     *
+     * @return Roughness
+     */
+    public double roughness() {
+        return roughness;
+    }
+
     /**
      * Computes hydraulic properties of this cross section for an elevation
      *
@@ -75,13 +78,28 @@ public class RectangularCrossSection implements CrossSection {
      * @return Hydraulic properties computed for elevation <code>y</code>
      */
     public CrossSectionProperties properties(double y) {
+        return properties(y, new CrossSectionProperties());
+    }
+
+    /**
+     * Computes hydraulic properties of this cross section for an elevation,
+     * writing the results into <code>properties</code>
+     *
+     * @param y          Elevation to compute hydraulic properites for
+     * @param properties Properties holder to write results into
+     *
+     * @return <code>properties</code>, containing hydraulic properties computed
+     *         for elevation <code>y</code>
+     */
+    public CrossSectionProperties properties(double y, CrossSectionProperties properties) {
 
         if (!Double.isFinite(y))
             throw new IllegalArgumentException();
 
-        double depth = y - thalweg;
+        if (properties == null)
+            throw new NullPointerException();
 
-        CrossSectionProperties properties = new CrossSectionProperties();
+        double depth = y - thalweg;
 
         double area = depth * width;
         double perimeter = 2 * depth + width;
@@ -102,6 +120,66 @@ public class RectangularCrossSection implements CrossSection {
         return properties;
     }
 
+    /**
+     * Computes hydraulic properties of this cross section for many elevations,
+     * writing the results into columnar arrays
+     * <p>
+     * Each property is computed for all elevations in its own simple loop over
+     * primitive arrays, which the JIT compiler can unroll and vectorize.
+     *
+     * @param y       Elevations to compute hydraulic properties for
+     * @param results Property columns to write results into
+     *
+     * @return <code>results</code>, containing hydraulic properties for each
+     *         elevation
+     */
+    public double[][] properties(double[] y, double[][] results) {
+
+        CrossSectionProperties.checkColumns(y, results);
+
+        int n = y.length;
+
+        for (int i = 0; i < n; i++) {
+            if (!Double.isFinite(y[i]))
+                throw new IllegalArgumentException();
+        }
+
+        double[] depth = results[Property.DEPTH.value()];
+        double[] area = results[Property.AREA.value()];
+        double[] topWidth = results[Property.TOP_WIDTH.value()];
+        double[] perimeter = results[Property.WETTED_PERIMETER.value()];
+        double[] hydraulicDepth = results[Property.HYDRAULIC_DEPTH.value()];
+        double[] radius = results[Property.HYDRAULIC_RADIUS.value()];
+        double[] conveyance = results[Property.CONVEYANCE.value()];
+        double[] velocityCoeff = results[Property.VELOCITY_COEFF.value()];
+        double[] criticalFlow = results[Property.CRITICAL_FLOW.value()];
+
+        double k = Constants.manningK() / roughness;
+        double g = Constants.gravity();
+
+        for (int i = 0; i < n; i++)
+            depth[i] = y[i] - thalweg;
+
+        for (int i = 0; i < n; i++) {
+            area[i] = depth[i] * width;
+            perimeter[i] = 2 * depth[i] + width;
+            topWidth[i] = width;
+            hydraulicDepth[i] = depth[i];
+            velocityCoeff[i] = 1;
+        }
+
+        for (int i = 0; i < n; i++)
+            radius[i] = area[i] / perimeter[i];
+
+        for (int i = 0; i < n; i++)
+            criticalFlow[i] = area[i] * Math.sqrt(g * depth[i]);
+
+        for (int i = 0; i < n; i++)
+            conveyance[i] = k * area[i] * Math.pow(radius[i], 2.0 / 3.0);
+
+        return results;
+    }
+
     /**
      * Computes critical elevation for discharge <code>Q</code>
      *
@@ -145,19 +223,44 @@ public class RectangularCrossSection implements CrossSection {
 
     /**
      * Computes normal elevation for normal discharge <code>Q</code> and channel
-     * slope <code>S</code> using an internally computed initial estimate of normal
-     * elevation
+     * slope <code>S</code>
      * <p>
-     * The initial elevation estimate is equal to half of the width plus the thalweg
-     * elevation of this cross section.
+     * Normal depth is computed with a Newton iteration on the logarithm of the
+     * Manning equation,
+     * <p>
+     * g(d) = 5/3 ln(bd) - 2/3 ln(b + 2d) - ln(Qn / (k sqrt(S))),
+     * <p>
+     * which is increasing and concave in depth. The iteration starts from the wide
+     * channel depth, (Qn / (kb sqrt(S)))^(3/5), which is never greater than the
+     * normal depth, so the iterates increase monotonically to the solution. The
+     * iteration converges to a relative tolerance of 1e-12 in a few iterations.
      *
      * @param Q Normal discharge
      * @param S Channel slope
      *
      * @return Normal elevation for discharge <code>Q</code> and slope
-     *         <code>S</code>
+     *         <code>S</code>, or <code>NaN</code> if the iteration did not
+     *         converge
      */
     public double normalY(double Q, double S) {
+        return normalSolution(Q, S).solution();
+    }
+
+    /**
+     * Computes normal elevation for normal discharge <code>Q</code> and channel
+     * slope <code>S</code>, returning the solution of the Newton iteration of
+     * {@link #normalY(double, double)}
+     * <p>
+     * The residual of the solution is the logarithmic Manning equation residual
+     * at the last iteration.
+     *
+     * @param Q Normal discharge
+     * @param S Channel slope
+     *
+     * @return Normal elevation solution
+     */
+    @Override
+    public SecantSolution normalSolution(double Q, double S) {
 
         if (!Double.isFinite(Q) || Q <= 0)
             throw new IllegalArgumentException();
@@ -165,14 +268,36 @@ public class RectangularCrossSection implements CrossSection {
         if (!Double.isFinite(S) || S <= 0)
             throw new IllegalArgumentException();
 
-        double y0 = 0.5 * width + thalweg;
+        double b = width;
+        double target = Math.log(Q * roughness / (Constants.manningK() * Math.sqrt(S)));
+
+        /* wide channel depth */
+        double d = Math.exp(0.6 * (target - Math.log(b)));
+
+        double g = Double.NaN, dg, step;
 
-        return normalY(Q, S, y0);
+        for (int i = 0; i < NORMAL_DEPTH_MAX_ITERATIONS; i++) {
+
+            g = 5.0 / 3.0 * Math.log(b * d) - 2.0 / 3.0 * Math.log(b + 2 * d) - target;
+            dg = 5.0 / (3.0 * d) - 4.0 / (3.0 * (b + 2 * d));
+            step = g / dg;
+            d -= step;
+
+            if (Math.abs(step) <= NORMAL_DEPTH_TOLERANCE * d)
+                return new SecantSolution(true, i + 1, d + thalweg, g);
+        }
+
+        return new SecantSolution(false, NORMAL_DEPTH_MAX_ITERATIONS, Double.NaN, g);
     }
 
     /**
      * Computes normal elevation for normal discharge <code>Q</code> and channel
      * slope <code>S</code> using initial elevation estimate <code>y0</code>
+     * <p>
+     * Since the Newton iteration of {@link #normalY(double, double)} starts from
+     * its own bound on normal depth, <code>y0</code> is not used. However, an
+     * <code>IllegalArgumentexception</code> will be thrown if <code>y0</code> is
+     * less than or equal to the thalweg elevation of this cross section.
      *
      * @param Q  Normal discharge
      * @param S  Channel slope
@@ -192,14 +317,30 @@ public class RectangularCrossSection implements CrossSection {
         if (!Double.isFinite(S) || S <= 0)
             throw new IllegalArgumentException();
 
-        int maxIterations = 20;
-        double eps = 0.003;
+        return normalY(Q, S);
+    }
 
-        NormalDepthSolvable solvable = new NormalDepthSolvable(Q, S, y0);
-        SecantSolver solver = new SecantSolver(maxIterations, eps);
-        SecantSolution solution = solver.solve(solvable);
+    /**
+     * Computes normal elevation for normal discharge <code>Q</code> and channel
+     * slope <code>S</code> using initial elevation estimate <code>y0</code>,
+     * returning the root finding solution
+     * <p>
+     * As with {@link #normalY(double, double, double)}, <code>y0</code> is only
+     * checked against the thalweg elevation.
+     *
+     * @param Q  Normal discharge
+     * @param S  Channel slope
+     * @param y0 Initial estimate of normal elevation
+     *
+     * @return Normal elevation solution
+     */
+    @Override
+    public SecantSolution normalSolution(double Q, double S, double y0) {
 
-        return solution.solution();
+        if (!Double.isFinite(y0) || y0 <= thalweg)
+            throw new IllegalArgumentException();
+
+        return normalSolution(Q, S);
     }
 
     /**
@@ -210,4 +351,27 @@ public class RectangularCrossSection implements CrossSection {
     public double thalweg() {
         return thalweg;
     }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof RectangularCrossSection))
+            return false;
+
+        RectangularCrossSection other = (RectangularCrossSection) obj;
+
+        return Double.compare(width, other.width) == 0 && Double.compare(roughness, other.roughness) == 0
+                && Double.compare(thalweg, other.thalweg) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Double.hashCode(width);
+        hash = 31 * hash + Double.hashCode(roughness);
+        hash = 31 * hash + Double.hashCode(thalweg);
+        return hash;
+    }
 }
@@ -0,0 +1,462 @@
+package io.github.mmdski.codling.crosssection;
+
+import java.util.Arrays;
+
+import io.github.mmdski.codling.SecantSolution;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties.Property;
+
+/**
+ * Tabulated cross section
+ * <p>
+ * Decorates a cross section with a precomputed table of hydraulic properties
+ * (an HTAB). Properties are computed once for each tabulated elevation at
+ * construction, and {@link #properties(double)} answers by linear interpolation
+ * between the two tabulated elevations that bracket the requested elevation.
+ * Elevations outside of the table are passed through to the decorated cross
+ * section.
+ * <p>
+ * <b>Error bound.</b> For a property <i>f</i> with a continuous second
+ * derivative on a table interval of width <i>h</i>, the linear interpolation
+ * error anywhere in that interval is at most <i>h</i>&sup2;/8 &middot;
+ * max|<i>f''</i>|, with the maximum taken over the interval. The bound is only
+ * reached, at the midpoint, when <i>f</i> is quadratic. Properties that are
+ * linear in elevation within an interval (area, top width and wetted perimeter
+ * of a rectangular section) are reproduced exactly. Conveyance grows like
+ * depth<sup>5/3</sup>, so its relative error in an interval at depth <i>d</i>
+ * away from the thalweg is roughly 0.14 (<i>h</i>/<i>d</i>)&sup2;. In the first
+ * interval above the thalweg the second derivative of conveyance is unbounded,
+ * so the bound says nothing there, and that interval has the largest relative
+ * error. The maximum midpoint error of each property is measured at
+ * construction and reported by {@link #errorEstimate(Property)}; it is an
+ * estimate, not a bound.
+ * <p>
+ * Normal and critical elevations are found by inverse interpolation of the
+ * conveyance and critical flow columns when those columns are increasing and
+ * the requested discharge is within the table. Otherwise the decorated cross
+ * section is used.
+ * <p>
+ * Tabulated cross sections are immutable and thread-safe when the decorated
+ * cross section is. Tabulated cross sections of equal cross sections at the
+ * same elevations are equal.
+ */
+public class TabulatedCrossSection implements CrossSection {
+
+    private final CrossSection crossSection;
+    private final double[] elevations;
+    private final double[][] table; // table[property][row]
+    private final double[] errorEstimate;
+    private final boolean conveyanceIncreasing;
+    private final boolean criticalFlowIncreasing;
+
+    /**
+     * Construct a tabulated cross section from a list of elevations
+     * <p>
+     * <code>elevations</code> must contain at least two finite values in strictly
+     * ascending order.
+     *
+     * @param crossSection Cross section to tabulate
+     * @param elevations   Elevations at which properties are tabulated
+     */
+    public TabulatedCrossSection(CrossSection crossSection, double[] elevations) {
+
+        if (crossSection == null || elevations == null)
+            throw new NullPointerException();
+
+        int n = elevations.length;
+
+        if (n < 2)
+            throw new IllegalArgumentException();
+
+        for (int i = 0; i < n; i++) {
+            if (!Double.isFinite(elevations[i]))
+                throw new IllegalArgumentException();
+            if (i > 0 && elevations[i] <= elevations[i - 1])
+                throw new IllegalArgumentException();
+        }
+
+        this.crossSection = crossSection;
+        this.elevations = Arrays.copyOf(elevations, n);
+
+        table = crossSection.properties(this.elevations, CrossSectionProperties.columns(n));
+        errorEstimate = midpointErrors(crossSection, this.elevations, table);
+        conveyanceIncreasing = isIncreasing(table[Property.CONVEYANCE.value()]);
+        criticalFlowIncreasing = isIncreasing(table[Property.CRITICAL_FLOW.value()]);
+    }
+
+    /**
+     * Construct a tabulated cross section with <code>n</code> evenly spaced
+     * elevations from the thalweg of <code>crossSection</code> to
+     * <code>maxElevation</code>
+     *
+     * @param crossSection Cross section to tabulate
+     * @param maxElevation Highest tabulated elevation
+     * @param n            Number of tabulated elevations
+     */
+    public TabulatedCrossSection(CrossSection crossSection, double maxElevation, int n) {
+        this(crossSection, evenlySpaced(crossSection, maxElevation, n));
+    }
+
+    static double[] evenlySpaced(CrossSection crossSection, double maxElevation, int n) {
+
+        if (crossSection == null)
+            throw new NullPointerException();
+
+        double minElevation = crossSection.thalweg();
+
+        if (!Double.isFinite(maxElevation) || maxElevation <= minElevation)
+            throw new IllegalArgumentException();
+
+        if (n < 2)
+            throw new IllegalArgumentException();
+
+        double[] elevations = new double[n];
+        double h = (maxElevation - minElevation) / (n - 1);
+
+        for (int i = 0; i < n - 1; i++)
+            elevations[i] = minElevation + i * h;
+        elevations[n - 1] = maxElevation;
+
+        return elevations;
+    }
+
+    /*
+     * maximum interpolation error of each property column of table at the interval
+     * midpoints
+     */
+    private static double[] midpointErrors(CrossSection crossSection, double[] elevations, double[][] table) {
+
+        int n = elevations.length;
+        int nProperties = Property.values().length;
+
+        double[] errorEstimate = new double[nProperties];
+
+        double[] midpoints = new double[n - 1];
+        for (int i = 0; i < n - 1; i++)
+            midpoints[i] = 0.5 * (elevations[i] + elevations[i + 1]);
+
+        double[][] midpointTable = crossSection.properties(midpoints, CrossSectionProperties.columns(n - 1));
+
+        double error;
+        for (Property p : Property.values()) {
+            double[] column = table[p.value()];
+            double[] midpointColumn = midpointTable[p.value()];
+            for (int i = 0; i < n - 1; i++) {
+                error = Math.abs(midpointColumn[i] - 0.5 * (column[i] + column[i + 1]));
+                if (error > errorEstimate[p.value()] || Double.isNaN(error))
+                    errorEstimate[p.value()] = error;
+            }
+        }
+
+        return errorEstimate;
+    }
+
+    private static boolean isIncreasing(double[] column) {
+        for (int i = 1; i < column.length; i++) {
+            if (!(column[i] > column[i - 1]))
+                return false;
+        }
+        return true;
+    }
+
+    /*
+     * index of the table interval containing y. y must be within the table.
+     */
+    private int interval(double y) {
+
+        int i = Arrays.binarySearch(elevations, y);
+
+        if (i < 0)
+            i = -i - 2;
+
+        if (i == elevations.length - 1)
+            i--;
+
+        return i;
+    }
+
+    /*
+     * elevation at which column is equal to value by inverse linear interpolation.
+     * column must be increasing and value must be within the column.
+     */
+    private double inverse(double[] column, double value) {
+
+        int i = Arrays.binarySearch(column, value);
+
+        if (i >= 0)
+            return elevations[i];
+
+        i = -i - 2;
+
+        double w = (value - column[i]) / (column[i + 1] - column[i]);
+
+        return elevations[i] + w * (elevations[i + 1] - elevations[i]);
+    }
+
+    /**
+     * Returns the largest interpolation error of property <code>p</code> measured
+     * at the midpoints of the table intervals
+     *
+     * @param p Cross section property
+     *
+     * @return Interpolation error estimate
+     */
+    public double errorEstimate(Property p) {
+        return errorEstimate[p.value()];
+    }
+
+    /**
+     * Returns a copy of the tabulated elevations
+     *
+     * @return Tabulated elevations
+     */
+    public double[] elevations() {
+        return Arrays.copyOf(elevations, elevations.length);
+    }
+
+    /**
+     * Computes hydraulic properties for an elevation by table interpolation
+     *
+     * @param y Elevation
+     *
+     * @return Hydraulic properties for elevation <code>y</code>
+     */
+    public CrossSectionProperties properties(double y) {
+        return properties(y, new CrossSectionProperties());
+    }
+
+    /**
+     * Computes hydraulic properties for an elevation by table interpolation,
+     * writing the results into <code>properties</code>
+     *
+     * @param y          Elevation
+     * @param properties Properties holder to write results into
+     *
+     * @return <code>properties</code>, containing hydraulic properties for
+     *         elevation <code>y</code>
+     */
+    public CrossSectionProperties properties(double y, CrossSectionProperties properties) {
+
+        if (!Double.isFinite(y))
+            throw new IllegalArgumentException();
+
+        if (properties == null)
+            throw new NullPointerException();
+
+        int n = elevations.length;
+
+        if (y < elevations[0] || elevations[n - 1] < y)
+            return crossSection.properties(y, properties);
+
+        int i = interval(y);
+        double w = (y - elevations[i]) / (elevations[i + 1] - elevations[i]);
+
+        for (Property p : Property.values()) {
+            double[] column = table[p.value()];
+            properties.setValue(p, column[i] + w * (column[i + 1] - column[i]));
+        }
+
+        return properties;
+    }
+
+    /**
+     * Computes critical elevation for discharge <code>Q</code>
+     *
+     * @param Q Critical discharge
+     *
+     * @return Critical elevation for discharge <code>Q</code>
+     */
+    public double criticalY(double Q) {
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        double[] column = table[Property.CRITICAL_FLOW.value()];
+
+        if (!criticalFlowIncreasing || Q < column[0] || column[column.length - 1] < Q)
+            return crossSection.criticalY(Q);
+
+        return inverse(column, Q);
+    }
+
+    /**
+     * Computes critical elevation for critical discharge <code>Q</code> using
+     * <code>y0</code> as an initial estimate
+     * <p>
+     * <code>y0</code> is only used when the critical elevation is outside of the
+     * table.
+     *
+     * @param Q  Critical discharge
+     * @param y0 Initial estimate of critical elevation
+     *
+     * @return Critical elevation for discharge <code>Q</code>
+     */
+    public double criticalY(double Q, double y0) {
+
+        if (!Double.isFinite(y0) || y0 <= thalweg())
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        double[] column = table[Property.CRITICAL_FLOW.value()];
+
+        if (!criticalFlowIncreasing || Q < column[0] || column[column.length - 1] < Q)
+            return crossSection.criticalY(Q, y0);
+
+        return inverse(column, Q);
+    }
+
+    /**
+     * Computes normal elevation for discharge <code>Q</code> and slope
+     * <code>S</code>
+     *
+     * @param Q Normal discharge
+     * @param S Channel slope
+     *
+     * @return Normal elevation for discharge <code>Q</code> and slope
+     *         <code>S</code>
+     */
+    public double normalY(double Q, double S) {
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        double conveyance = Q / Math.sqrt(S);
+        double[] column = table[Property.CONVEYANCE.value()];
+
+        if (!conveyanceIncreasing || conveyance < column[0] || column[column.length - 1] < conveyance)
+            return crossSection.normalY(Q, S);
+
+        return inverse(column, conveyance);
+    }
+
+    /**
+     * Computes normal elevation for discharge <code>Q</code> and slope
+     * <code>S</code> using <code>y0</code> as an initial estimate
+     * <p>
+     * <code>y0</code> is only used when the normal elevation is outside of the
+     * table.
+     *
+     * @param Q  Normal discharge
+     * @param S  Channel slope
+     * @param y0 Initial estimate of normal elevation
+     *
+     * @return Normal elevation for discharge <code>Q</code> and slope
+     *         <code>S</code>
+     */
+    public double normalY(double Q, double S, double y0) {
+
+        if (!Double.isFinite(y0) || y0 <= thalweg())
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        double conveyance = Q / Math.sqrt(S);
+        double[] column = table[Property.CONVEYANCE.value()];
+
+        if (!conveyanceIncreasing || conveyance < column[0] || column[column.length - 1] < conveyance)
+            return crossSection.normalY(Q, S, y0);
+
+        return inverse(column, conveyance);
+    }
+
+    /**
+     * Computes normal elevation for discharge <code>Q</code> and slope
+     * <code>S</code>, returning the root finding solution
+     * <p>
+     * A normal elevation within the table is found in 0 iterations. Otherwise,
+     * the solution of the underlying cross section is returned.
+     *
+     * @param Q Normal discharge
+     * @param S Channel slope
+     *
+     * @return Normal elevation solution
+     */
+    @Override
+    public SecantSolution normalSolution(double Q, double S) {
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        if (!inTable(Q, S))
+            return crossSection.normalSolution(Q, S);
+
+        return new SecantSolution(true, 0, normalY(Q, S));
+    }
+
+    /**
+     * Computes normal elevation for discharge <code>Q</code> and slope
+     * <code>S</code> using <code>y0</code> as an initial estimate, returning the
+     * root finding solution
+     *
+     * @param Q  Normal discharge
+     * @param S  Channel slope
+     * @param y0 Initial estimate of normal elevation
+     *
+     * @return Normal elevation solution
+     */
+    @Override
+    public SecantSolution normalSolution(double Q, double S, double y0) {
+
+        if (!Double.isFinite(y0) || y0 <= thalweg())
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(Q) || Q <= 0)
+            throw new IllegalArgumentException();
+
+        if (!Double.isFinite(S) || S <= 0)
+            throw new IllegalArgumentException();
+
+        if (!inTable(Q, S))
+            return crossSection.normalSolution(Q, S, y0);
+
+        return new SecantSolution(true, 0, normalY(Q, S));
+    }
+
+    /*
+     * true if the normal elevation for Q and S is found in the table
+     */
+    private boolean inTable(double Q, double S) {
+        double conveyance = Q / Math.sqrt(S);
+        double[] column = table[Property.CONVEYANCE.value()];
+        return conveyanceIncreasing && column[0] <= conveyance && conveyance <= column[column.length - 1];
+    }
+
+    /**
+     * Returns the thalweg elevation of the tabulated cross section
+     *
+     * @return Thalweg elevation
+     */
+    public double thalweg() {
+        return crossSection.thalweg();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+        if (this == obj)
+            return true;
+
+        if (!(obj instanceof TabulatedCrossSection))
+            return false;
+
+        TabulatedCrossSection other = (TabulatedCrossSection) obj;
+
+        return crossSection.equals(other.crossSection) && Arrays.equals(elevations, other.elevations);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * crossSection.hashCode() + Arrays.hashCode(elevations);
+    }
+}
@@ -0,0 +1,95 @@
+package io.github.mmdski.codling;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BandedMatrixTest {
+
+    @Test
+    public void testSolve() {
+
+        int n = 30;
+        int kl = 2;
+        int ku = 3;
+        Random random = new Random(1);
+
+        BandedMatrix matrix = new BandedMatrix(n, kl, ku);
+        double[][] dense = new double[n][n];
+
+        for (int i = 0; i < n; i++) {
+            for (int j = Math.max(0, i - kl); j <= Math.min(n - 1, i + ku); j++) {
+                /* zero diagonal, so rows must be interchanged */
+                double value = i == j ? 0 : random.nextDouble() - 0.5;
+                matrix.set(i, j, value);
+                dense[i][j] = value;
+            }
+        }
+
+        assertEquals(n, matrix.size());
+        assertEquals(dense[3][5], matrix.get(3, 5), 0);
+        assertEquals(0, matrix.get(10, 0), 0);
+
+        double[] x = new double[n];
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++)
+            x[i] = i + 1;
+        for (int i = 0; i < n; i++)
+            for (int j = 0; j < n; j++)
+                b[i] += dense[i][j] * x[j];
+
+        assertTrue(matrix.factor());
+        assertSame(b, matrix.solve(b));
+        assertArrayEquals(x, b, 1e-9);
+
+        /* factors are reused for another right-hand side */
+        double[] b2 = new double[n];
+        for (int i = 0; i < n; i++)
+            b2[i] = dense[i][Math.min(n - 1, i + 1)];
+        matrix.solve(b2);
+        for (int i = 0; i < n; i++) {
+            double sum = 0;
+            for (int j = 0; j < n; j++)
+                sum += dense[i][j] * b2[j];
+            assertEquals(dense[i][Math.min(n - 1, i + 1)], sum, 1e-9);
+        }
+    }
+
+    @Test
+    public void testSingular() {
+
+        BandedMatrix matrix = new BandedMatrix(3, 1, 1);
+        matrix.set(0, 0, 1);
+        matrix.set(0, 1, 2);
+        matrix.set(1, 0, 2);
+        matrix.set(1, 1, 4);
+        matrix.set(2, 2, 1);
+        assertFalse(matrix.factor());
+
+        boolean illegalStateExceptionCaught = false;
+        try {
+            matrix.solve(new double[3]);
+        } catch (IllegalStateException e) {
+            illegalStateExceptionCaught = true;
+        } finally {
+            assertTrue(illegalStateExceptionCaught);
+        }
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            matrix.set(0, 2, 1);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        matrix.clear();
+        matrix.add(0, 0, 2);
+        matrix.add(1, 1, 4);
+        matrix.add(2, 2, 8);
+        assertTrue(matrix.factor());
+        assertArrayEquals(new double[] { 1, 1, 1 }, matrix.solve(new double[] { 2, 4, 8 }), 0);
+    }
+}
@@ -0,0 +1,153 @@
+package io.github.mmdski.codling;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BrentSolverTest {
+
+    /*
+     * same example as the secant solver test, starting from an interval that may
+     * or may not bracket the root
+     */
+    private class TestSolvable implements SecantSolvable {
+
+        private double x0;
+        private double x1;
+
+        public TestSolvable(double x0, double x1) {
+            this.x0 = x0;
+            this.x1 = x1;
+        }
+
+        public double firstIteration() {
+            return x0;
+        }
+
+        public double secondIteration() {
+            return x1;
+        }
+
+        public double solverFunction(double x) {
+            return x * x - 612;
+        }
+    }
+
+    @Test
+    public void testConstruction() {
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new BrentSolver(1, 0.001);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            new BrentSolver(20, 0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            new BrentSolver(20, Double.NaN);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testSolve() {
+
+        double eps = 0.003;
+        double root = 24.738633748750722;
+        RootFinder solver = new BrentSolver(20, eps);
+
+        /* bracketed */
+        SecantSolution solution = solver.solve(new TestSolvable(10, 30));
+        assertTrue(solution.solutionFound());
+        assertEquals(root, solution.solution(), eps);
+
+        /* expanded up to the root */
+        solution = solver.solve(new TestSolvable(1, 2));
+        assertTrue(solution.solutionFound());
+        assertEquals(root, solution.solution(), eps);
+
+        /* reused solution and allocation-free root */
+        SecantSolution reused = new SecantSolution();
+        assertSame(reused, solver.solve(new TestSolvable(10, 30), reused));
+        assertEquals(root, reused.solution(), eps);
+        assertEquals(reused.solution(), solver.root(new TestSolvable(10, 30)), 0);
+    }
+
+    @Test
+    public void testBoundedEvaluations() {
+
+        int maxIterations = 20;
+
+        /* counts evaluations of a function that diverges the secant method */
+        class CountingSolvable implements SecantSolvable {
+
+            int evaluations = 0;
+
+            public double firstIteration() {
+                return 0.1;
+            }
+
+            public double secondIteration() {
+                return 0.2;
+            }
+
+            public double solverFunction(double x) {
+                evaluations++;
+                return Math.atan(x - 100);
+            }
+        }
+
+        CountingSolvable solvable = new CountingSolvable();
+        SecantSolution secant = new SecantSolver(maxIterations, 0.003).solve(new CountingSolvable());
+        SecantSolution brent = new BrentSolver(maxIterations, 0.003).solve(solvable);
+
+        assertFalse(secant.solutionFound());
+        assertTrue(brent.solutionFound());
+        assertEquals(100, brent.solution(), 0.003);
+        assertEquals(solvable.evaluations, brent.iterations());
+        assertTrue(brent.iterations() <= 2 + 50 + maxIterations);
+    }
+
+    @Test
+    public void testSolutionNotFound() {
+
+        RootFinder solver = new BrentSolver(20, 0.003);
+
+        /* no root */
+        SecantSolvable solvable = new TestSolvable(1, 2) {
+            public double solverFunction(double x) {
+                return x * x + 1;
+            }
+        };
+
+        SecantSolution solution = solver.solve(solvable);
+        assertFalse(solution.solutionFound());
+        assertTrue(Double.isNaN(solution.solution()));
+        assertTrue(Double.isNaN(solver.root(solvable)));
+
+        /* non-finite function value */
+        solvable = new TestSolvable(1, 2) {
+            public double solverFunction(double x) {
+                return Double.NaN;
+            }
+        };
+
+        solution = solver.solve(solvable);
+        assertFalse(solution.solutionFound());
+        assertTrue(Double.isNaN(solution.solution()));
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.mmdski.codling;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class ConcurrentNormalElevationBCTest {
+
+    private static double normalDischarge(RectangularCrossSection xs, double depth, double slope) {
+        CrossSectionProperties properties = xs.properties(depth);
+        return properties.value(CrossSectionProperties.Property.CONVEYANCE) * Math.sqrt(slope);
+    }
+
+    @Test
+    public void testConstruction() {
+
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03);
+        boolean illegalArgumentExceptionCaught;
+
+        ConcurrentNormalElevationBC bc = new ConcurrentNormalElevationBC(xs, 0.001);
+        assertEquals(0, bc.cacheSize());
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            bc = new ConcurrentNormalElevationBC(null, 0.001);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            bc = new ConcurrentNormalElevationBC(xs, Double.NaN);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            bc = new ConcurrentNormalElevationBC(xs, 0.001, 0, 1);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            bc.elevation(Double.NaN);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testRandomOrder() {
+
+        double slope = 0.001;
+        double thalweg = 100;
+        double eps = 0.003;
+        int capacity = 8;
+
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03);
+        ConcurrentNormalElevationBC bc = new ConcurrentNormalElevationBC(xs, slope, thalweg, capacity);
+        Random random = new Random(1);
+
+        for (int i = 0; i < 200; i++) {
+            double depth = 0.5 + 5 * random.nextDouble();
+            double q = normalDischarge(xs, depth, slope);
+            assertEquals(depth + thalweg, bc.elevation(q), eps);
+            assertTrue(bc.cacheSize() <= capacity);
+        }
+
+        assertEquals(capacity, bc.cacheSize());
+
+        /* cached discharges are answered exactly */
+        double q = normalDischarge(xs, 2, slope);
+        double elevation = bc.elevation(q);
+        assertEquals(elevation, bc.elevation(q), 0);
+    }
+
+    @Test
+    public void testSeedFailure() {
+
+        double slope = 0.001;
+        double eps = 0.003;
+
+        /* the seeded solve never converges, the unseeded solve is used instead */
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03) {
+            @Override
+            public SecantSolution normalSolution(double Q, double S, double y0) {
+                return new SecantSolution(false, 20, Double.NaN);
+            }
+        };
+
+        ConcurrentNormalElevationBC bc = new ConcurrentNormalElevationBC(xs, slope);
+        SolverStatistics statistics = new SolverStatistics();
+        bc.setListener(statistics);
+
+        assertEquals(1, bc.elevation(normalDischarge(xs, 1, slope)), eps);
+        assertEquals(0, statistics.normalElevationFailures());
+        long iterations = statistics.normalElevationIterations();
+
+        /* seeded from the cached stage */
+        assertEquals(2, bc.elevation(normalDischarge(xs, 2, slope)), eps);
+        assertEquals(0, statistics.normalElevationFailures());
+        assertTrue(statistics.normalElevationIterations() - iterations > 20);
+        assertEquals(2, bc.cacheSize());
+    }
+
+    @Test
+    public void testConcurrent() {
+
+        double slope = 0.001;
+        double eps = 0.003;
+
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03);
+        ConcurrentNormalElevationBC bc = new ConcurrentNormalElevationBC(xs, slope);
+
+        int n = 2000;
+        double[] depth = new double[n];
+        double[] elevation = new double[n];
+        Random random = new Random(2);
+        for (int i = 0; i < n; i++)
+            depth[i] = 0.5 + 5 * random.nextDouble();
+
+        IntStream.range(0, n).parallel()
+                .forEach(i -> elevation[i] = bc.elevation(normalDischarge(xs, depth[i], slope)));
+
+        for (int i = 0; i < n; i++)
+            assertEquals(depth[i], elevation[i], eps);
+
+        assertTrue(bc.cacheSize() <= ConcurrentNormalElevationBC.DEFAULT_CAPACITY);
+    }
+}
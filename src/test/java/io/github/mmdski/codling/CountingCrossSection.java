@@ -0,0 +1,22 @@
+package io.github.mmdski.codling;
+
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+/*
+ * rectangular cross section that counts property evaluations
+ */
+class CountingCrossSection extends RectangularCrossSection {
+
+    int evaluations = 0;
+
+    CountingCrossSection(double width, double roughness) {
+        super(width, roughness);
+    }
+
+    @Override
+    public CrossSectionProperties properties(double y, CrossSectionProperties properties) {
+        evaluations++;
+        return super.properties(y, properties);
+    }
+}
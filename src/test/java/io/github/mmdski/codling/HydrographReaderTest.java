@@ -0,0 +1,98 @@
+package io.github.mmdski.codling;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HydrographReaderTest {
+
+    private boolean invalid(String text, int nodes) throws IOException {
+
+        boolean ioExceptionCaught = false;
+        try (HydrographReader reader = new HydrographReader(new StringReader(text), nodes)) {
+            while (reader.next())
+                ;
+        } catch (IOException e) {
+            ioExceptionCaught = true;
+        }
+        return ioExceptionCaught;
+    }
+
+    @Test
+    public void testRead() throws IOException {
+
+        String text = "# hydrograph\ntime,q0,q1,q2\n0,10\n\n3600, 11, 12, 13\n7200 20\n";
+
+        try (HydrographReader reader = new HydrographReader(new StringReader(text), 3)) {
+
+            assertEquals(3, reader.nodes());
+            assertTrue(Double.isNaN(reader.time()));
+
+            assertTrue(reader.next());
+            assertEquals(0, reader.time(), 0);
+            assertArrayEquals(new double[] { 10, 10, 10 }, reader.discharge(new double[3]), 0);
+
+            assertTrue(reader.next());
+            assertEquals(3600, reader.time(), 0);
+            assertEquals(12, reader.discharge(1), 0);
+            assertArrayEquals(new double[] { 11, 12, 13 }, reader.discharge(new double[3]), 0);
+
+            assertTrue(reader.next());
+            assertEquals(7200, reader.time(), 0);
+            assertEquals(20, reader.discharge(2), 0);
+
+            assertFalse(reader.next());
+            assertEquals(3, reader.records());
+        }
+    }
+
+    @Test
+    public void testHeader() throws IOException {
+
+        /* a header with a different field count than the records */
+        String text = "time discharge (cfs)\n0 10\n3600 20\n";
+
+        try (HydrographReader reader = new HydrographReader(new StringReader(text), 2)) {
+
+            assertTrue(reader.next());
+            assertEquals(0, reader.time(), 0);
+            assertArrayEquals(new double[] { 10, 10 }, reader.discharge(new double[2]), 0);
+
+            assertTrue(reader.next());
+            assertEquals(3600, reader.time(), 0);
+
+            assertFalse(reader.next());
+            assertEquals(2, reader.records());
+        }
+
+        /* only the first line may be a header */
+        assertTrue(invalid("time discharge (cfs)\ntime discharge (cfs)\n0 10\n", 2));
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+
+        /* decreasing time */
+        assertTrue(invalid("0,10\n10,10\n5,10\n", 2));
+
+        /* wrong number of discharges */
+        assertTrue(invalid("0,10,10,10\n", 2));
+
+        /* text after the first line */
+        assertTrue(invalid("0,10\ntime,q\n", 2));
+
+        assertTrue(invalid("0,NaN\n", 2));
+        assertFalse(invalid("time q\n0 10\n", 2));
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new HydrographReader(new StringReader(""), 0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package io.github.mmdski.codling;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class MixedRegimeSolverTest {
+
+    private static final double WIDTH = 10;
+    private static final double ROUGHNESS = 0.03;
+    private static final double DISCHARGE = 20;
+    private static final double DX = 50;
+    private static final int NODES = 40;
+
+    private static final RectangularCrossSection CROSS_SECTION = new RectangularCrossSection(WIDTH, ROUGHNESS);
+
+    /*
+     * reach with slope s1 in the upstream half and s2 in the downstream half
+     */
+    private Reach reach(double s1, double s2) {
+
+        double[] x = new double[NODES];
+        double[] thalweg = new double[NODES];
+        int[] xsNumber = new int[NODES];
+
+        thalweg[NODES - 1] = 0;
+        for (int i = NODES - 2; i >= 0; i--)
+            thalweg[i] = thalweg[i + 1] + DX * (i < NODES / 2 ? s1 : s2);
+
+        for (int i = 0; i < NODES; i++)
+            x[i] = DX * i;
+
+        return new Reach(x, thalweg, xsNumber, new RectangularCrossSection[] { CROSS_SECTION });
+    }
+
+    private double[] discharge() {
+        double[] discharge = new double[NODES];
+        for (int i = 0; i < NODES; i++)
+            discharge[i] = DISCHARGE;
+        return discharge;
+    }
+
+    @Test
+    public void testSpecificForce() {
+
+        double depth = 1.3;
+        ReachNode node = new ReachNode(0, 10, CROSS_SECTION);
+
+        /* exact for a rectangular channel */
+        double expected = DISCHARGE * DISCHARGE / (Constants.gravity() * WIDTH * depth) + WIDTH * depth * depth / 2;
+        assertEquals(expected, MixedRegimeSolver.specificForce(node, DISCHARGE, 10 + depth), 1e-9);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            MixedRegimeSolver.specificForce(node, DISCHARGE, 10);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testSubcritical() {
+
+        double slope = 0.001;
+        Reach reach = reach(slope, slope);
+        double[] discharge = discharge();
+
+        ElevationBC downstream = new NormalElevationBC(CROSS_SECTION, slope);
+        ElevationBC upstream = q -> CROSS_SECTION.criticalY(q) + reach.thalweg()[0];
+
+        StandardStepSolver solver = new StandardStepSolver();
+        MixedRegimeSolution solution = new MixedRegimeSolver(solver)
+                .solvePlan(reach, new MixedRegimePlan(discharge, upstream, downstream));
+        double[] expected = solver.solvePlan(reach, new SteadyPlan(discharge, downstream, BCLocation.DOWNSTREAM))
+                .wsElevation();
+
+        assertEquals(NODES, solution.length());
+        assertEquals(0, solution.jumps());
+        assertArrayEquals(expected, solution.profile().wsElevation(), 0);
+        for (int i = 0; i < NODES; i++)
+            assertFalse(solution.supercritical(i));
+    }
+
+    @Test
+    public void testHydraulicJump() {
+
+        double steep = 0.02;
+        double mild = 0.0005;
+        Reach reach = reach(steep, mild);
+        double[] thalweg = reach.thalweg();
+
+        ElevationBC upstream = q -> CROSS_SECTION.normalY(q, steep) + thalweg[0];
+        ElevationBC downstream = new NormalElevationBC(CROSS_SECTION, mild);
+        MixedRegimePlan plan = new MixedRegimePlan(discharge(), upstream, downstream);
+
+        StandardStepSolver solver = new StandardStepSolver();
+        ForkJoinPool serialPool = new ForkJoinPool(1);
+        MixedRegimeSolution solution = new MixedRegimeSolver(solver).solvePlan(reach, plan);
+        MixedRegimeSolution serial = new MixedRegimeSolver(solver, serialPool).solvePlan(reach, plan);
+        serialPool.shutdown();
+
+        assertArrayEquals(serial.profile().wsElevation(), solution.profile().wsElevation(), 0);
+
+        assertEquals(1, solution.jumps());
+        assertTrue(solution.supercritical(0));
+        assertFalse(solution.supercritical(NODES - 1));
+
+        double[] wse = solution.profile().wsElevation();
+        for (int i = 0; i < NODES; i++) {
+            if (solution.supercritical(i))
+                assertTrue(wse[i] < solution.criticalElevation(i));
+            else
+                assertTrue(wse[i] >= solution.criticalElevation(i));
+        }
+
+        /* both passes are reported, and nodes set to critical are failures */
+        SolverStatistics statistics = new SolverStatistics();
+        new MixedRegimeSolver(new StandardStepSolver(new SecantSolver(20, 0.003), statistics)).solvePlan(reach,
+                plan);
+        assertEquals(2, statistics.plans());
+        assertEquals(1, statistics.solves(0));
+        assertEquals(2, statistics.solves(NODES / 2));
+        assertEquals(1, statistics.solves(NODES - 1));
+        assertTrue(statistics.failures() > 0);
+
+        /* the supercritical profile reaches normal depth on the steep slope */
+        double normalDepth = CROSS_SECTION.normalY(DISCHARGE, steep);
+        assertEquals(normalDepth, wse[5] - thalweg[5], 0.01);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new MixedRegimePlan(new double[] { 1, 0 }, upstream, downstream);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package io.github.mmdski.codling;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class NetworkSolverTest {
+
+    private static final double SLOPE = 0.001;
+    private static final double DX = 100;
+    private static final int NODES = 10;
+
+    private static final CrossSection[] CROSS_SECTIONS = { new RectangularCrossSection(10, 0.03) };
+
+    /*
+     * reach of NODES nodes whose last node is p0 nodes upstream of the network
+     * outlet
+     */
+    private Reach reach(int p0) {
+
+        double[] x = new double[NODES];
+        double[] thalweg = new double[NODES];
+        int[] xsNumber = new int[NODES];
+
+        for (int k = 0; k < NODES; k++) {
+            int p = p0 + NODES - 1 - k;
+            x[k] = -p * DX;
+            thalweg[k] = p * DX * SLOPE;
+        }
+
+        return new Reach(x, thalweg, xsNumber, CROSS_SECTIONS);
+    }
+
+    private double[] constant(int n, double value) {
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++)
+            a[i] = value;
+        return a;
+    }
+
+    @Test
+    public void testJunction() {
+
+        /* two tributaries joining an outlet reach */
+        Reach[] reaches = { reach(NODES), reach(NODES), reach(0) };
+        RiverNetwork network = new RiverNetwork(reaches, new int[] { 2, 2, -1 }, new double[] { DX, DX, 0 });
+        double[][] discharge = { constant(NODES, 20), constant(NODES, 10), constant(NODES, 30) };
+        ElevationBC bc = new NormalElevationBC(CROSS_SECTIONS[0], SLOPE);
+
+        NetworkPlan plan = new NetworkPlan(network, discharge, bc);
+        StandardStepSolver solver = new StandardStepSolver();
+        NetworkSolution solution = new NetworkSolver(solver).solve(plan);
+
+        assertEquals(3, solution.size());
+        assertEquals(bc.elevation(30), plan.bcElevation(), 0);
+
+        /* each tributary matches a single reach through the junction */
+        for (int t = 0; t < 2; t++) {
+
+            Reach tributary = reaches[t];
+            Reach outlet = reaches[2];
+            double[] x = new double[2 * NODES];
+            double[] thalweg = new double[2 * NODES];
+            double[] q = new double[2 * NODES];
+            for (int k = 0; k < NODES; k++) {
+                x[k] = tributary.distanceDownstream()[k];
+                x[k + NODES] = outlet.distanceDownstream()[k];
+                thalweg[k] = tributary.thalweg()[k];
+                thalweg[k + NODES] = outlet.thalweg()[k];
+                q[k] = discharge[t][k];
+                q[k + NODES] = discharge[2][k];
+            }
+
+            Reach single = new Reach(x, thalweg, new int[2 * NODES], CROSS_SECTIONS);
+            double[] expected = solver.solvePlan(single, new SteadyPlan(q, bc, BCLocation.DOWNSTREAM)).wsElevation();
+
+            double[] wse = solution.solution(t).wsElevation();
+            double[] outletWse = solution.solution(2).wsElevation();
+            for (int k = 0; k < NODES; k++) {
+                assertEquals(expected[k], wse[k], 1e-9);
+                assertEquals(expected[k + NODES], outletWse[k], 1e-9);
+            }
+        }
+
+        /* flow must be conserved at the junction */
+        discharge[2] = constant(NODES, 31);
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new NetworkPlan(network, discharge, bc);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testJunctionStep() {
+
+        Reach[] reaches = { reach(NODES), reach(0) };
+        RiverNetwork network = new RiverNetwork(reaches, new int[] { 1, -1 }, new double[] { DX, 0 });
+        double[][] discharge = { constant(NODES, 20), constant(NODES, 20) };
+        NetworkPlan plan = new NetworkPlan(network, discharge, new NormalElevationBC(CROSS_SECTIONS[0], SLOPE));
+
+        /* junction steps are reported with the last node of the tributary */
+        SolverStatistics statistics = new SolverStatistics();
+        new NetworkSolver(new StandardStepSolver(new SecantSolver(20, 0.003), statistics)).solve(plan);
+        assertEquals(2, statistics.plans());
+        assertEquals(1, statistics.solves(NODES - 1));
+        assertEquals(2, statistics.solves(NODES - 2));
+
+        /*
+         * a root finder that fails on the junction step, the first step after the
+         * NODES - 1 steps of the outlet reach
+         */
+        SecantSolver secant = new SecantSolver(20, 0.003);
+        RootFinder failing = new RootFinder() {
+
+            int calls = 0;
+
+            public SecantSolution solve(SecantSolvable solvable, SecantSolution solution) {
+                secant.solve(solvable, solution);
+                if (++calls == NODES)
+                    solution.setValues(false, 20, solution.solution(), solution.residual());
+                return solution;
+            }
+
+            public double root(SecantSolvable solvable) {
+                return secant.root(solvable);
+            }
+        };
+
+        ForkJoinPool serialPool = new ForkJoinPool(1);
+        boolean illegalStateExceptionCaught = false;
+        try {
+            new NetworkSolver(new StandardStepSolver(failing), serialPool).solve(plan);
+        } catch (IllegalStateException e) {
+            illegalStateExceptionCaught = true;
+        } finally {
+            serialPool.shutdown();
+            assertTrue(illegalStateExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testParallel() {
+
+        /* binary tree of reaches, reach i flows into reach (i - 1) / 2 */
+        int levels = 5;
+        int n = (1 << levels) - 1;
+
+        Reach[] reaches = new Reach[n];
+        int[] downstream = new int[n];
+        double[] junctionLength = constant(n, DX);
+        double[][] discharge = new double[n][];
+
+        for (int i = 0; i < n; i++) {
+            int level = 31 - Integer.numberOfLeadingZeros(i + 1);
+            reaches[i] = reach(level * NODES);
+            downstream[i] = i == 0 ? -1 : (i - 1) / 2;
+            discharge[i] = constant(NODES, 5 * (1 << (levels - 1 - level)));
+        }
+
+        RiverNetwork network = new RiverNetwork(reaches, downstream, junctionLength);
+        NetworkPlan plan = new NetworkPlan(network, discharge, new NormalElevationBC(CROSS_SECTIONS[0], SLOPE));
+        StandardStepSolver solver = new StandardStepSolver();
+
+        ForkJoinPool serialPool = new ForkJoinPool(1);
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+
+        NetworkSolution serial = new NetworkSolver(solver, serialPool).solve(plan);
+        NetworkSolution parallel = new NetworkSolver(solver, parallelPool).solve(plan);
+
+        serialPool.shutdown();
+        parallelPool.shutdown();
+
+        for (int i = 0; i < n; i++) {
+            double[] wse = parallel.solution(i).wsElevation();
+            double[] thalweg = parallel.solution(i).thalwegElevation();
+            assertArrayEquals(serial.solution(i).wsElevation(), wse, 0);
+            for (int k = 0; k < NODES; k++)
+                assertTrue(wse[k] > thalweg[k]);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.github.mmdski.codling;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class ParallelPlanRunnerTest {
+
+    @Test
+    public void testSolvePlans() {
+
+        double slope = 0.001;
+        double dx = 100;
+        int nNodes = 50;
+        int nPlans = 64;
+
+        Reach reach = SlopedReach.reach(new RectangularCrossSection(10, 0.03), nNodes, dx, slope);
+
+        SteadyPlan[] plans = new SteadyPlan[nPlans];
+        ElevationBC bc = discharge -> 5;
+        for (int p = 0; p < nPlans; p++) {
+            double[] discharge = new double[nNodes];
+            for (int i = 0; i < nNodes; i++)
+                discharge[i] = 1 + p;
+            plans[p] = new SteadyPlan(discharge, bc, BCLocation.DOWNSTREAM);
+        }
+
+        StandardStepSolver solver = new StandardStepSolver();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelPlanRunner runner = new ParallelPlanRunner(solver, pool);
+
+        StandardStepSolution[] solutions = runner.solvePlans(reach, plans);
+        pool.shutdown();
+
+        assertEquals(nPlans, solutions.length);
+        for (int p = 0; p < nPlans; p++) {
+            StandardStepSolution expected = solver.solvePlan(reach, plans[p]);
+            assertArrayEquals(expected.wsElevation(), solutions[p].wsElevation(), 0);
+        }
+
+        /* empty list of plans */
+        assertEquals(0, new ParallelPlanRunner(solver).solvePlans(reach, new SteadyPlan[0]).length);
+
+        /* exceptions thrown while solving are rethrown */
+        SteadyPlan[] shortPlans = { new SteadyPlan(new double[2], bc, BCLocation.DOWNSTREAM) };
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new ParallelPlanRunner(solver).solvePlans(reach, shortPlans);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
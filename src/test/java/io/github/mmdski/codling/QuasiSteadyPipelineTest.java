@@ -0,0 +1,65 @@
+package io.github.mmdski.codling;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class QuasiSteadyPipelineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRun() throws IOException {
+
+        int nNodes = 30;
+        double slope = 0.001;
+        RectangularCrossSection crossSection = new RectangularCrossSection(10, 0.03);
+
+        Reach reach = SlopedReach.reach(crossSection, nNodes, 100, slope);
+
+        int records = 48;
+        StringBuilder text = new StringBuilder("time,discharge\n");
+        for (int r = 0; r < records; r++)
+            text.append(3600 * r).append(',').append(20 + 10 * Math.sin(Math.PI * r / 24)).append('\n');
+
+        ElevationBC bc = new NormalElevationBC(crossSection, slope);
+        StandardStepSolver solver = new StandardStepSolver();
+        QuasiSteadyPipeline pipeline = new QuasiSteadyPipeline(solver, reach, bc, BCLocation.DOWNSTREAM);
+        Path path = folder.newFile("series.bin").toPath();
+
+        try (HydrographReader hydrograph = new HydrographReader(new StringReader(text.toString()), nNodes);
+                TimeSeriesWriter writer = new TimeSeriesWriter(path, nNodes, 16)) {
+            assertEquals(records, pipeline.run(hydrograph, writer));
+        }
+
+        double[] q = new double[nNodes];
+        double[] wse = new double[nNodes];
+
+        try (TimeSeriesReader reader = new TimeSeriesReader(path);
+                HydrographReader hydrograph = new HydrographReader(new StringReader(text.toString()), nNodes)) {
+
+            assertEquals(records, reader.records());
+
+            for (int r = 0; r < records; r++) {
+
+                assertTrue(hydrograph.next());
+                double[] discharge = hydrograph.discharge(new double[nNodes]);
+                double[] expected = solver.solvePlan(reach, new SteadyPlan(discharge, bc, BCLocation.DOWNSTREAM))
+                        .wsElevation();
+
+                assertEquals(hydrograph.time(), reader.read(r, q, wse), 0);
+                assertArrayEquals(discharge, q, 0);
+                assertArrayEquals(expected, wse, 0.01);
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package io.github.mmdski.codling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class RatingCurveElevationBCTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testInterpolation() {
+
+        double[] q = { 0, 1, 2, 10, 11, 30 };
+        double[] y = { 0, 0.5, 2, 2.1, 5, 6 };
+        RatingCurveElevationBC bc = new RatingCurveElevationBC(new RatingCurve(q, y), 100);
+
+        assertEquals(6, bc.length());
+        assertEquals(100, bc.thalwegElevation(), 0);
+
+        /* table points are reproduced */
+        for (int i = 0; i < q.length; i++)
+            assertEquals(y[i] + 100, bc.elevation(q[i]), 1e-12);
+
+        /* monotone between table points */
+        double last = bc.elevation(0);
+        for (double discharge = 0.01; discharge <= 30; discharge += 0.01) {
+            double elevation = bc.elevation(discharge);
+            assertTrue(elevation >= last);
+            last = elevation;
+        }
+
+        /* linear tables are interpolated exactly */
+        bc = new RatingCurveElevationBC(new RatingCurve(new double[] { 0, 1, 3, 4 }, new double[] { 1, 2, 4, 5 }));
+        assertEquals(3.5, bc.elevation(2.5), 1e-12);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            bc.elevation(4.5);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            new RatingCurveElevationBC(null);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testNormalDepth() {
+
+        double slope = 0.001;
+        double tolerance = 0.001;
+        double thalweg = 10;
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(10, 0.03);
+        RatingCurveElevationBC bc = RatingCurveElevationBC.normalDepth(crossSection, slope, 10, tolerance, thalweg);
+        NormalElevationBC normal = new NormalElevationBC(crossSection, slope, thalweg);
+
+        for (double discharge = 1; discharge < 200; discharge += 3)
+            assertEquals(normal.elevation(discharge), bc.elevation(discharge), tolerance);
+    }
+
+    @Test
+    public void testRead() throws IOException {
+
+        Path path = folder.newFile("rating.csv").toPath();
+        Files.write(path, Arrays.asList("# rating curve", "discharge,stage", "0,0", "", "10, 1.5", "25 3"));
+
+        RatingCurveElevationBC bc = RatingCurveElevationBC.read(path, 2);
+        assertEquals(3, bc.length());
+        assertEquals(3.5, bc.elevation(10), 0);
+        assertEquals(5, bc.elevation(25), 0);
+
+        Files.write(path, Arrays.asList("0,0", "10,1.5", "stage,discharge"));
+        boolean ioExceptionCaught = false;
+        try {
+            RatingCurveElevationBC.read(path, 0);
+        } catch (IOException e) {
+            ioExceptionCaught = true;
+        } finally {
+            assertTrue(ioExceptionCaught);
+        }
+
+        Files.write(path, Arrays.asList("0,0", "10,1.5", "5,2"));
+        ioExceptionCaught = false;
+        try {
+            RatingCurveElevationBC.read(path, 0);
+        } catch (IOException e) {
+            ioExceptionCaught = true;
+        } finally {
+            assertTrue(ioExceptionCaught);
+        }
+    }
+}
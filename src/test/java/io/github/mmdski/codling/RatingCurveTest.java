@@ -0,0 +1,120 @@
+package io.github.mmdski.codling;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.crosssection.CoArray;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.IrregularCrossSection;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class RatingCurveTest {
+
+    @Test
+    public void testConstruction() {
+
+        RatingCurve curve = new RatingCurve(new double[] { 0, 10, 30 }, new double[] { 1, 2, 4 });
+        assertEquals(3, curve.length());
+        assertEquals(1.5, curve.stage(5), 0);
+        assertEquals(20, curve.discharge(3), 0);
+        assertEquals(4, curve.stage(30), 0);
+        assertEquals(0, curve.discharge(1), 0);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new RatingCurve(new double[] { 0, 10, 10 }, new double[] { 1, 2, 4 });
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            curve.stage(31);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            curve.discharge(Double.NaN);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testNormalDepth() {
+
+        double slope = 0.001;
+        double tolerance = 0.001;
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(10, 0.03);
+        RatingCurve curve = RatingCurve.normalDepth(crossSection, slope, 10, tolerance);
+
+        double[] q = curve.discharge();
+        double[] y = curve.stage();
+
+        assertEquals(0, y[0], 0);
+        assertEquals(10, y[y.length - 1], 0);
+        assertTrue(curve.length() < 1000);
+
+        for (double depth = 0.05; depth < 10; depth += 0.05) {
+            CrossSectionProperties properties = crossSection.properties(depth);
+            double normalDischarge = properties.value(CrossSectionProperties.Property.CONVEYANCE) * Math.sqrt(slope);
+            assertEquals(depth, curve.stage(normalDischarge), 2 * tolerance);
+        }
+
+        for (int i = 0; i < q.length; i++)
+            assertEquals(q[i], curve.discharge(curve.stage(q[i])), 1e-9 * q[q.length - 1]);
+    }
+
+    @Test
+    public void testNormalDepthNode() {
+
+        double slope = 0.001;
+        double tolerance = 0.001;
+
+        double[] y = { 5, 1, 0, 0.5, 1, 5 };
+        double[] z = { 0, 2, 4, 8, 12, 14 };
+        IrregularCrossSection crossSection = new IrregularCrossSection(new CoArray(y, z), 0.035);
+        ReachNode node = new ReachNode(0, 100, crossSection);
+
+        RatingCurve curve = RatingCurve.normalDepth(node, slope, 104, tolerance);
+        RatingCurve xsCurve = RatingCurve.normalDepth(crossSection, slope, 4, tolerance);
+
+        assertEquals(100, curve.stage()[0], 0);
+        assertEquals(xsCurve.length(), curve.length());
+
+        for (double stage = 100.1; stage < 104; stage += 0.1) {
+            double conveyance = crossSection.properties(stage - 100).value(CrossSectionProperties.Property.CONVEYANCE);
+            double normalDischarge = conveyance * Math.sqrt(slope);
+            assertEquals(stage, curve.stage(normalDischarge), 2 * tolerance);
+            assertEquals(xsCurve.stage(normalDischarge) + 100, curve.stage(normalDischarge), 1e-9);
+        }
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            RatingCurve.normalDepth(node, slope, 100, tolerance);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        /* tolerance finer than the precision of the stages */
+        illegalArgumentExceptionCaught = false;
+        try {
+            RatingCurve.normalDepth(node, slope, 104, Math.ulp(104.0));
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
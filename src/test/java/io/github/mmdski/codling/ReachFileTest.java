@@ -0,0 +1,185 @@
+package io.github.mmdski.codling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.CoArray;
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.CrossSectionRegistry;
+import io.github.mmdski.codling.crosssection.IrregularCrossSection;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+import io.github.mmdski.codling.crosssection.TabulatedCrossSection;
+
+public class ReachFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Reach reach() {
+
+        double[] y = { 5, 1, 0, 0.5, 1, 5 };
+        double[] z = { 0, 2, 4, 8, 12, 14 };
+        CrossSection[] crossSections = { new RectangularCrossSection(10, 0.03),
+                new IrregularCrossSection(new CoArray(y, z), 0.035) };
+
+        int n = 40;
+        double[] x = new double[n];
+        double[] thalweg = new double[n];
+        int[] xsNumber = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            x[i] = 100 * i;
+            thalweg[i] = (n - i - 1) * 0.1;
+            xsNumber[i] = (i / 5) % 2;
+        }
+
+        return new Reach(x, thalweg, xsNumber, crossSections);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+
+        Reach reach = reach();
+        Path path = folder.newFile("reach.bin").toPath();
+
+        ReachFile.write(reach, path);
+        Reach read = ReachFile.read(path);
+
+        assertEquals(reach.length(), read.length());
+        assertArrayEquals(reach.distanceDownstream(), read.distanceDownstream(), 0);
+        assertArrayEquals(reach.thalweg(), read.thalweg(), 0);
+
+        /* shared cross sections are stored once */
+        assertSame(read.reachNodes[0].crossSection(), read.reachNodes[4].crossSection());
+        assertSame(read.reachNodes[5].crossSection(), read.reachNodes[15].crossSection());
+
+        for (int i = 0; i < reach.length(); i++) {
+            CrossSection expected = reach.reachNodes[i].crossSection();
+            CrossSection actual = read.reachNodes[i].crossSection();
+            assertEquals(expected.thalweg(), actual.thalweg(), 0);
+            for (double y = 0.5; y < 5; y += 0.5) {
+                CrossSectionProperties p = expected.properties(y);
+                CrossSectionProperties q = actual.properties(y);
+                for (CrossSectionProperties.Property property : CrossSectionProperties.Property.values())
+                    assertEquals(p.value(property), q.value(property), 0);
+            }
+        }
+
+        /* solutions agree */
+        double[] discharge = new double[reach.length()];
+        for (int i = 0; i < discharge.length; i++)
+            discharge[i] = 20;
+        SteadyPlan plan = new SteadyPlan(discharge, q -> 3, BCLocation.DOWNSTREAM);
+        StandardStepSolver solver = new StandardStepSolver();
+        assertArrayEquals(solver.solvePlan(reach, plan).wsElevation(), solver.solvePlan(read, plan).wsElevation(),
+                0);
+    }
+
+    @Test
+    public void testRewrite() throws IOException {
+
+        Path path = folder.newFile("reach.bin").toPath();
+        Path copy = folder.newFile("copy.bin").toPath();
+
+        ReachFile.write(reach(), path);
+        Reach read = ReachFile.read(path);
+
+        /* a reach read from a file can be written again, unchanged */
+        ReachFile.write(read, copy);
+        assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(copy));
+
+        Reach reread = ReachFile.read(copy);
+        assertArrayEquals(read.distanceDownstream(), reread.distanceDownstream(), 0);
+        assertArrayEquals(read.thalweg(), reread.thalweg(), 0);
+
+        /* mapped sections of both files are equal and intern together */
+        CrossSection mapped = read.reachNodes[5].crossSection();
+        CrossSection remapped = reread.reachNodes[5].crossSection();
+        assertNotSame(mapped, remapped);
+        assertEquals(mapped, remapped);
+        assertEquals(mapped.hashCode(), remapped.hashCode());
+        assertNotEquals(mapped, reread.reachNodes[0].crossSection());
+
+        CrossSectionRegistry registry = new CrossSectionRegistry();
+        assertSame(registry.intern(mapped), registry.intern(remapped));
+    }
+
+    @Test
+    public void testSegments() throws IOException {
+
+        Reach reach = reach();
+        Path path = folder.newFile("reach.bin").toPath();
+        Path segmented = folder.newFile("segmented.bin").toPath();
+
+        /* segments much smaller than the columns and point data */
+        ReachFile.write(reach, path);
+        ReachFile.write(reach, segmented, 64);
+        assertArrayEquals(Files.readAllBytes(path), Files.readAllBytes(segmented));
+
+        Reach read = ReachFile.read(path);
+        Reach readSegmented = ReachFile.read(path, 64);
+
+        assertArrayEquals(read.distanceDownstream(), readSegmented.distanceDownstream(), 0);
+        assertArrayEquals(read.thalweg(), readSegmented.thalweg(), 0);
+        for (int i = 0; i < reach.length(); i++) {
+            CrossSectionProperties p = read.reachNodes[i].crossSection().properties(2);
+            CrossSectionProperties q = readSegmented.reachNodes[i].crossSection().properties(2);
+            for (CrossSectionProperties.Property property : CrossSectionProperties.Property.values())
+                assertEquals(p.value(property), q.value(property), 0);
+        }
+    }
+
+    @Test
+    public void testInvalid() throws IOException {
+
+        Path path = folder.newFile("bad.bin").toPath();
+        Files.write(path, new byte[64]);
+
+        boolean ioExceptionCaught = false;
+        try {
+            ReachFile.read(path);
+        } catch (IOException e) {
+            ioExceptionCaught = true;
+        } finally {
+            assertTrue(ioExceptionCaught);
+        }
+
+        /* cross section index out of range */
+        Reach reach = reach();
+        ReachFile.write(reach, path);
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[16 + 16 * reach.length()] = 2;
+        Files.write(path, bytes);
+
+        ioExceptionCaught = false;
+        try {
+            ReachFile.read(path);
+        } catch (IOException e) {
+            ioExceptionCaught = true;
+        } finally {
+            assertTrue(ioExceptionCaught);
+        }
+
+        /* unsupported cross section type */
+        CrossSection tabulated = new TabulatedCrossSection(new RectangularCrossSection(10, 0.03), 5, 11);
+        CrossSection[] crossSections = { tabulated };
+        reach = new Reach(new double[] { 0, 1 }, new double[] { 1, 0 }, new int[] { 0, 0 }, crossSections);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            ReachFile.write(reach, path);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
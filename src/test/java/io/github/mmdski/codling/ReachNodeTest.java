@@ -21,6 +21,7 @@ public class ReachNodeTest {
         node = new ReachNode(x, thalweg, xs);
         assertEquals(thalweg, node.thalweg(), delta);
         assertEquals(x, node.distanceDownstream(), delta);
+        assertSame(xs, node.crossSection());
 
         illegalArgumentExceptionCaught = false;
         try {
@@ -110,4 +111,32 @@ public class ReachNodeTest {
         }
 
     }
+
+    @Test
+    public void testPropertiesHolder() {
+
+        double x = 0;
+        double thalweg = 10;
+        double discharge = 1;
+        double y = thalweg + 1;
+        CrossSection xs = new ReachNodeTestCrossSection();
+
+        ReachNode node = new ReachNode(x, thalweg, xs);
+        ReachNodeProperties expected = node.properties(discharge, y);
+        ReachNodeProperties holder = new ReachNodeProperties();
+        ReachNodeProperties properties = node.properties(discharge, y, holder);
+
+        assertSame(holder, properties);
+        for (ReachNodeProperties.Property p : ReachNodeProperties.Property.values())
+            assertEquals(expected.value(p), properties.value(p), 0);
+
+        boolean nullPointerExceptionCaught = false;
+        try {
+            node.properties(discharge, y, null);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
 }
@@ -6,6 +6,8 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 
 import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.CrossSectionRegistry;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
 
 public class ReachTest {
 
@@ -102,4 +104,22 @@ public class ReachTest {
 
     }
 
+    @Test
+    public void testRegistry() {
+
+        double[] x = { 0, 1000, 2000 };
+        double[] thalweg = { 2, 1, 0 };
+        int[] crossSectionNumbers = { 0, 1, 0 };
+        CrossSection[] crossSections = { new RectangularCrossSection(10, 0.03), new RectangularCrossSection(10, 0.03) };
+
+        CrossSectionRegistry registry = new CrossSectionRegistry();
+        Reach reach = new Reach(x, thalweg, crossSectionNumbers, crossSections, registry);
+        Reach other = new Reach(x, thalweg, crossSectionNumbers,
+                new CrossSection[] { new RectangularCrossSection(10, 0.03), crossSections[0] }, registry);
+
+        assertSame(reach.reachNodes[0].crossSection(), reach.reachNodes[1].crossSection());
+        assertSame(reach.reachNodes[0].crossSection(), other.reachNodes[1].crossSection());
+        assertEquals(1, registry.size());
+        assertEquals(3, registry.hits());
+    }
 }
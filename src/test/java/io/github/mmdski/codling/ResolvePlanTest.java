@@ -0,0 +1,174 @@
+package io.github.mmdski.codling;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class ResolvePlanTest {
+
+    private static final double WIDTH = 10;
+    private static final double ROUGHNESS = 0.03;
+    private static final double SLOPE = 0.001;
+    private static final double DX = 100;
+    private static final int N_NODES = 50;
+
+    private final RectangularCrossSection crossSection = new RectangularCrossSection(WIDTH, ROUGHNESS);
+
+    private Reach reach() {
+        return SlopedReach.reach(crossSection, N_NODES, DX, SLOPE);
+    }
+
+    private SteadyPlan plan() {
+
+        CrossSectionProperties properties = crossSection.properties(2);
+        double normalDischarge = properties.value(CrossSectionProperties.Property.CONVEYANCE) * Math.sqrt(SLOPE);
+        double[] discharge = new double[N_NODES];
+        for (int i = 0; i < N_NODES; i++)
+            discharge[i] = normalDischarge;
+
+        /* backwater from a high downstream stage */
+        ElevationBC bc = q -> 4;
+        return new SteadyPlan(discharge, bc, BCLocation.DOWNSTREAM);
+    }
+
+    @Test
+    public void testWithNode() {
+
+        Reach reach = reach();
+        RectangularCrossSection wide = new RectangularCrossSection(2 * WIDTH, ROUGHNESS);
+        Reach edited = reach.withNode(10, 3, wide);
+
+        assertArrayEquals(reach.distanceDownstream(), edited.distanceDownstream(), 0);
+        assertEquals(3, edited.thalweg()[10], 0);
+        assertEquals(reach.thalweg()[11], edited.thalweg()[11], 0);
+
+        boolean arrayIndexExceptionCaught = false;
+        try {
+            reach.withNode(N_NODES, 0, wide);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            arrayIndexExceptionCaught = true;
+        } finally {
+            assertTrue(arrayIndexExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testResolveExact() {
+
+        StandardStepSolver solver = new StandardStepSolver();
+        Reach reach = reach();
+        RectangularCrossSection wide = new RectangularCrossSection(2 * WIDTH, ROUGHNESS);
+
+        SteadyPlan plan = plan();
+        StandardStepSolution previous = solver.solvePlan(reach, plan);
+
+        for (int changed : new int[] { 0, 20, N_NODES - 1 }) {
+
+            Reach edited = reach.withNode(changed, reach.thalweg()[changed], wide);
+            StandardStepSolution expected = solver.solvePlan(edited, plan);
+            StandardStepSolution resolved = solver.resolvePlan(edited, plan, previous, changed, 0);
+
+            assertArrayEquals(expected.wsElevation(), resolved.wsElevation(), 0);
+            assertArrayEquals(edited.thalweg(), resolved.thalwegElevation(), 0);
+        }
+    }
+
+    @Test
+    public void testResolveEarlyTermination() {
+
+        double eps = 0.003;
+        int changed = N_NODES - 5;
+
+        SolverStatistics statistics = new SolverStatistics();
+        StandardStepSolver solver = new StandardStepSolver(new SecantSolver(20, eps), statistics);
+        Reach reach = reach();
+        SteadyPlan plan = plan();
+        StandardStepSolution previous = solver.solvePlan(reach, plan);
+
+        /* a local widening near the downstream boundary */
+        Reach edited = reach.withNode(changed, reach.thalweg()[changed], new RectangularCrossSection(1.1 * WIDTH,
+                ROUGHNESS));
+        StandardStepSolution expected = solver.solvePlan(edited, plan);
+
+        statistics.reset();
+        StandardStepSolution resolved = solver.resolvePlan(edited, plan, previous, changed, eps);
+
+        assertArrayEquals(expected.wsElevation(), resolved.wsElevation(), 2 * eps);
+
+        /* upstream nodes are copied, not solved */
+        assertEquals(0, statistics.solves(0));
+        assertEquals(1, statistics.solves(changed));
+        assertArrayEquals(previous.wsElevation(), resolved.wsElevation(), 2 * eps);
+    }
+
+    @Test
+    public void testResolvePlanSolvedNodes() {
+
+        int changed = N_NODES - 5;
+        int[] counts = new int[2]; // node solves, nodes reported with the plan
+
+        SolverListener listener = new SolverListener() {
+            public void nodeSolved(int node, int iterations, boolean solutionFound, double residual, long nanos) {
+                counts[0]++;
+            }
+
+            public void planSolved(int nodes, long nanos) {
+                counts[1] = nodes;
+            }
+        };
+
+        StandardStepSolver solver = new StandardStepSolver(new SecantSolver(20, 0.003), listener);
+        Reach reach = reach();
+        SteadyPlan plan = plan();
+        StandardStepSolution previous = solver.solvePlan(reach, plan);
+        assertEquals(N_NODES, counts[1]);
+
+        Reach edited = reach.withNode(changed, reach.thalweg()[changed], new RectangularCrossSection(1.1 * WIDTH,
+                ROUGHNESS));
+
+        /* the re-solve stops early and reports only the nodes it solved */
+        counts[0] = 0;
+        solver.resolvePlan(edited, plan, previous, changed, 0.003);
+        assertTrue(counts[0] < N_NODES - 1);
+        assertEquals(counts[0], counts[1]);
+    }
+
+    @Test
+    public void testResolveInvalid() {
+
+        StandardStepSolver solver = new StandardStepSolver();
+        Reach reach = reach();
+        SteadyPlan plan = plan();
+        StandardStepSolution previous = solver.solvePlan(reach, plan);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            solver.resolvePlan(reach, plan, previous, N_NODES, 0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            solver.resolvePlan(reach, plan, previous, 0, -1);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            solver.resolvePlan(reach, plan, null, 0, 0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
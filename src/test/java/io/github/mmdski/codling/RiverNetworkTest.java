@@ -0,0 +1,70 @@
+package io.github.mmdski.codling;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class RiverNetworkTest {
+
+    private Reach reach() {
+        CrossSection[] crossSections = { new RectangularCrossSection(10, 0.03) };
+        return new Reach(new double[] { 0, 100 }, new double[] { 0.1, 0 }, new int[] { 0, 0 }, crossSections);
+    }
+
+    private boolean illegal(Reach[] reaches, int[] downstream) {
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new RiverNetwork(reaches, downstream);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        }
+        return illegalArgumentExceptionCaught;
+    }
+
+    @Test
+    public void testConstruction() {
+
+        Reach[] reaches = { reach(), reach(), reach(), reach() };
+        RiverNetwork network = new RiverNetwork(reaches, new int[] { 2, 2, -1, 0 }, new double[] { 1, 2, 0, 3 });
+
+        assertEquals(4, network.size());
+        assertEquals(2, network.outlet());
+        assertSame(reaches[3], network.reach(3));
+        assertEquals(0, network.downstream(3));
+        assertEquals(-1, network.downstream(2));
+        assertArrayEquals(new int[] { 0, 1 }, network.upstream(2));
+        assertArrayEquals(new int[] { 3 }, network.upstream(0));
+        assertArrayEquals(new int[] {}, network.upstream(1));
+        assertEquals(3, network.junctionLength(3), 0);
+    }
+
+    @Test
+    public void testIllegal() {
+
+        Reach[] reaches = { reach(), reach(), reach() };
+
+        /* no outlet */
+        assertTrue(illegal(reaches, new int[] { 1, 2, 0 }));
+
+        /* two outlets */
+        assertTrue(illegal(reaches, new int[] { -1, 0, -1 }));
+
+        /* cycle not connected to the outlet */
+        assertTrue(illegal(reaches, new int[] { -1, 2, 1 }));
+
+        /* reach flowing into itself */
+        assertTrue(illegal(reaches, new int[] { -1, 1, 0 }));
+
+        /* index out of range */
+        assertTrue(illegal(reaches, new int[] { -1, 3, 0 }));
+
+        /* length mismatch */
+        assertTrue(illegal(reaches, new int[] { -1, 0 }));
+
+        assertTrue(illegal(new Reach[] { reach(), null }, new int[] { -1, 0 }));
+        assertTrue(illegal(null, new int[] { -1 }));
+    }
+}
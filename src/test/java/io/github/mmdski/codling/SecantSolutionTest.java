@@ -18,4 +18,14 @@ public class SecantSolutionTest {
         assertEquals(iterations, secantSolution.iterations());
         assertEquals(solution, secantSolution.solution(), 0);
     }
+
+    @Test
+    public void testEmptySolution() {
+
+        SecantSolution secantSolution = new SecantSolution();
+
+        assertFalse(secantSolution.solutionFound());
+        assertEquals(0, secantSolution.iterations());
+        assertTrue(Double.isNaN(secantSolution.solution()));
+    }
 }
@@ -84,6 +84,38 @@ public class SecantSolverTest {
         assertEquals(root, solution.solution(), eps);
     }
 
+    @Test
+    public void testSolveReuse() {
+
+        int maxIterations = 20;
+        double eps = 0.003;
+        double root = 24.738633748750722;
+
+        TestSolvable solvable = new TestSolvable();
+        SecantSolver solver = new SecantSolver(maxIterations, eps);
+        SecantSolution expected = solver.solve(solvable);
+        SecantSolution solution = new SecantSolution();
+
+        for (int i = 0; i < 2; i++) {
+            assertSame(solution, solver.solve(solvable, solution));
+            assertTrue(solution.solutionFound());
+            assertEquals(expected.iterations(), solution.iterations());
+            assertEquals(expected.solution(), solution.solution(), 0);
+        }
+
+        assertEquals(root, solver.root(solvable), eps);
+        assertEquals(expected.solution(), solver.root(solvable), 0);
+
+        boolean nullPointerExceptionCaught = false;
+        try {
+            solver.solve(solvable, null);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
+
     @Test
     public void testSolutionNotFound() {
         int maxIterations = 2;
@@ -95,5 +127,76 @@ public class SecantSolverTest {
 
         assertFalse(solution.solutionFound());
         assertTrue(Double.isNaN(solution.solution()));
+        assertTrue(Double.isNaN(solver.root(solvable)));
+    }
+
+    @Test
+    public void testEqualValues() {
+
+        SecantSolver solver = new SecantSolver(20, 0.001);
+
+        /* both iterations at the root */
+        SecantSolution solution = solver.solve(new SecantSolvable() {
+            public double firstIteration() {
+                return 2;
+            }
+
+            public double secondIteration() {
+                return 2;
+            }
+
+            public double solverFunction(double x) {
+                return x * x - 4;
+            }
+        });
+        assertTrue(solution.solutionFound());
+        assertEquals(2, solution.solution(), 0);
+        assertEquals(1, solution.iterations());
+
+        /* flat function */
+        SecantSolvable flat = new SecantSolvable() {
+            public double firstIteration() {
+                return 1;
+            }
+
+            public double secondIteration() {
+                return 2;
+            }
+
+            public double solverFunction(double x) {
+                return 1;
+            }
+        };
+        solution = solver.solve(flat);
+        assertFalse(solution.solutionFound());
+        assertTrue(Double.isNaN(solution.solution()));
+        assertTrue(Double.isNaN(solver.root(flat)));
+    }
+
+    @Test
+    public void testCloseStart() {
+
+        SecantSolver solver = new SecantSolver(20, 0.001);
+
+        /* starting points within tolerance of each other, far from the root */
+        SecantSolvable solvable = new SecantSolvable() {
+            public double firstIteration() {
+                return 0;
+            }
+
+            public double secondIteration() {
+                return 0.0005;
+            }
+
+            public double solverFunction(double x) {
+                return x - 10;
+            }
+        };
+
+        SecantSolution solution = solver.solve(solvable);
+        assertTrue(solution.solutionFound());
+        assertEquals(10, solution.solution(), 0.001);
+        assertTrue(solution.iterations() > 1);
+        assertEquals(solution.solution(), solver.root(solvable), 0);
     }
 }
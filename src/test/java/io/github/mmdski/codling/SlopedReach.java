@@ -0,0 +1,26 @@
+package io.github.mmdski.codling;
+
+import io.github.mmdski.codling.crosssection.CrossSection;
+
+/*
+ * prismatic test reach of a single cross section on a constant slope. node i is
+ * at x = dx * i, and the thalweg falls to 0 at the last node.
+ */
+final class SlopedReach {
+
+    private SlopedReach() {
+    }
+
+    static Reach reach(CrossSection crossSection, int nNodes, double dx, double slope) {
+
+        double[] x = new double[nNodes];
+        double[] thalwegElevation = new double[nNodes];
+
+        for (int i = 0; i < nNodes; i++) {
+            x[i] = dx * i;
+            thalwegElevation[i] = (nNodes - i - 1) * dx * slope;
+        }
+
+        return new Reach(x, thalwegElevation, new int[nNodes], new CrossSection[] { crossSection });
+    }
+}
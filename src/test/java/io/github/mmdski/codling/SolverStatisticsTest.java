@@ -0,0 +1,83 @@
+package io.github.mmdski.codling;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class SolverStatisticsTest {
+
+    @Test
+    public void testStatistics() {
+
+        double width = 10;
+        double roughness = 0.03;
+        double slope = 0.001;
+        double dx = 100;
+        double eps = 0.003;
+        int maxIterations = 20;
+        int nNodes = 20;
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(width, roughness);
+        double[] discharge = new double[nNodes];
+
+        CrossSectionProperties properties = crossSection.properties(2);
+        double normalDischarge = properties.value(CrossSectionProperties.Property.CONVEYANCE) * Math.sqrt(slope);
+        Arrays.fill(discharge, normalDischarge);
+
+        SolverStatistics statistics = new SolverStatistics();
+
+        NormalElevationBC bc = new NormalElevationBC(crossSection, slope);
+        bc.setListener(statistics);
+
+        Reach reach = SlopedReach.reach(crossSection, nNodes, dx, slope);
+        SteadyPlan plan = new SteadyPlan(discharge, bc, BCLocation.DOWNSTREAM);
+        StandardStepSolver solver = new StandardStepSolver(new SecantSolver(maxIterations, eps), statistics);
+
+        StandardStepSolution solution = solver.solvePlan(reach, plan);
+        solver.solvePlan(reach, plan);
+
+        assertEquals(1, statistics.normalElevations());
+        assertTrue(statistics.normalElevationIterations() > 0);
+        assertEquals(0, statistics.normalElevationFailures());
+        assertEquals(2, statistics.plans());
+        assertTrue(statistics.planNanos() >= 0);
+        assertEquals(0, statistics.failures());
+
+        /* the boundary node is not solved */
+        assertEquals(0, statistics.solves(nNodes - 1));
+
+        for (int i = 0; i < nNodes - 1; i++) {
+            assertEquals(2, statistics.solves(i));
+            assertTrue(statistics.maxIterations(i) >= 2);
+            assertTrue(statistics.maxIterations(i) < maxIterations);
+            assertTrue(statistics.iterations(i) >= 2 * statistics.maxIterations(i) - maxIterations);
+            assertTrue(statistics.maxResidual(i) < eps);
+            assertTrue(statistics.nanos(i) >= 0);
+        }
+
+        int slowest = statistics.slowestNode();
+        assertTrue(slowest >= 0 && slowest < nNodes - 1);
+
+        /* statistics do not change the solution */
+        StandardStepSolution uninstrumented = new StandardStepSolver(maxIterations, eps).solvePlan(reach, plan);
+        assertArrayEquals(uninstrumented.wsElevation(), solution.wsElevation(), 0);
+
+        /* convergence failure, in a two node reach since NaN elevations can't be stepped from */
+        statistics.reset();
+        assertEquals(0, statistics.nodes());
+        assertEquals(0, statistics.normalElevationIterations());
+        double[] discharge2 = { normalDischarge, normalDischarge };
+        Reach reach2 = SlopedReach.reach(crossSection, 2, dx, slope);
+        SteadyPlan plan2 = new SteadyPlan(discharge2, bc, BCLocation.DOWNSTREAM);
+        solver = new StandardStepSolver(new SecantSolver(2, eps), statistics);
+        assertTrue(Double.isNaN(solver.solvePlan(reach2, plan2).wsElevation()[0]));
+        assertEquals(1, statistics.failures());
+        assertEquals(1, statistics.failures(0));
+        assertEquals(0, statistics.failures(nNodes));
+    }
+}
@@ -0,0 +1,143 @@
+package io.github.mmdski.codling;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.SteadyPlan.BCLocation;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class StandardStepBatchTest {
+
+    @Test
+    public void testSolvePlans() {
+
+        double width = 10;
+        double roughness = 0.03;
+        double slope = 0.001;
+        double dx = 100;
+        int nNodes = 20;
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(width, roughness);
+        Reach reach = SlopedReach.reach(crossSection, nNodes, dx, slope);
+        double[] thalwegElevation = reach.thalweg();
+        StandardStepSolver solver = new StandardStepSolver();
+
+        /* backwater profiles from a fixed downstream elevation for several flows */
+        double[] depths = { 0.5, 1, 2, 4 };
+        int nProfiles = depths.length;
+        SteadyPlan[] plans = new SteadyPlan[nProfiles];
+        ElevationBC bc = discharge -> 5;
+
+        for (int p = 0; p < nProfiles; p++) {
+            CrossSectionProperties properties = crossSection.properties(depths[p]);
+            double normalDischarge = properties.value(CrossSectionProperties.Property.CONVEYANCE) * Math.sqrt(slope);
+            double[] discharge = new double[nNodes];
+            for (int i = 0; i < nNodes; i++)
+                discharge[i] = normalDischarge;
+            plans[p] = new SteadyPlan(discharge, bc, BCLocation.DOWNSTREAM);
+        }
+
+        StandardStepBatchSolution batch = solver.solvePlans(reach, plans);
+
+        assertEquals(nProfiles, batch.profiles());
+        assertEquals(nNodes, batch.length());
+        assertArrayEquals(thalwegElevation, batch.thalwegElevation(), 0);
+
+        /* each batch profile is identical to solving the plan by itself */
+        for (int p = 0; p < nProfiles; p++) {
+            StandardStepSolution single = solver.solvePlan(reach, plans[p]);
+            assertArrayEquals(single.wsElevation(), batch.wsElevation(p), 0);
+            assertArrayEquals(single.discharge(), batch.discharge(p), 0);
+            assertArrayEquals(single.wsElevation(), batch.solution(p).wsElevation(), 0);
+            for (int i = 0; i < nNodes; i++) {
+                assertEquals(single.wsElevation()[i], batch.wsElevation(p, i), 0);
+                assertEquals(plans[p].discharge(i), batch.discharge(p, i), 0);
+            }
+        }
+
+        boolean arrayIndexOutOfBoundsExceptionCaught = false;
+        try {
+            batch.wsElevation(nProfiles, 0);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            arrayIndexOutOfBoundsExceptionCaught = true;
+        } finally {
+            assertTrue(arrayIndexOutOfBoundsExceptionCaught);
+        }
+
+        /* plans with different boundary locations */
+        SteadyPlan[] mixed = { plans[0], new SteadyPlan(new double[nNodes], bc, BCLocation.UPSTREAM) };
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            solver.solvePlans(reach, mixed);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            solver.solvePlans(reach, new SteadyPlan[0]);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testSharedEvaluations() {
+
+        double slope = 0.001;
+        double dx = 100;
+        int nNodes = 30;
+
+        CountingCrossSection crossSection = new CountingCrossSection(10, 0.03);
+        Reach reach = SlopedReach.reach(crossSection, nNodes, dx, slope);
+
+        /*
+         * inflow scenarios that differ only upstream of node 10, and one profile
+         * with a different flow throughout
+         */
+        double[] inflows = { 0, 5, 10, 20 };
+        int nProfiles = inflows.length + 1;
+        SteadyPlan[] plans = new SteadyPlan[nProfiles];
+        ElevationBC bc = discharge -> 5;
+
+        for (int p = 0; p < nProfiles; p++) {
+            double[] discharge = new double[nNodes];
+            for (int i = 0; i < nNodes; i++)
+                discharge[i] = p < inflows.length ? 20 + (i < 10 ? inflows[p] : 0) : 50;
+            plans[p] = new SteadyPlan(discharge, bc, BCLocation.DOWNSTREAM);
+        }
+
+        int[] nodes = new int[1];
+        SolverListener listener = new SolverListener() {
+            public void planSolved(int solved, long nanos) {
+                nodes[0] = solved;
+            }
+        };
+        StandardStepSolver solver = new StandardStepSolver(new SecantSolver(20, 0.003), listener);
+
+        crossSection.evaluations = 0;
+        StandardStepSolution[] singles = new StandardStepSolution[nProfiles];
+        for (int p = 0; p < nProfiles; p++)
+            singles[p] = solver.solvePlan(reach, plans[p]);
+        int separate = crossSection.evaluations;
+
+        crossSection.evaluations = 0;
+        StandardStepBatchSolution batch = solver.solvePlans(reach, plans);
+
+        for (int p = 0; p < nProfiles; p++)
+            assertArrayEquals(singles[p].wsElevation(), batch.wsElevation(p), 0);
+
+        /*
+         * the common downstream part of the inflow scenarios is solved once. after
+         * the boundary nodes, the first scenario and the last profile solve every
+         * node, and the other scenarios only nodes 0 through 9
+         */
+        assertTrue(crossSection.evaluations < separate);
+        assertEquals(nProfiles + 2 * (nNodes - 1) + (inflows.length - 1) * 10, nodes[0]);
+    }
+}
@@ -1,5 +1,8 @@
 package io.github.mmdski.codling;
 
+import java.nio.DoubleBuffer;
+import java.nio.ReadOnlyBufferException;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -15,6 +18,174 @@ public class StandardStepTest {
         double eps = 0.003;
         int maxIterations = 20;
 
+        normalDepthTest(new StandardStepSolver(maxIterations, eps), eps);
+    }
+
+    @Test
+    public void brentSolverTest() {
+
+        double eps = 0.003;
+        int maxIterations = 20;
+
+        normalDepthTest(new StandardStepSolver(new BrentSolver(maxIterations, eps)), eps);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new StandardStepSolver(null);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void streamingTest() {
+
+        double width = 10;
+        double roughness = 0.03;
+        double slope = 0.001;
+        double dx = 100;
+        int nNodes = 30;
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(width, roughness);
+        Reach reach = SlopedReach.reach(crossSection, nNodes, dx, slope);
+        double[] thalwegElevation = reach.thalweg();
+        double[] discharge = new double[nNodes];
+
+        for (int i = 0; i < nNodes; i++)
+            discharge[i] = 20 + i;
+
+        SteadyPlan plan = new SteadyPlan(discharge, q -> 4, BCLocation.DOWNSTREAM);
+        StandardStepSolver solver = new StandardStepSolver();
+        StandardStepSolution solution = solver.solvePlan(reach, plan);
+
+        double[] wse = solution.wsElevation();
+        int[] next = { nNodes - 1 };
+
+        solver.solvePlan(reach, plan, (node, q, thalweg, wsElevation) -> {
+            assertEquals(next[0]--, node);
+            assertEquals(discharge[node], q, 0);
+            assertEquals(thalwegElevation[node], thalweg, 0);
+            assertEquals(wse[node], wsElevation, 0);
+        });
+        assertEquals(-1, next[0]);
+
+        /* views share the solution values and can't be written */
+        DoubleBuffer view = solution.wsElevationView();
+        assertEquals(nNodes, view.remaining());
+        for (int i = 0; i < nNodes; i++) {
+            assertEquals(wse[i], view.get(i), 0);
+            assertEquals(discharge[i], solution.dischargeView().get(i), 0);
+            assertEquals(thalwegElevation[i], solution.thalwegElevationView().get(i), 0);
+        }
+
+        boolean readOnlyBufferExceptionCaught = false;
+        try {
+            view.put(0, 0);
+        } catch (ReadOnlyBufferException e) {
+            readOnlyBufferExceptionCaught = true;
+        } finally {
+            assertTrue(readOnlyBufferExceptionCaught);
+        }
+    }
+
+    @Test
+    public void memoizationTest() {
+
+        double slope = 0.001;
+        double dx = 100;
+        int nNodes = 30;
+
+        CountingCrossSection crossSection = new CountingCrossSection(10, 0.03);
+        Reach reach = SlopedReach.reach(crossSection, nNodes, dx, slope);
+        double[] discharge = new double[nNodes];
+
+        for (int i = 0; i < nNodes; i++)
+            discharge[i] = 20 + i;
+
+        SteadyPlan plan = new SteadyPlan(discharge, q -> 4, BCLocation.DOWNSTREAM);
+        SolverStatistics statistics = new SolverStatistics();
+        StandardStepSolver solver = new StandardStepSolver(new SecantSolver(20, 0.003), statistics);
+
+        crossSection.evaluations = 0;
+        solver.solvePlan(reach, plan);
+
+        /*
+         * the known side is evaluated once, for the boundary node, and carried
+         * forward. a secant solve with i iterations evaluates the solved side i + 1
+         * times
+         */
+        int expected = 1;
+        for (int i = 0; i < nNodes - 1; i++)
+            expected += statistics.iterations(i) + 1;
+        assertEquals(expected, crossSection.evaluations);
+    }
+
+    @Test
+    public void warmStartTest() {
+
+        double eps = 0.003;
+        double slope = 0.001;
+        double dx = 100;
+        int nNodes = 30;
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(10, 0.03);
+        Reach reach = SlopedReach.reach(crossSection, nNodes, dx, slope);
+        double[] discharge = new double[nNodes];
+        double[] nearby = new double[nNodes];
+
+        for (int i = 0; i < nNodes; i++) {
+            discharge[i] = 20 + i;
+            nearby[i] = 1.001 * discharge[i];
+        }
+
+        ElevationBC bc = new NormalElevationBC(crossSection, slope);
+        SteadyPlan plan = new SteadyPlan(discharge, bc, BCLocation.DOWNSTREAM);
+        SteadyPlan nearbyPlan = new SteadyPlan(nearby, bc, BCLocation.DOWNSTREAM);
+
+        StandardStepSolution prior = new StandardStepSolver().solvePlan(reach, plan);
+
+        SolverStatistics cold = new SolverStatistics();
+        SolverStatistics warm = new SolverStatistics();
+        StandardStepSolution coldSolution = new StandardStepSolver(new SecantSolver(20, eps), cold)
+                .solvePlan(reach, nearbyPlan);
+        StandardStepSolution warmSolution = new StandardStepSolver(new SecantSolver(20, eps), warm)
+                .solvePlan(reach, nearbyPlan, prior);
+
+        assertArrayEquals(coldSolution.wsElevation(), warmSolution.wsElevation(), eps);
+
+        int coldIterations = 0;
+        int warmIterations = 0;
+        for (int i = 0; i < nNodes - 1; i++) {
+            coldIterations += cold.iterations(i);
+            warmIterations += warm.iterations(i);
+            assertTrue(warm.maxIterations(i) <= 2);
+        }
+        assertTrue(warmIterations < coldIterations);
+        assertEquals(0, warm.failures());
+
+        /* starting from the solution of the same plan */
+        warm.reset();
+        StandardStepSolution same = new StandardStepSolver(new SecantSolver(20, eps), warm).solvePlan(reach,
+                nearbyPlan, coldSolution);
+        assertArrayEquals(coldSolution.wsElevation(), same.wsElevation(), eps);
+        for (int i = 0; i < nNodes - 1; i++)
+            assertEquals(1, warm.iterations(i));
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new StandardStepSolver().solvePlan(reach, plan,
+                    StandardStepSolution.adopt(new double[2], new double[2], new double[2]));
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    private void normalDepthTest(StandardStepSolver solver, double eps) {
+
         /* compute normal depth */
 
         /* cross section properties */
@@ -49,7 +220,6 @@ public class StandardStepTest {
         NormalElevationBC boundaryC = new NormalElevationBC(crossSection, slope);
         Reach reach = new Reach(x, thalwegElevation, xsNumber, crossSections);
         SteadyPlan plan = new SteadyPlan(discharge, boundaryC, BCLocation.DOWNSTREAM);
-        StandardStepSolver solver = new StandardStepSolver(maxIterations, eps);
         StandardStepSolution solution = solver.solvePlan(reach, plan);
 
         double[] wseSolution = solution.wsElevation();
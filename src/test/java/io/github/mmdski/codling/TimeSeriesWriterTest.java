@@ -0,0 +1,128 @@
+package io.github.mmdski.codling;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TimeSeriesWriterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static final int NODES = 7;
+
+    private void record(int r, double[] discharge, double[] wsElevation) {
+        for (int i = 0; i < NODES; i++) {
+            discharge[i] = r + 0.001 * i;
+            wsElevation[i] = -r - 0.001 * i;
+        }
+    }
+
+    @Test
+    public void testWriteRead() throws IOException {
+
+        Path path = folder.newFile("series.bin").toPath();
+        int records = 2500;
+        double[] q = new double[NODES];
+        double[] wse = new double[NODES];
+
+        try (TimeSeriesWriter writer = new TimeSeriesWriter(path, NODES, 1000)) {
+            assertEquals(NODES, writer.nodes());
+            for (int r = 0; r < records; r++) {
+                record(r, q, wse);
+                writer.append(60.0 * r, q, wse);
+            }
+            assertEquals(records, writer.records());
+        }
+
+        /* three chunks, the last one padded */
+        assertEquals(TimeSeriesWriter.HEADER_BYTES + 3 * TimeSeriesWriter.chunkBytes(NODES, 1000), Files.size(path));
+
+        double[] expectedQ = new double[NODES];
+        double[] expectedWse = new double[NODES];
+
+        try (TimeSeriesReader reader = new TimeSeriesReader(path)) {
+
+            assertEquals(NODES, reader.nodes());
+            assertEquals(records, reader.records());
+
+            for (int r = 0; r < records; r++) {
+                record(r, expectedQ, expectedWse);
+                assertEquals(60.0 * r, reader.read(r, q, wse), 0);
+                assertArrayEquals(expectedQ, q, 0);
+                assertArrayEquals(expectedWse, wse, 0);
+            }
+
+            /* random access */
+            record(17, expectedQ, expectedWse);
+            assertEquals(60.0 * 17, reader.read(17, q, wse), 0);
+            assertArrayEquals(expectedWse, wse, 0);
+            assertEquals(60.0 * 2499, reader.time(2499), 0);
+
+            boolean indexOutOfBoundsExceptionCaught = false;
+            try {
+                reader.time(records);
+            } catch (IndexOutOfBoundsException e) {
+                indexOutOfBoundsExceptionCaught = true;
+            } finally {
+                assertTrue(indexOutOfBoundsExceptionCaught);
+            }
+        }
+    }
+
+    @Test
+    public void testUnclosed() throws IOException {
+
+        Path path = folder.newFile("series.bin").toPath();
+        double[] q = new double[NODES];
+        double[] wse = new double[NODES];
+
+        TimeSeriesWriter writer = new TimeSeriesWriter(path, NODES, 100);
+        for (int r = 0; r < 150; r++) {
+            record(r, q, wse);
+            writer.append(r, q, wse);
+        }
+
+        /* full chunks are readable before the writer is closed */
+        try (TimeSeriesReader reader = new TimeSeriesReader(path)) {
+            assertEquals(100, reader.records());
+            assertEquals(99, reader.read(99, q, wse), 0);
+        }
+
+        writer.close();
+
+        try (TimeSeriesReader reader = new TimeSeriesReader(path)) {
+            assertEquals(150, reader.records());
+        }
+
+        boolean illegalStateExceptionCaught = false;
+        try {
+            writer.append(150, q, wse);
+        } catch (IllegalStateException e) {
+            illegalStateExceptionCaught = true;
+        } finally {
+            assertTrue(illegalStateExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testNotTimeSeries() throws IOException {
+
+        Path path = folder.newFile("other.bin").toPath();
+        Files.write(path, new byte[64]);
+
+        boolean ioExceptionCaught = false;
+        try {
+            new TimeSeriesReader(path);
+        } catch (IOException e) {
+            ioExceptionCaught = true;
+        } finally {
+            assertTrue(ioExceptionCaught);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package io.github.mmdski.codling;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import io.github.mmdski.codling.crosssection.CrossSectionProperties;
+import io.github.mmdski.codling.crosssection.RectangularCrossSection;
+
+public class UnsteadySolverTest {
+
+    private static final double WIDTH = 10;
+    private static final double SLOPE = 0.001;
+    private static final double DX = 200;
+    private static final int NODES = 26;
+
+    private static final RectangularCrossSection CROSS_SECTION = new RectangularCrossSection(WIDTH, 0.03);
+
+    private Reach reach() {
+        return SlopedReach.reach(CROSS_SECTION, NODES, DX, SLOPE);
+    }
+
+    private UnsteadySolver uniform(Reach reach, double discharge) {
+
+        double depth = CROSS_SECTION.normalY(discharge, SLOPE);
+        double[] q = new double[NODES];
+        double[] wse = reach.thalweg();
+        for (int i = 0; i < NODES; i++) {
+            q[i] = discharge;
+            wse[i] += depth;
+        }
+
+        UnsteadySolver solver = new UnsteadySolver(reach);
+        solver.initialize(q, wse);
+        return solver;
+    }
+
+    /*
+     * volume of water stored in the reach, consistent with the discretized
+     * continuity equation
+     */
+    private double storage(UnsteadySolver solver, double[] thalweg) {
+
+        double volume = 0;
+        double a0, a1;
+
+        for (int i = 0; i < NODES - 1; i++) {
+            a0 = CROSS_SECTION.properties(solver.wsElevation(i) - thalweg[i])
+                    .value(CrossSectionProperties.Property.AREA);
+            a1 = CROSS_SECTION.properties(solver.wsElevation(i + 1) - thalweg[i + 1])
+                    .value(CrossSectionProperties.Property.AREA);
+            volume += 0.5 * (a0 + a1) * DX;
+        }
+
+        return volume;
+    }
+
+    @Test
+    public void testUniformFlow() {
+
+        Reach reach = reach();
+        double discharge = 20;
+        UnsteadySolver solver = uniform(reach, discharge);
+        double[] initial = solver.wsElevation();
+        ElevationBC bc = new NormalElevationBC(CROSS_SECTION, SLOPE);
+
+        for (int s = 0; s < 100; s++) {
+            assertTrue(solver.step(600, discharge, bc));
+            assertTrue(solver.iterations() <= 3);
+        }
+
+        assertEquals(60000, solver.time(), 1e-9);
+        assertArrayEquals(initial, solver.wsElevation(), 1e-6);
+        for (int i = 0; i < NODES; i++)
+            assertEquals(discharge, solver.discharge(i), 1e-6);
+    }
+
+    @Test
+    public void testFloodWave() {
+
+        Reach reach = reach();
+        double[] thalweg = reach.thalweg();
+        double base = 10;
+        double peak = 60;
+        double dt = 300;
+        UnsteadySolver solver = uniform(reach, base);
+
+        /* triangular hydrograph, rising for 3 hours and falling for 6 */
+        int steps = 240;
+        double[] inflow = new double[steps];
+        for (int s = 0; s < steps; s++) {
+            double t = (s + 1) * dt / 3600;
+            double q = t < 3 ? base + (peak - base) * t / 3 : base + (peak - base) * (9 - t) / 6;
+            inflow[s] = Math.max(base, q);
+        }
+
+        double theta = UnsteadySolver.DEFAULT_THETA;
+        double initialStorage = storage(solver, thalweg);
+        double[] net = { 0 }; // net inflow volume
+        double[] previous = { base - base }; // inflow - outflow at the start of the step
+        double[] maxOutflow = { 0 };
+
+        int converged = solver.route(inflow, dt, new NormalElevationBC(CROSS_SECTION, SLOPE),
+                (step, time, discharge, wsElevation) -> {
+                    double difference = discharge.get(0) - discharge.get(NODES - 1);
+                    net[0] += dt * (theta * difference + (1 - theta) * previous[0]);
+                    previous[0] = difference;
+                    maxOutflow[0] = Math.max(maxOutflow[0], discharge.get(NODES - 1));
+                    assertEquals(time, (step + 1) * dt, 1e-9);
+                });
+
+        assertEquals(steps, converged);
+
+        /* the scheme conserves volume */
+        assertEquals(initialStorage + net[0], storage(solver, thalweg), 1e-6 * initialStorage);
+
+        /* the wave is attenuated */
+        assertTrue(maxOutflow[0] < peak);
+        assertTrue(maxOutflow[0] > base);
+    }
+
+    @Test
+    public void testDryStep() {
+
+        Reach reach = reach();
+        UnsteadySolver solver = uniform(reach, 20);
+        double[] initial = solver.wsElevation();
+
+        /* a boundary elevation below the thalweg drains the downstream node */
+        assertFalse(solver.step(600, 20, q -> -100));
+        assertArrayEquals(initial, solver.wsElevation(), 0);
+        assertEquals(0, solver.time(), 0);
+
+        /* errors from the boundary condition aren't taken for a failed step */
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            solver.step(600, 20, q -> {
+                throw new IllegalArgumentException();
+            });
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testIllegal() {
+
+        UnsteadySolver solver = new UnsteadySolver(reach());
+
+        boolean illegalStateExceptionCaught = false;
+        try {
+            solver.step(1, 1, q -> 1);
+        } catch (IllegalStateException e) {
+            illegalStateExceptionCaught = true;
+        } finally {
+            assertTrue(illegalStateExceptionCaught);
+        }
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new UnsteadySolver(reach(), 0.4, 20, 1e-6);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            solver.initialize(new double[NODES], reach().thalweg());
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package io.github.mmdski.codling.crosssection;
 
+import java.nio.DoubleBuffer;
+import java.nio.ReadOnlyBufferException;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -339,4 +342,88 @@ public class CoArrayTest {
         assertArrayEquals(zExpected, subArray.z(), delta);
         assertEquals(1, subArray.minY(), delta);
     }
+
+    /**
+     * Test read-only views
+     */
+    @Test
+    public void testViews() {
+
+        double[] y = { 1, 1.5, 1.25, 1 };
+        double[] z = { 0, 0.25, 0.5, 1 };
+
+        CoArray ca = new CoArray(y, z);
+        DoubleBuffer yView = ca.yView();
+        DoubleBuffer zView = ca.zView();
+
+        assertTrue(yView.isReadOnly());
+        assertTrue(zView.isReadOnly());
+        assertEquals(y.length, yView.remaining());
+        assertEquals(z.length, zView.remaining());
+
+        for (int i = 0; i < y.length; i++) {
+            assertEquals(y[i], yView.get(i), 0);
+            assertEquals(z[i], zView.get(i), 0);
+        }
+
+        boolean readOnlyBufferExceptionCaught = false;
+        try {
+            yView.put(0, 0);
+        } catch (ReadOnlyBufferException e) {
+            readOnlyBufferExceptionCaught = true;
+        } finally {
+            assertTrue(readOnlyBufferExceptionCaught);
+        }
+
+        /* modifying the construction arrays or returned arrays doesn't change ca */
+        y[0] = 10;
+        ca.z()[0] = 10;
+        assertEquals(1, ca.yView().get(0), 0);
+        assertEquals(0, ca.zView().get(0), 0);
+    }
+
+    /**
+     * Test construction with non-finite values
+     */
+    @Test
+    public void testNonFinite() {
+
+        double[] y = { 1, Double.NaN, 1.25, 1 };
+        double[] z = { 0, 0.25, 0.5, 1 };
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            new CoArray(y, z);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    /**
+     * Test subArray on a longer array to exercise the binary search
+     */
+    @Test
+    public void testSubArrayLong() {
+
+        int n = 101;
+        double[] y = new double[n];
+        double[] z = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            z[i] = i;
+            y[i] = Math.abs(i - 50);
+        }
+
+        CoArray ca = new CoArray(y, z);
+        CoArray subArray = ca.subArray(70.5, 72.5);
+
+        double[] yExpected = { 20.5, 21, 22, 22.5 };
+        double[] zExpected = { 70.5, 71, 72, 72.5 };
+
+        assertArrayEquals(yExpected, subArray.y(), 0);
+        assertArrayEquals(zExpected, subArray.z(), 0);
+        assertEquals(20.5, subArray.minY(), 0);
+    }
 }
@@ -56,4 +56,33 @@ public class CrossSectionPropertiesTest {
             assertEquals(values[p.value()], res.value(p), delta);
         }
     }
+
+    /**
+     * Test copying all values
+     */
+    @Test
+    public void testSetValues() {
+        CrossSectionProperties res = new CrossSectionProperties();
+        CrossSectionProperties copy = new CrossSectionProperties();
+        Random random = new Random();
+
+        double delta = 0;
+
+        for (CrossSectionProperties.Property p : CrossSectionProperties.Property.values())
+            res.setValue(p, random.nextFloat());
+
+        copy.setValues(res);
+
+        for (CrossSectionProperties.Property p : CrossSectionProperties.Property.values())
+            assertEquals(res.value(p), copy.value(p), delta);
+
+        boolean nullPointerExceptionCaught = false;
+        try {
+            copy.setValues(null);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
 }
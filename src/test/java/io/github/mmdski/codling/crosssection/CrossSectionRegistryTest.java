@@ -0,0 +1,86 @@
+package io.github.mmdski.codling.crosssection;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CrossSectionRegistryTest {
+
+    private static IrregularCrossSection irregular(double roughness) {
+        double[] y = { 5, 1, 0, 0.5, 1, 5 };
+        double[] z = { 0, 2, 4, 8, 12, 14 };
+        return new IrregularCrossSection(new CoArray(y, z), roughness);
+    }
+
+    @Test
+    public void testEquality() {
+
+        assertEquals(new RectangularCrossSection(10, 0.03), new RectangularCrossSection(10, 0.03));
+        assertEquals(new RectangularCrossSection(10, 0.03).hashCode(),
+                new RectangularCrossSection(10, 0.03).hashCode());
+        assertNotEquals(new RectangularCrossSection(10, 0.03), new RectangularCrossSection(10, 0.035));
+
+        assertEquals(irregular(0.03), irregular(0.03));
+        assertEquals(irregular(0.03).hashCode(), irregular(0.03).hashCode());
+        assertNotEquals(irregular(0.03), irregular(0.035));
+        assertNotEquals(irregular(0.03), new RectangularCrossSection(10, 0.03));
+
+        CoArray coordinates = irregular(0.03).coordinates();
+        assertEquals(coordinates, coordinates.addY(1).addY(-1));
+        assertNotEquals(coordinates, coordinates.addY(1));
+
+        assertEquals(new TabulatedCrossSection(irregular(0.03), 5, 11),
+                new TabulatedCrossSection(irregular(0.03), 5, 11));
+        assertNotEquals(new TabulatedCrossSection(irregular(0.03), 5, 11),
+                new TabulatedCrossSection(irregular(0.03), 5, 21));
+    }
+
+    @Test
+    public void testIntern() {
+
+        CrossSectionRegistry registry = new CrossSectionRegistry();
+
+        RectangularCrossSection first = new RectangularCrossSection(10, 0.03);
+        assertSame(first, registry.intern(first));
+        assertSame(first, registry.intern(new RectangularCrossSection(10, 0.03)));
+
+        IrregularCrossSection second = irregular(0.03);
+        assertSame(second, registry.intern(second));
+        assertSame(second, registry.intern(irregular(0.03)));
+
+        assertEquals(2, registry.size());
+        assertEquals(4, registry.requests());
+        assertEquals(2, registry.hits());
+
+        boolean nullPointerExceptionCaught = false;
+        try {
+            registry.intern(null);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testTabulated() {
+
+        CrossSectionRegistry registry = new CrossSectionRegistry();
+
+        TabulatedCrossSection table = registry.tabulated(irregular(0.03), 5, 11);
+        assertSame(table, registry.tabulated(irregular(0.03), 5, 11));
+        assertNotSame(table, registry.tabulated(irregular(0.03), 5, 21));
+        assertSame(table, registry.intern(new TabulatedCrossSection(irregular(0.03), 5, 11)));
+
+        assertEquals(2, registry.tables());
+
+        /* concurrent requests share one table */
+        TabulatedCrossSection[] tables = new TabulatedCrossSection[64];
+        IntStream.range(0, tables.length).parallel()
+                .forEach(i -> tables[i] = registry.tabulated(new RectangularCrossSection(10, 0.03), 5, 101));
+        for (TabulatedCrossSection t : tables)
+            assertSame(tables[0], t);
+        assertEquals(3, registry.tables());
+    }
+}
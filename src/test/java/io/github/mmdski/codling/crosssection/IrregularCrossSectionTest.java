@@ -0,0 +1,193 @@
+package io.github.mmdski.codling.crosssection;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties.Property;
+import io.github.mmdski.codling.Constants;
+
+public class IrregularCrossSectionTest {
+
+    /* rectangular channel, 10 wide, 10 deep */
+    private static CoArray rectangle() {
+        double[] y = { 10, 0, 0, 10 };
+        double[] z = { 0, 0, 10, 10 };
+        return new CoArray(y, z);
+    }
+
+    /* triangular channel, 2 wide, 1 deep */
+    private static CoArray triangle() {
+        double[] y = { 1, 0, 1 };
+        double[] z = { 0, 1, 2 };
+        return new CoArray(y, z);
+    }
+
+    @Test
+    public void testConstruction() {
+
+        double roughness = 0.03;
+        boolean illegalArgumentExceptionCaught;
+        boolean nullPointerExceptionCaught;
+
+        IrregularCrossSection crossSection = new IrregularCrossSection(triangle(), roughness);
+        assertEquals(0, crossSection.thalweg(), 0);
+        assertEquals(roughness, crossSection.roughness(), 0);
+        assertArrayEquals(triangle().y(), crossSection.coordinates().y(), 0);
+        assertArrayEquals(triangle().z(), crossSection.coordinates().z(), 0);
+
+        CoArray raised = triangle().addY(5);
+        crossSection = new IrregularCrossSection(raised, roughness);
+        assertEquals(5, crossSection.thalweg(), 0);
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            crossSection = new IrregularCrossSection(triangle(), 0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            crossSection = new IrregularCrossSection(triangle(), Double.NaN);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        nullPointerExceptionCaught = false;
+        try {
+            crossSection = new IrregularCrossSection(null, roughness);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testRectangularProperties() {
+
+        double eps = 1e-9;
+        double width = 10;
+        double roughness = 0.03;
+
+        RectangularCrossSection rectangular = new RectangularCrossSection(width, roughness);
+        IrregularCrossSection irregular = new IrregularCrossSection(rectangle(), roughness);
+
+        CrossSectionProperties expected;
+        CrossSectionProperties properties = new CrossSectionProperties();
+
+        for (double depth = 0.5; depth < 10; depth += 0.5) {
+            expected = rectangular.properties(depth);
+            irregular.properties(depth, properties);
+            for (Property p : Property.values())
+                assertEquals(expected.value(p), properties.value(p), eps);
+        }
+    }
+
+    @Test
+    public void testTriangularProperties() {
+
+        double eps = 1e-12;
+        double roughness = 0.03;
+        double sqrt2 = Math.sqrt(2);
+
+        IrregularCrossSection crossSection = new IrregularCrossSection(triangle(), roughness);
+        CrossSectionProperties properties;
+
+        /* partially wet segments */
+        properties = crossSection.properties(0.5);
+        double area = 0.25;
+        double perimeter = sqrt2;
+        double radius = area / perimeter;
+        assertEquals(0.5, properties.value(Property.DEPTH), eps);
+        assertEquals(area, properties.value(Property.AREA), eps);
+        assertEquals(1, properties.value(Property.TOP_WIDTH), eps);
+        assertEquals(perimeter, properties.value(Property.WETTED_PERIMETER), eps);
+        assertEquals(area, properties.value(Property.HYDRAULIC_DEPTH), eps);
+        assertEquals(radius, properties.value(Property.HYDRAULIC_RADIUS), eps);
+        assertEquals(Constants.manningK() / roughness * area * Math.pow(radius, 2. / 3.),
+                properties.value(Property.CONVEYANCE), eps);
+        assertEquals(area * Math.sqrt(Constants.gravity() * area), properties.value(Property.CRITICAL_FLOW), eps);
+
+        /* above the end points, contained by vertical walls */
+        properties = crossSection.properties(2);
+        assertEquals(3, properties.value(Property.AREA), eps);
+        assertEquals(2, properties.value(Property.TOP_WIDTH), eps);
+        assertEquals(2 * sqrt2 + 2, properties.value(Property.WETTED_PERIMETER), eps);
+
+        /* dry */
+        properties = crossSection.properties(-1);
+        assertEquals(0, properties.value(Property.AREA), 0);
+        assertEquals(0, properties.value(Property.CONVEYANCE), 0);
+        assertEquals(0, properties.value(Property.CRITICAL_FLOW), 0);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            crossSection.properties(Double.NaN);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testNormalY() {
+
+        double roughness = 0.03;
+        double slope = 0.001;
+        double eps = 0.003;
+        double depth = 4;
+
+        IrregularCrossSection crossSection = new IrregularCrossSection(rectangle(), roughness);
+        double conveyance = crossSection.properties(depth).value(Property.CONVEYANCE);
+        double normalFlow = conveyance * Math.sqrt(slope);
+
+        assertEquals(depth, crossSection.normalY(normalFlow, slope), eps);
+        assertEquals(depth, crossSection.normalY(normalFlow, slope, 2), eps);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            crossSection.normalY(normalFlow, slope, 0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            crossSection.normalY(0, slope);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testCriticalY() {
+
+        double roughness = 0.03;
+        double eps = 0.003;
+        double depth = 3;
+
+        IrregularCrossSection crossSection = new IrregularCrossSection(rectangle(), roughness);
+        double criticalFlow = crossSection.properties(depth).value(Property.CRITICAL_FLOW);
+
+        assertEquals(depth, crossSection.criticalY(criticalFlow), eps);
+        assertEquals(depth, crossSection.criticalY(criticalFlow, 2), eps);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            crossSection.criticalY(criticalFlow, -1);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}
@@ -18,6 +18,8 @@ public class RectangularCrossSectionTest {
 
         crossSection = new RectangularCrossSection(width, roughness);
         assertEquals(0, crossSection.thalweg(), 0);
+        assertEquals(width, crossSection.width(), 0);
+        assertEquals(roughness, crossSection.roughness(), 0);
 
         /* test invalid zero values */
         illegalArgumentExceptionCaught = false;
@@ -128,6 +130,121 @@ public class RectangularCrossSectionTest {
 
     }
 
+    @Test
+    public void testPropertiesHolder() {
+
+        double eps = 0;
+        double width = 10;
+        double roughness = 0.003;
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(width, roughness);
+        CrossSectionProperties holder = new CrossSectionProperties();
+
+        for (double depth = 0; depth <= 20; depth += 5) {
+            CrossSectionProperties expected = crossSection.properties(depth);
+            CrossSectionProperties properties = crossSection.properties(depth, holder);
+
+            assertSame(holder, properties);
+            for (Property p : Property.values())
+                assertEquals(expected.value(p), properties.value(p), eps);
+        }
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            crossSection.properties(Double.NaN, holder);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        boolean nullPointerExceptionCaught = false;
+        try {
+            crossSection.properties(1, null);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testPropertiesBulk() {
+
+        RectangularCrossSection crossSection = new RectangularCrossSection(10, 0.03);
+
+        int n = 101;
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++)
+            y[i] = 0.1 * i;
+
+        double[][] results = CrossSectionProperties.columns(n);
+        assertSame(results, crossSection.properties(y, results));
+
+        for (int i = 0; i < n; i++) {
+            CrossSectionProperties expected = crossSection.properties(y[i]);
+            for (Property p : Property.values())
+                assertEquals(expected.value(p), results[p.value()][i], 0);
+        }
+
+        /* the default implementation gives the same results */
+        double[][] scalar = new CrossSection() {
+            public CrossSectionProperties properties(double y) {
+                return crossSection.properties(y);
+            }
+
+            public double criticalY(double Q) {
+                return crossSection.criticalY(Q);
+            }
+
+            public double criticalY(double Q, double y0) {
+                return crossSection.criticalY(Q, y0);
+            }
+
+            public double normalY(double Q, double S) {
+                return crossSection.normalY(Q, S);
+            }
+
+            public double normalY(double Q, double S, double y0) {
+                return crossSection.normalY(Q, S, y0);
+            }
+
+            public double thalweg() {
+                return crossSection.thalweg();
+            }
+        }.properties(y, CrossSectionProperties.columns(n));
+
+        for (Property p : Property.values())
+            assertArrayEquals(results[p.value()], scalar[p.value()], 0);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            crossSection.properties(y, CrossSectionProperties.columns(n - 1));
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        illegalArgumentExceptionCaught = false;
+        try {
+            crossSection.properties(new double[] { 1, Double.NaN }, CrossSectionProperties.columns(2));
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        boolean nullPointerExceptionCaught = false;
+        try {
+            crossSection.properties(y, null);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
+
     @Test
     public void testNormalY() {
 
@@ -147,6 +264,14 @@ public class RectangularCrossSectionTest {
         RectangularCrossSection crossSection = new RectangularCrossSection(width, roughness);
         assertEquals(depth, crossSection.normalY(normalFlow, slope), eps);
 
+        /* narrow and wide channels */
+        for (double b : new double[] { 0.5, 500 }) {
+            RectangularCrossSection channel = new RectangularCrossSection(b, roughness);
+            double a = depth * b;
+            double q = Constants.manningK() / roughness * a * Math.pow(a / (2 * depth + b), 2. / 3.) * Math.sqrt(slope);
+            assertEquals(depth, channel.normalY(q, slope), 1e-9);
+        }
+
         /* test invalid zero values */
         illegalArgumentExceptionCaught = false;
         try {
@@ -279,6 +404,25 @@ public class RectangularCrossSectionTest {
         }
     }
 
+    @Test
+    public void testNormalYTolerance() {
+
+        double roughness = 0.030;
+        double slope = 0.001;
+
+        for (double width = 0.5; width <= 500; width *= 10) {
+
+            RectangularCrossSection crossSection = new RectangularCrossSection(width, roughness);
+
+            for (double depth = 0.01; depth <= 100; depth *= 3) {
+                double conveyance = crossSection.properties(depth).value(Property.CONVEYANCE);
+                double normalFlow = conveyance * Math.sqrt(slope);
+                assertEquals(depth, crossSection.normalY(normalFlow, slope), 1e-9 * depth);
+                assertEquals(depth, crossSection.normalY(normalFlow, slope, 100 * depth), 1e-9 * depth);
+            }
+        }
+    }
+
     @Test
     public void testCriticalY() {
 
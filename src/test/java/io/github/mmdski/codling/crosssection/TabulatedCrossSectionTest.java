@@ -0,0 +1,165 @@
+package io.github.mmdski.codling.crosssection;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+import io.github.mmdski.codling.crosssection.CrossSectionProperties.Property;
+
+public class TabulatedCrossSectionTest {
+
+    @Test
+    public void testConstruction() {
+
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03);
+        boolean illegalArgumentExceptionCaught;
+        boolean nullPointerExceptionCaught;
+
+        TabulatedCrossSection tabulated = new TabulatedCrossSection(xs, 10, 11);
+        assertEquals(11, tabulated.elevations().length);
+        assertEquals(0, tabulated.elevations()[0], 0);
+        assertEquals(10, tabulated.elevations()[10], 0);
+        assertEquals(xs.thalweg(), tabulated.thalweg(), 0);
+
+        /* elevations out of order */
+        double[] outOfOrder = { 0, 2, 1 };
+        illegalArgumentExceptionCaught = false;
+        try {
+            tabulated = new TabulatedCrossSection(xs, outOfOrder);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        /* too few elevations */
+        double[] single = { 1 };
+        illegalArgumentExceptionCaught = false;
+        try {
+            tabulated = new TabulatedCrossSection(xs, single);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        /* maximum elevation below thalweg */
+        illegalArgumentExceptionCaught = false;
+        try {
+            tabulated = new TabulatedCrossSection(xs, -1, 10);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+
+        nullPointerExceptionCaught = false;
+        try {
+            tabulated = new TabulatedCrossSection(null, single);
+        } catch (NullPointerException e) {
+            nullPointerExceptionCaught = true;
+        } finally {
+            assertTrue(nullPointerExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testProperties() {
+
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03);
+        TabulatedCrossSection tabulated = new TabulatedCrossSection(xs, 10, 101);
+
+        CrossSectionProperties expected;
+        CrossSectionProperties properties;
+
+        for (double y = 0.05; y < 10; y += 0.37) {
+            expected = xs.properties(y);
+            properties = tabulated.properties(y);
+
+            /* linear properties are exact up to round off */
+            assertEquals(expected.value(Property.AREA), properties.value(Property.AREA), 1e-9);
+            assertEquals(expected.value(Property.TOP_WIDTH), properties.value(Property.TOP_WIDTH), 1e-9);
+            assertEquals(expected.value(Property.WETTED_PERIMETER), properties.value(Property.WETTED_PERIMETER),
+                    1e-9);
+
+            assertEquals(expected.value(Property.CONVEYANCE), properties.value(Property.CONVEYANCE),
+                    tabulated.errorEstimate(Property.CONVEYANCE));
+        }
+
+        /* table elevations are exact */
+        expected = xs.properties(5);
+        properties = tabulated.properties(5);
+        for (Property p : Property.values())
+            assertEquals(expected.value(p), properties.value(p), 1e-9);
+
+        /* elevations outside the table are computed by the decorated section */
+        expected = xs.properties(20);
+        properties = tabulated.properties(20, new CrossSectionProperties());
+        for (Property p : Property.values())
+            assertEquals(expected.value(p), properties.value(p), 0);
+
+        assertEquals(0, tabulated.errorEstimate(Property.AREA), 1e-9);
+        assertTrue(tabulated.errorEstimate(Property.CONVEYANCE) > 0);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            tabulated.properties(Double.NaN);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testNormalY() {
+
+        double slope = 0.001;
+        double eps = 0.003;
+
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03);
+        TabulatedCrossSection tabulated = new TabulatedCrossSection(xs, 10, 201);
+
+        for (double depth = 0.5; depth < 10; depth += 1.5) {
+            double conveyance = xs.properties(depth).value(Property.CONVEYANCE);
+            double normalFlow = conveyance * Math.sqrt(slope);
+            assertEquals(depth, tabulated.normalY(normalFlow, slope), eps);
+            assertEquals(depth, tabulated.normalY(normalFlow, slope, 1), eps);
+        }
+
+        /* outside of the table */
+        double conveyance = xs.properties(15).value(Property.CONVEYANCE);
+        assertEquals(15, tabulated.normalY(conveyance * Math.sqrt(slope), slope), eps);
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            tabulated.normalY(1, slope, 0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+
+    @Test
+    public void testCriticalY() {
+
+        double eps = 0.003;
+
+        RectangularCrossSection xs = new RectangularCrossSection(10, 0.03);
+        TabulatedCrossSection tabulated = new TabulatedCrossSection(xs, 10, 201);
+
+        for (double depth = 0.5; depth < 10; depth += 1.5) {
+            double criticalFlow = xs.properties(depth).value(Property.CRITICAL_FLOW);
+            assertEquals(depth, tabulated.criticalY(criticalFlow), eps);
+            assertEquals(depth, tabulated.criticalY(criticalFlow, 1), eps);
+        }
+
+        boolean illegalArgumentExceptionCaught = false;
+        try {
+            tabulated.criticalY(0);
+        } catch (IllegalArgumentException e) {
+            illegalArgumentExceptionCaught = true;
+        } finally {
+            assertTrue(illegalArgumentExceptionCaught);
+        }
+    }
+}